@@ -0,0 +1,87 @@
+package tmp;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Runs a CSV export on a background thread with a cancellable progress dialog
+public class CsvExportWorker extends SwingWorker<Integer, Void> {
+    private static final int PROGRESS_EVERY_ROWS = 16 * 1024;
+    private static final int CANCEL_POLL_MILLIS = 100;
+    private static final Logger LOG = Logger.getLogger(CsvExportWorker.class.getName());
+
+    private final Component parent;
+    private final File file;
+    private final CsvRowSource source;
+    private final ProgressMonitor progressMonitor;
+    private final Timer cancelPoll;
+
+    // Call on the EDT
+    public CsvExportWorker(Component parent, File file, CsvRowSource source) {
+        this.parent = parent;
+        this.file = file;
+        this.source = source;
+
+        progressMonitor = new ProgressMonitor(parent, "Exporting to " + file.getName(), null, 0, 100);
+        progressMonitor.setMillisToDecideToPopup(200);
+        addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                progressMonitor.setProgress((Integer) e.getNewValue());
+            }
+        });
+        // Progress only moves every PROGRESS_EVERY_ROWS rows, so the Cancel button is watched on its
+        // own; the row loop stops at the next row once it is pressed
+        cancelPoll = new Timer(CANCEL_POLL_MILLIS, e -> {
+            if (progressMonitor.isCanceled()) {
+                cancel(false);
+            }
+        });
+        cancelPoll.start();
+    }
+
+    @Override
+    protected Integer doInBackground() throws IOException {
+        long start = System.nanoTime();
+        int rowCount = source.getRowCount();
+        int row = 0;
+        try (CsvWriter out = new CsvWriter(file.toPath())) {
+            source.writeHeader(out);
+            for (; row < rowCount && !isCancelled(); row++) {
+                if (row % PROGRESS_EVERY_ROWS == 0) {
+                    setProgress((int) (row * 100L / rowCount));
+                }
+                source.writeRow(row, out);
+            }
+        }
+        // Don't leave a truncated file behind
+        if (isCancelled()) {
+            Files.deleteIfExists(file.toPath());
+        } else {
+            Metrics.EXPORT_CSV.recordSince(start);
+            Metrics.ROWS_EXPORTED.add(row);
+        }
+        return row;
+    }
+
+    @Override
+    protected void done() {
+        cancelPoll.stop();
+        progressMonitor.close();
+        try {
+            int rows = get();
+            JOptionPane.showMessageDialog(parent, "Exported " + rows + " rows successfully to " + file.getAbsolutePath() + "!");
+        } catch (CancellationException e) {
+            JOptionPane.showMessageDialog(parent, "Export cancelled.");
+        } catch (InterruptedException | ExecutionException e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            LOG.log(Level.WARNING, "Could not export to " + file, cause);
+            JOptionPane.showMessageDialog(parent, "Could not export to " + file.getName() + ": " + cause.getMessage());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package tmp;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.awt.*;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Times every event the EDT dispatches into Metrics.EDT_DISPATCH and reports any that runs longer
+// than a threshold, with a sample of the EDT's stack taken while the event is still running.
+// Installed as the top of the system event queue; a daemon thread polls the running dispatch.
+public class EdtWatchdog extends EventQueue implements EdtWatchdogMBean {
+    private static final int STACK_FRAMES = 25;
+    private static final Logger LOG = Logger.getLogger(EdtWatchdog.class.getName());
+
+    private volatile long thresholdNanos;
+    // nanoTime the running dispatch started, or 0 while the EDT is waiting for events. Only the EDT
+    // writes it; a modal dialog's event loop runs nested dispatches, which restart the clock.
+    private volatile long dispatchStart = 0;
+    private volatile Thread dispatchThread;
+    private int depth = 0;
+    private boolean nested = false;
+
+    private volatile long longestNanos = 0;
+    private volatile String lastStall = "";
+
+    private EdtWatchdog(long thresholdMillis) {
+        setThresholdMillis(thresholdMillis);
+    }
+
+    // Call once at startup; also registers the watchdog as tmp:type=EdtWatchdog
+    public static EdtWatchdog install(long thresholdMillis) {
+        EdtWatchdog watchdog = new EdtWatchdog(thresholdMillis);
+        Toolkit.getDefaultToolkit().getSystemEventQueue().push(watchdog);
+        Thread thread = new Thread(watchdog::watch, "edt-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(watchdog, new ObjectName("tmp:type=EdtWatchdog"));
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Could not register the EDT watchdog over JMX", e);
+        }
+        return watchdog;
+    }
+
+    @Override
+    public AWTEvent getNextEvent() throws InterruptedException {
+        dispatchStart = 0;
+        return super.getNextEvent();
+    }
+
+    @Override
+    protected void dispatchEvent(AWTEvent event) {
+        long start = System.nanoTime();
+        dispatchThread = Thread.currentThread();
+        dispatchStart = start;
+        if (depth > 0) {
+            nested = true;
+        }
+        depth++;
+        try {
+            super.dispatchEvent(event);
+        } finally {
+            depth--;
+            long end = System.nanoTime();
+            // An event that ran a modal loop is as long as the dialog was open, which says nothing about responsiveness
+            if (depth == 0 && !nested) {
+                long elapsed = end - start;
+                Metrics.EDT_DISPATCH.record(elapsed);
+                if (elapsed > longestNanos) {
+                    longestNanos = elapsed;
+                }
+            }
+            if (depth == 0) {
+                nested = false;
+                dispatchStart = 0;
+            } else {
+                dispatchStart = end;
+            }
+        }
+    }
+
+    private void watch() {
+        long reported = 0;
+        while (true) {
+            long threshold = thresholdNanos;
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.max(TimeUnit.MILLISECONDS.toNanos(10), threshold / 4));
+            } catch (InterruptedException e) {
+                return;
+            }
+            long start = dispatchStart;
+            if (start == 0 || start == reported || System.nanoTime() - start < threshold) {
+                continue;
+            }
+            StackTraceElement[] stack = dispatchThread.getStackTrace();
+            if (dispatchStart != start) {
+                continue; // finished while the stack was taken, so the sample would be of something else
+            }
+            reported = start;
+            Metrics.EDT_STALLS.increment();
+            StringBuilder report = new StringBuilder("EDT busy for ")
+                    .append(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                    .append(" ms (threshold ").append(getThresholdMillis()).append(" ms) in:");
+            for (int i = 0; i < Math.min(stack.length, STACK_FRAMES); i++) {
+                report.append("\n\tat ").append(stack[i]);
+            }
+            if (stack.length > STACK_FRAMES) {
+                report.append("\n\t... ").append(stack.length - STACK_FRAMES).append(" more");
+            }
+            lastStall = report.toString();
+            LOG.warning(lastStall);
+        }
+    }
+
+    @Override
+    public long getThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    @Override
+    public void setThresholdMillis(long thresholdMillis) {
+        if (thresholdMillis <= 0) {
+            throw new IllegalArgumentException("Threshold must be positive: " + thresholdMillis);
+        }
+        thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+    }
+
+    @Override
+    public long getStallCount() {
+        return Metrics.EDT_STALLS.sum();
+    }
+
+    @Override
+    public double getLongestDispatchMillis() {
+        return longestNanos / 1e6;
+    }
+
+    @Override
+    public String getLastStall() {
+        return lastStall;
+    }
+}
@@ -0,0 +1,15 @@
+package tmp;
+
+// JMX view of the EdtWatchdog, registered as tmp:type=EdtWatchdog
+public interface EdtWatchdogMBean {
+    long getThresholdMillis();
+
+    void setThresholdMillis(long thresholdMillis);
+
+    long getStallCount();
+
+    double getLongestDispatchMillis();
+
+    // Report of the most recent stall with its stack sample; empty if there has been none
+    String getLastStall();
+}
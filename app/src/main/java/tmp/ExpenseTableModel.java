@@ -0,0 +1,114 @@
+package tmp;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.BitSet;
+
+// Table model that reads cells straight from the tracker's columns and follows its change events,
+// so the table never holds a copy of the ledger. A search query narrows it to the matching rows,
+// looked up in the tracker's search index rather than by testing each row.
+public class ExpenseTableModel extends AbstractTableModel implements ExpenseTrackerListener {
+    private static final String[] COLUMN_NAMES = {"Company", "Description", "$ Amount", "Date", "Category"};
+
+    private final ExpenseTracker expenseTracker;
+    private String query = "";
+    private int[] visibleRows; // tracker indexes of the matching rows, or null when not searching
+
+    public ExpenseTableModel(ExpenseTracker expenseTracker) {
+        this.expenseTracker = expenseTracker;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+        applyQuery();
+        fireTableDataChanged();
+    }
+
+    // Re-reads everything, for when changes were made while the model was not listening
+    public void refresh() {
+        setQuery(query);
+    }
+
+    // Maps a table row to the tracker index it shows
+    public int toTrackerIndex(int row) {
+        return visibleRows == null ? row : visibleRows[row];
+    }
+
+    private void applyQuery() {
+        BitSet rows = expenseTracker.search(query);
+        visibleRows = rows == null ? null : rows.stream().toArray();
+    }
+
+    @Override
+    public int getRowCount() {
+        return visibleRows == null ? expenseTracker.getExpenseCount() : visibleRows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 2 ? Double.class : String.class;
+    }
+
+    // Raw values only; formatting is left to the renderers so it happens for visible cells alone
+    @Override
+    public Object getValueAt(int row, int column) {
+        row = toTrackerIndex(row);
+        switch (column) {
+            case 0:
+                return expenseTracker.getCompany(row);
+            case 1:
+                return expenseTracker.getDescription(row);
+            case 2:
+                return expenseTracker.getAmount(row);
+            case 3:
+                return expenseTracker.getDate(row);
+            default:
+                return expenseTracker.getCategory(row);
+        }
+    }
+
+    // While searching, any change may move rows in or out of the results, so the query is re-run
+    @Override
+    public void expensesAdded(int firstIndex, int lastIndex) {
+        if (visibleRows == null) {
+            fireTableRowsInserted(firstIndex, lastIndex);
+        } else {
+            setQuery(query);
+        }
+    }
+
+    @Override
+    public void expenseUpdated(int index) {
+        if (visibleRows == null) {
+            fireTableRowsUpdated(index, index);
+        } else {
+            setQuery(query);
+        }
+    }
+
+    @Override
+    public void expenseDeleted(int index) {
+        if (visibleRows == null) {
+            fireTableRowsDeleted(index, index);
+        } else {
+            setQuery(query);
+        }
+    }
+
+    // Categories are not searched, so the visible rows stay and are only repainted
+    @Override
+    public void categoriesChanged() {
+        if (getRowCount() > 0) {
+            fireTableRowsUpdated(0, getRowCount() - 1);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package tmp;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.*;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.text.*;
+import java.io.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class ExpenseTrackerApp implements Screen {
+    private static final Logger LOG = Logger.getLogger(ExpenseTrackerApp.class.getName());
+
+    private MainApp shell;
+    private ExpenseTracker expenseTracker;
+    private ManagePortfolio managePortfolio;
+    
+    private JPanel panel;
+    private ExpenseTableModel tableModel;
+    private ExpenseTrackerListener sumListener;
+    private JLabel sumLabel;
+    private JButton addButton;
+    private JButton deleteButton;
+    private JButton editButton;
+    private JButton exportButton;
+    private JButton importButton;
+    private JButton backButton;
+    private DecimalFormat df = new DecimalFormat("0.00");
+    private int rowHeight = 30;
+    private Color backgroundColor = new Color(210, 232, 240);
+
+    public ExpenseTrackerApp(MainApp shell, ExpenseTracker sharedExpenseTracker, ManagePortfolio managePortfolio) {
+        this.shell = shell;
+    	this.expenseTracker = sharedExpenseTracker;
+    	this.managePortfolio = managePortfolio;
+        panel = new JPanel(new BorderLayout());
+
+        tableModel = new ExpenseTableModel(expenseTracker);
+        JTable table = new JTable(tableModel);
+        table.getColumnModel().getColumn(2).setCellRenderer(new DefaultTableCellRenderer() {
+            @Override
+            protected void setValue(Object value) {
+                super.setValue(value == null ? "" : df.format(value));
+            }
+        });
+
+        // The model and the total follow tracker changes while the screen is showing, so a single edit
+        // costs O(1) here; both are attached in shown()
+        sumListener = new ExpenseTrackerListener() {
+            @Override
+            public void expensesAdded(int firstIndex, int lastIndex) {
+                updateSum();
+            }
+
+            @Override
+            public void expenseUpdated(int index) {
+                updateSum();
+            }
+
+            @Override
+            public void expenseDeleted(int index) {
+                updateSum();
+            }
+
+            @Override
+            public void categoriesChanged() {
+            }
+        };
+
+        // GUI INTERFACE
+        addButton = new JButton("Add Expense");
+        deleteButton = new JButton("Delete Expense");
+        editButton = new JButton("Edit Expense");
+        backButton = new JButton("Back");
+        sumLabel = new JLabel("  Total: $0");
+        exportButton = new JButton("Export");
+        importButton = new JButton("Import");
+                
+        // BUTTON ACTION LISTENERS
+        addButton.addActionListener(e -> addExpense());
+        deleteButton.addActionListener(e -> deleteExpense(selectedIndex(table)));
+        editButton.addActionListener(e -> editExpense(selectedIndex(table)));
+        backButton.addActionListener(e -> shell.showMenu());
+        exportButton.addActionListener(e -> exportToCSV());
+        importButton.addActionListener(e -> importFromCSV());
+
+        // DIFFERENT PANELS
+        JPanel bottomButtonPanel = new JPanel();
+        bottomButtonPanel.setLayout(new BoxLayout(bottomButtonPanel, BoxLayout.LINE_AXIS));
+        bottomButtonPanel.add(backButton);
+        bottomButtonPanel.add(addButton);
+        bottomButtonPanel.add(Box.createHorizontalGlue());
+        bottomButtonPanel.add(deleteButton);
+        bottomButtonPanel.add(Box.createHorizontalGlue());
+        bottomButtonPanel.add(editButton);
+        bottomButtonPanel.setBackground(backgroundColor);
+        
+        JPanel sumPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        sumPanel.add(sumLabel);
+        sumPanel.setBackground(backgroundColor);
+        
+        JPanel exportPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        exportPanel.add(importButton);
+        exportPanel.add(exportButton);
+        exportPanel.setBackground(backgroundColor);
+
+        // Search as you type; each keystroke is one lookup in the tracker's search index
+        JTextField searchField = new JTextField();
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                tableModel.setQuery(searchField.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                tableModel.setQuery(searchField.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                tableModel.setQuery(searchField.getText());
+            }
+        });
+        JPanel searchPanel = new JPanel(new BorderLayout());
+        searchPanel.add(new JLabel("  Search: "), BorderLayout.WEST);
+        searchPanel.add(searchField, BorderLayout.CENTER);
+        searchPanel.setBackground(backgroundColor);
+
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(sumPanel, BorderLayout.WEST); // Add the sumPanel to the left
+        topPanel.add(exportPanel, BorderLayout.EAST);
+        topPanel.add(searchPanel, BorderLayout.SOUTH);
+        topPanel.setBackground(backgroundColor);
+
+        // PUTTING IT ALL TOGETHER
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(bottomButtonPanel, BorderLayout.SOUTH);
+        panel.add(topPanel, BorderLayout.NORTH);
+        
+        // BUTTON STYLING
+        addButton.setFont(new Font("Arial", Font.BOLD, 16));
+        addButton.setForeground(Color.WHITE);
+        addButton.setBackground(new Color(0, 128, 0));
+
+        deleteButton.setFont(new Font("Arial", Font.BOLD, 16));
+        deleteButton.setForeground(Color.WHITE);
+        deleteButton.setBackground(new Color(139, 0, 0));
+
+        editButton.setFont(new Font("Arial", Font.BOLD, 16));
+        editButton.setForeground(Color.WHITE);
+        editButton.setBackground(Color.ORANGE);
+        
+        exportButton.setFont(new Font("Arial", Font.BOLD, 16));
+        exportButton.setForeground(Color.WHITE);
+        exportButton.setBackground(new Color(30, 144, 255));
+
+        importButton.setFont(new Font("Arial", Font.BOLD, 16));
+        importButton.setForeground(Color.WHITE);
+        importButton.setBackground(new Color(30, 144, 255));
+        
+        backButton.setBackground(new Color(173, 216, 230));
+
+        // TABLE STYLING
+        table.setFont(new Font("Arial", Font.PLAIN, 16));
+        table.setForeground(Color.BLACK);
+        table.getTableHeader().setFont(new Font("Arial", Font.BOLD, 18));
+        table.setRowHeight(rowHeight);
+        
+        // LABEL STYLING
+        sumLabel.setFont(new Font("Arial", Font.BOLD, 18));
+        sumLabel.setForeground(Color.BLUE);
+    }
+    
+    private void exportToCSV() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Specify a file to save");
+        fileChooser.setSelectedFile(new File("expenses.csv"));
+        int userSelection = fileChooser.showSaveDialog(panel);
+
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            File fileToSave = fileChooser.getSelectedFile();
+            if (!fileToSave.getName().toLowerCase().endsWith(".csv")) {
+                fileToSave = new File(fileToSave.getAbsolutePath() + ".csv");
+            }
+
+            // The export writes a snapshot, so editing can go on while the worker runs
+            new CsvExportWorker(panel, fileToSave, new ExpenseCsvExport(expenseTracker)).execute();
+        }
+    }
+
+    // Parses on a worker thread, then appends everything to the tracker in one step on the EDT
+    private void importFromCSV() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Select a file to import");
+        int userSelection = fileChooser.showOpenDialog(panel);
+
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            File fileToImport = fileChooser.getSelectedFile();
+            setEditingEnabled(false);
+            new SwingWorker<ExpenseCsvImporter.ImportResult, Void>() {
+                @Override
+                protected ExpenseCsvImporter.ImportResult doInBackground() throws IOException {
+                    return new ExpenseCsvImporter(ForkJoinPool.commonPool(), expenseTracker.getCategorizer()).read(fileToImport.toPath());
+                }
+
+                @Override
+                protected void done() {
+                    try {
+                        ExpenseCsvImporter.ImportResult result = get();
+                        expenseTracker.addExpenses(result.getBatch());
+                        StringBuilder message = new StringBuilder("Imported " + result.getBatch().size() + " rows");
+                        if (result.getErrorCount() > 0) {
+                            message.append(", skipped ").append(result.getErrorCount()).append(" malformed rows:");
+                            for (int i = 0; i < Math.min(10, result.getErrors().size()); i++) {
+                                message.append('\n').append(result.getErrors().get(i));
+                            }
+                        }
+                        JOptionPane.showMessageDialog(panel, message.toString());
+                    } catch (Exception e) {
+                        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                        LOG.log(Level.WARNING, "Could not import " + fileToImport, cause);
+                        JOptionPane.showMessageDialog(panel, "Could not import " + fileToImport.getName() + ": " + cause.getMessage());
+                    } finally {
+                        setEditingEnabled(true);
+                    }
+                }
+            }.execute();
+        }
+    }
+
+    private void setEditingEnabled(boolean enabled) {
+        addButton.setEnabled(enabled);
+        deleteButton.setEnabled(enabled);
+        editButton.setEnabled(enabled);
+        exportButton.setEnabled(enabled);
+        importButton.setEnabled(enabled);
+        backButton.setEnabled(enabled);
+    }
+
+
+    @Override
+    public String getTitle() {
+        return "Expense Tracker";
+    }
+
+    @Override
+    public JComponent getComponent() {
+        return panel;
+    }
+
+    // Catches up on whatever changed while another screen was showing, then follows changes again
+    @Override
+    public void shown() {
+        expenseTracker.addListener(tableModel);
+        expenseTracker.addListener(sumListener);
+        updateTable();
+    }
+
+    @Override
+    public void hidden() {
+        expenseTracker.removeListener(tableModel);
+        expenseTracker.removeListener(sumListener);
+    }
+
+    private void addExpense() {
+        JTextField companyField = new JTextField();
+        JTextField descriptionField = new JTextField();
+        JTextField amountField = new JTextField();
+        JTextField dateField = new JTextField(new SimpleDateFormat("yyyy-MM-dd").format(new Date()));
+        Object[] message = {
+                "Company:", companyField,
+                "Description:", descriptionField,
+                "$ Amount:", amountField,
+                "Date:", dateField
+        };
+        int option = JOptionPane.showConfirmDialog(null, message, "Add Expense", JOptionPane.OK_CANCEL_OPTION);
+        if (option == JOptionPane.OK_OPTION) {
+            try {
+                String company = companyField.getText();
+                String description = descriptionField.getText();
+                double amount = Double.parseDouble(amountField.getText());
+                String date = dateField.getText();
+                expenseTracker.addExpense(new Expense(company, description, amount, date));
+            } catch (NumberFormatException | DateTimeParseException e) {
+                JOptionPane.showMessageDialog(panel, "Please enter a valid amount and a date as yyyy-MM-dd.");
+            }
+        }
+    }
+
+    // The tracker index of the selected row, or -1 when nothing is selected
+    private int selectedIndex(JTable table) {
+        int row = table.getSelectedRow();
+        return row < 0 ? -1 : tableModel.toTrackerIndex(row);
+    }
+
+    private void deleteExpense(int index) {
+        if (index >= 0) {
+            expenseTracker.deleteExpense(index);
+        } else {
+            JOptionPane.showMessageDialog(panel, "Please select an expense to delete.");
+        }
+    }
+
+    private void editExpense(int index) {
+        if (index >= 0) {
+            // Other writers may delete rows while the dialog is open, so remember the row by id
+            long id = expenseTracker.getExpenseId(index);
+            Expense expense = expenseTracker.getExpense(index);
+            JTextField companyField = new JTextField(expense.getCompany());
+            JTextField descriptionField = new JTextField(expense.getDescription());
+            JTextField amountField = new JTextField(Double.toString(expense.getAmount()));
+            JTextField dateField = new JTextField(expense.getDate());
+            Object[] message = {
+                    "Company:", companyField,
+                    "Description:", descriptionField,
+                    "Amount ($):", amountField,
+                    "Date:", dateField
+            };
+            int option = JOptionPane.showConfirmDialog(null, message, "Edit Expense", JOptionPane.OK_CANCEL_OPTION);
+            if (option == JOptionPane.OK_OPTION) {
+                try {
+                    String company = companyField.getText();
+                    String description = descriptionField.getText();
+                    double amount = Double.parseDouble(amountField.getText());
+                    String date = dateField.getText();
+                    if (!expenseTracker.editExpenseById(id, new Expense(company, description, amount, date))) {
+                        JOptionPane.showMessageDialog(panel, "This expense has been deleted.");
+                    }
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    JOptionPane.showMessageDialog(panel, "Please enter a valid amount and a date as yyyy-MM-dd.");
+                }
+            }
+        } else {
+            JOptionPane.showMessageDialog(panel, "Please select an expense to edit.");
+        }
+    }
+
+    public void updateTable() {
+        long start = System.nanoTime();
+        tableModel.refresh();
+        updateSum();
+        Metrics.UPDATE_TABLE.recordSince(start);
+    }
+
+    // Read from the tracker's rollups, so this stays cheap however many rows there are
+    private void updateSum() {
+        YearMonth month = YearMonth.now();
+        sumLabel.setText("  Total: $" + df.format(expenseTracker.getSumOfExpenses())
+                + "   This month: $" + df.format(expenseTracker.getSumForMonth(month))
+                + "   This year: $" + df.format(expenseTracker.getSumForYear(month.getYear())));
+    }
+
+}
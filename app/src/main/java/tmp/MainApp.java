@@ -0,0 +1,293 @@
+package tmp;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// The application window. Screens share it through a CardLayout: each is built the first time it is
+// visited and reused after that, so navigating never creates frames or rebuilds component trees.
+public class MainApp {
+    public static final String MENU = "menu";
+    public static final String EXPENSES = "expenses";
+    public static final String PORTFOLIO = "portfolio";
+    public static final String ANALYSIS = "analysis";
+    private static final String TITLE = "Personal Finance App";
+    private static final Logger LOG = Logger.getLogger(MainApp.class.getName());
+    private static final AtomicBoolean historyFailureShown = new AtomicBoolean();
+
+    private JFrame frame;
+    private ExpenseTracker expenseTracker;
+    private ManagePortfolio managePortfolio;
+    private JPanel cards;
+    private Map<String, Screen> screens = new HashMap<>();
+    private Screen current;
+
+    public MainApp(Point location, ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) {
+        this(expenseTracker, managePortfolio);
+
+        frame = new JFrame();
+        frame.setTitle(TITLE);
+        frame.setSize(500, 800);
+        frame.setLocation(location);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                close();
+            }
+        });
+        frame.setContentPane(cards);
+        frame.setVisible(true);
+    }
+
+    // The screens without a window around them; used directly to measure navigation headless
+    MainApp(ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) {
+        this.expenseTracker = expenseTracker;
+        this.managePortfolio = managePortfolio;
+        cards = new JPanel(new CardLayout());
+        cards.add(createMenu(), MENU);
+    }
+
+    // Shows a screen by name, building it on the first visit
+    public void showScreen(String name) {
+        long start = System.nanoTime();
+        if (current != null) {
+            current.hidden();
+            current = null;
+        }
+        String title = TITLE;
+        if (!name.equals(MENU)) {
+            Screen screen = screens.get(name);
+            if (screen == null) {
+                screen = createScreen(name);
+                screens.put(name, screen);
+                cards.add(screen.getComponent(), name);
+            }
+            current = screen;
+            screen.shown();
+            title = screen.getTitle();
+        }
+        ((CardLayout) cards.getLayout()).show(cards, name);
+        if (frame != null) {
+            frame.setTitle(title);
+        }
+        Metrics.NAVIGATE.recordSince(start);
+    }
+
+    public void showMenu() {
+        showScreen(MENU);
+    }
+
+    // Detaches the visible screen from the model and releases the window
+    public void close() {
+        if (current != null) {
+            current.hidden();
+            current = null;
+        }
+        if (frame != null) {
+            frame.dispose();
+        }
+    }
+
+    JComponent getComponent() {
+        return cards;
+    }
+
+    private Screen createScreen(String name) {
+        switch (name) {
+            case EXPENSES:
+                return new ExpenseTrackerApp(this, expenseTracker, managePortfolio);
+            case PORTFOLIO:
+                return new StockPortfolioApp(this, expenseTracker, managePortfolio);
+            case ANALYSIS:
+                return new PortfolioAnalysisApp(this, expenseTracker, managePortfolio);
+            default:
+                throw new IllegalArgumentException("Unknown screen: " + name);
+        }
+    }
+
+    private JPanel createMenu() {
+        JPanel menu = new JPanel(new GridBagLayout());
+        menu.setBackground(new Color(210, 232, 240));
+        JLabel titleLabel = new JLabel(TITLE);
+        titleLabel.setFont(new Font("Arial", Font.BOLD, 30));
+        titleLabel.setForeground(new Color(50, 60, 70));
+
+        // Track Expenses
+        JButton expenseTrackerButton = new JButton("Expense Tracker");
+        expenseTrackerButton.setBackground(new Color(0, 123, 255));
+        expenseTrackerButton.setForeground(Color.WHITE);
+        expenseTrackerButton.setFont(new Font("Arial", Font.PLAIN, 20));
+
+        // View Stock Portfolio
+        JButton stockPortfolioButton = new JButton("Stock Portfolio");
+        stockPortfolioButton.setBackground(new Color(30, 144, 255));
+        stockPortfolioButton.setForeground(Color.WHITE);
+        stockPortfolioButton.setFont(new Font("Arial", Font.PLAIN, 20));
+        
+        // Portfolio Analysis
+        JButton portfolioAnalysisButton = new JButton("Portfolio Analysis");
+        portfolioAnalysisButton.setBackground(new Color(70, 130, 180)); // Yet another shade of blue
+        portfolioAnalysisButton.setForeground(Color.WHITE);
+        portfolioAnalysisButton.setFont(new Font("Arial", Font.PLAIN, 20));
+
+        expenseTrackerButton.addActionListener((ActionEvent e) -> showScreen(EXPENSES));
+        stockPortfolioButton.addActionListener((ActionEvent e) -> showScreen(PORTFOLIO));
+        portfolioAnalysisButton.addActionListener(e -> showScreen(ANALYSIS));
+
+        // Button alignment
+        GridBagConstraints constraints = new GridBagConstraints();
+        constraints.gridx = 0;
+        constraints.gridy = 0;
+        constraints.insets = new Insets(30, 0, 30, 0);
+        menu.add(titleLabel, constraints);
+        constraints.gridy = 1;
+        constraints.insets = new Insets(0, 0, 10, 0);
+        menu.add(expenseTrackerButton, constraints);
+        constraints.gridy = 2;
+        menu.add(stockPortfolioButton, constraints);
+        constraints.gridy = 3;
+        menu.add(portfolioAnalysisButton, constraints);
+        return menu;
+    }
+
+    private static SymbolRegistry loadSymbols(Path file) {
+        if (Files.exists(file)) {
+            try {
+                return SymbolRegistry.load(file);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not load " + file + ", using the default symbols", e);
+                JOptionPane.showMessageDialog(null, "Could not load " + file + ": " + e.getMessage()
+                        + "\nUsing the default symbols instead.");
+            }
+        }
+        return SymbolRegistry.defaultRegistry();
+    }
+
+    // Failures are logged every time but shown only once, and never from the shutdown hook
+    private static void recordHistory(ManagePortfolio managePortfolio, boolean showFailure) {
+        try {
+            managePortfolio.recordHistory();
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Could not record the position history", e);
+            if (showFailure && historyFailureShown.compareAndSet(false, true)) {
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                        "Could not record the position history: " + e.getMessage()));
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        // Latency histograms and counters over JMX, an optional periodic log line (-Dfinance.metrics.log=<seconds>)
+        // and a report of every EDT event that runs longer than -Dfinance.edt.stallMillis (default 200)
+        Metrics.register();
+        Metrics.startLoggingFromProperty();
+        EdtWatchdog.install(Long.getLong("finance.edt.stallMillis", 200));
+
+        ExpenseTracker expenseTracker = new ExpenseTracker();
+        ManagePortfolio managePortfolio = new ManagePortfolio(loadSymbols(Paths.get("symbols.txt")));
+
+        // Tag expenses with the rules in category-rules.txt, if there is one, before the ledger is
+        // restored; edits to the file are picked up and the rows retagged on the EDT
+        Path categoryRules = Paths.get("category-rules.txt");
+        if (Files.exists(categoryRules)) {
+            try {
+                Categorizer categorizer = new Categorizer(categoryRules);
+                expenseTracker.setCategorizer(categorizer);
+                categorizer.addListener(new CategorizerListener() {
+                    @Override
+                    public void rulesReloaded(CategoryRules rules) {
+                        SwingUtilities.invokeLater(expenseTracker::recategorize);
+                    }
+
+                    @Override
+                    public void rulesRejected(Exception e) {
+                        LOG.log(Level.WARNING, "Rejected the edited category rules in " + categoryRules + "; keeping the previous ones", e);
+                        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                                "Keeping the previous category rules: " + e.getMessage()));
+                    }
+                });
+                categorizer.watch(2000);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not load the category rules from " + categoryRules, e);
+                JOptionPane.showMessageDialog(null, "Could not load the category rules: " + e.getMessage());
+            }
+        }
+
+        // Restore the saved ledger and keep journaling every change to it
+        try {
+            LedgerJournal journal = LedgerJournal.open(Paths.get("ledger"), expenseTracker, managePortfolio);
+            if (!journal.getRestoreWarnings().isEmpty()) {
+                JOptionPane.showMessageDialog(null, "The saved ledger was restored with these changes:\n"
+                        + String.join("\n", journal.getRestoreWarnings()));
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                // The window is gone by now, so the log is the only place left to report to
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    LOG.log(Level.SEVERE, "Could not close the ledger journal; recent changes may not be saved", e);
+                }
+            }));
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Could not open the ledger journal", e);
+            JOptionPane.showMessageDialog(null, "Could not load the saved ledger: " + e.getMessage()
+                    + "\nChanges made now will not be saved.");
+        }
+
+        // Keep a per-day record of the positions; refreshed hourly so a day's entry is close to its end-of-day state
+        try {
+            managePortfolio.setHistory(PositionHistoryStore.open(Paths.get("ledger", "history"), managePortfolio.getRegistry()));
+            managePortfolio.recordHistory();
+            ScheduledExecutorService historyRecorder = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "position-history");
+                thread.setDaemon(true);
+                return thread;
+            });
+            historyRecorder.scheduleAtFixedRate(() -> recordHistory(managePortfolio, true), 1, 1, TimeUnit.HOURS);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> recordHistory(managePortfolio, false)));
+        } catch (IOException | IllegalArgumentException e) {
+            LOG.log(Level.WARNING, "Could not open the position history", e);
+            JOptionPane.showMessageDialog(null, "Could not open the position history: " + e.getMessage()
+                    + "\nPositions will not be recorded this session.");
+        }
+
+        // Replay recorded prices, if there are any, to mark the portfolio to market. Risk analytics use
+        // the daily closes in prices.csv, or failing that the daily closes of the recorded ticks.
+        Path ticks = Paths.get("ticks.csv");
+        Path prices = Paths.get("prices.csv");
+        try {
+            SymbolRegistry registry = managePortfolio.getRegistry();
+            if (Files.exists(prices)) {
+                managePortfolio.getRiskAnalytics().setPriceHistory(PriceHistory.load(prices, registry));
+            }
+            if (Files.exists(ticks)) {
+                TickFeed feed = TickFeed.load(ticks, registry);
+                if (!Files.exists(prices)) {
+                    managePortfolio.getRiskAnalytics().setPriceHistory(feed.toDailyCloses(registry.size()));
+                }
+                feed.start(managePortfolio.getPricingEngine(), 1);
+            }
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Could not load the recorded prices", e);
+            JOptionPane.showMessageDialog(null, "Could not load the recorded prices: " + e.getMessage()
+                    + "\nMarket value and risk figures will be unavailable.");
+        }
+
+        new MainApp(new Point(650, 200), expenseTracker, managePortfolio);
+    }
+}
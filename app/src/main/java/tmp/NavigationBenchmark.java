@@ -0,0 +1,101 @@
+package tmp;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+
+// Navigation cost and retained memory of the single-window shell against building every screen
+// afresh on each visit, as the app did when each visit opened a new frame and hid the old one.
+// Works headless (-Djava.awt.headless=true): only the panels are built, never a window, so the
+// "rebuild" figures leave out the native frame peers the old code also leaked.
+//   NavigationBenchmark [visits] [symbols] [rows]
+public class NavigationBenchmark {
+    private static final String[] ROUTE = {MainApp.EXPENSES, MainApp.MENU, MainApp.PORTFOLIO, MainApp.MENU, MainApp.ANALYSIS, MainApp.MENU};
+
+    public static void main(String[] args) throws Exception {
+        int visits = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        int symbols = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int rows = args.length > 2 ? Integer.parseInt(args[2]) : 100_000;
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < symbols; i++) {
+            names.add("SYM" + i);
+        }
+        ManagePortfolio managePortfolio = new ManagePortfolio(new SymbolRegistry(names));
+        ExpenseTracker expenseTracker = new ExpenseTracker();
+        ExpenseBatch batch = new ExpenseBatch(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add("Company " + i % 50, "Item " + i % 1000, 100 + i % 10_000, 19_000 + i % 365);
+        }
+        expenseTracker.addExpenses(batch);
+
+        long baseline = usedMemory();
+        List<Object> leaked = new ArrayList<>();
+        long rebuildNanos = time(visits, visit -> {
+            // Old behaviour: a new screen per visit and a new menu per Back, none of them ever released
+            MainApp shell = new MainApp(expenseTracker, managePortfolio);
+            leaked.add(shell.getComponent());
+            String name = ROUTE[visit % ROUTE.length];
+            if (!name.equals(MainApp.MENU)) {
+                Screen screen = createScreen(name, shell, expenseTracker, managePortfolio);
+                screen.shown();
+                screen.hidden();
+                leaked.add(screen.getComponent());
+            }
+        });
+        long rebuildBytes = usedMemory() - baseline;
+        leaked.clear();
+
+        baseline = usedMemory();
+        MainApp shell = new MainApp(expenseTracker, managePortfolio);
+        long reuseNanos = time(visits, visit -> shell.showScreen(ROUTE[visit % ROUTE.length]));
+        long reuseBytes = usedMemory() - baseline;
+
+        System.out.printf("%d visits, %d symbols, %d rows%n", visits, symbols, rows);
+        System.out.printf("rebuild per visit: %8.3f ms/visit, %8.1f MB retained%n", rebuildNanos / 1e6 / visits, rebuildBytes / 1e6);
+        System.out.printf("reused screens:    %8.3f ms/visit, %8.1f MB retained%n", reuseNanos / 1e6 / visits, reuseBytes / 1e6);
+        System.out.println(Metrics.NAVIGATE.appendSummary(new StringBuilder()));
+        shell.close();
+        System.exit(0);
+    }
+
+    private interface Visit {
+        void run(int visit) throws Exception;
+    }
+
+    // Every visit runs on the EDT, as a button click would
+    private static long time(int visits, Visit visit) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < visits; i++) {
+            int n = i;
+            SwingUtilities.invokeAndWait(() -> {
+                try {
+                    visit.run(n);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static Screen createScreen(String name, MainApp shell, ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) {
+        switch (name) {
+            case MainApp.EXPENSES:
+                return new ExpenseTrackerApp(shell, expenseTracker, managePortfolio);
+            case MainApp.PORTFOLIO:
+                return new StockPortfolioApp(shell, expenseTracker, managePortfolio);
+            default:
+                return new PortfolioAnalysisApp(shell, expenseTracker, managePortfolio);
+        }
+    }
+
+    private static long usedMemory() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
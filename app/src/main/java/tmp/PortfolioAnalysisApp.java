@@ -0,0 +1,280 @@
+package tmp;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class PortfolioAnalysisApp implements Screen {
+    private static final Logger LOG = Logger.getLogger(PortfolioAnalysisApp.class.getName());
+
+    private MainApp shell;
+    private ExpenseTracker expenseTracker;
+    private ManagePortfolio managePortfolio;
+    private JPanel panel;
+    private JPanel changesPanel;
+    private JLabel netChangeLabel;
+    private JComboBox<String> checkpointBox;
+    private JLabel marketValueLabel;
+    private JComboBox<String> symbolBox;
+    private JComboBox<String> rangeBox;
+    private JTextArea historyArea;
+    private String recordFailure; // why today's positions could not be recorded on this visit, if they couldn't
+    private int historyRequest = 0; // bumped for every read, so only the latest one fills the view
+    private static final String[] HISTORY_RANGES = {"30 days", "1 year", "5 years"};
+    private static final int[] HISTORY_DAYS = {30, 365, 5 * 365};
+    private JTextArea riskArea;
+    private JComboBox<String> riskWindowBox;
+    private static final String[] RISK_WINDOWS = {"60 days", "1 year", "All"};
+    private static final int[] RISK_DAYS = {60, 252, Integer.MAX_VALUE};
+
+    public PortfolioAnalysisApp(MainApp shell, ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) {
+        this.shell = shell;
+        this.expenseTracker = expenseTracker;
+        this.managePortfolio = managePortfolio;
+        panel = new JPanel(new BorderLayout());
+
+        changesPanel = new JPanel();
+        changesPanel.setLayout(new BoxLayout(changesPanel, BoxLayout.Y_AXIS));
+        netChangeLabel = new JLabel();
+        netChangeLabel.setFont(new Font("Arial", Font.BOLD, 20));
+
+        // Which checkpoint to compare against; defaults to the last visit of this screen
+        checkpointBox = new JComboBox<>(managePortfolio.getCheckpointNames().toArray(new String[0]));
+        checkpointBox.setSelectedItem(ManagePortfolio.LAST_VISIT);
+        checkpointBox.addActionListener(e -> showChanges((String) checkpointBox.getSelectedItem()));
+        JPanel checkpointPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        checkpointPanel.add(new JLabel("Changes since:"));
+        checkpointPanel.add(checkpointBox);
+
+        marketValueLabel = new JLabel();
+        marketValueLabel.setFont(new Font("Arial", Font.PLAIN, 18));
+
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.add(checkpointPanel, BorderLayout.NORTH);
+        headerPanel.add(marketValueLabel, BorderLayout.CENTER);
+        headerPanel.add(netChangeLabel, BorderLayout.SOUTH);
+
+
+        // Holdings of one symbol over time, from the per-day position history
+        symbolBox = new JComboBox<>(managePortfolio.getRegistry().getSymbols().toArray(new String[0]));
+        rangeBox = new JComboBox<>(HISTORY_RANGES);
+        symbolBox.addActionListener(e -> showHistory(false));
+        rangeBox.addActionListener(e -> showHistory(false));
+        JPanel historyControls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        historyControls.add(new JLabel("History of:"));
+        historyControls.add(symbolBox);
+        historyControls.add(new JLabel("over the last"));
+        historyControls.add(rangeBox);
+        historyArea = new JTextArea();
+        historyArea.setEditable(false);
+        JPanel historyPanel = new JPanel(new BorderLayout());
+        historyPanel.add(historyControls, BorderLayout.NORTH);
+        historyPanel.add(new JScrollPane(historyArea), BorderLayout.CENTER);
+
+        // Risk figures, like the position history, are computed off the EDT and cached until the positions or prices change
+        riskWindowBox = new JComboBox<>(RISK_WINDOWS);
+        riskWindowBox.setSelectedIndex(1);
+        riskWindowBox.addActionListener(e -> showRisk());
+        JPanel riskControls = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        riskControls.add(new JLabel("Risk over:"));
+        riskControls.add(riskWindowBox);
+        riskArea = new JTextArea();
+        riskArea.setEditable(false);
+        JPanel riskPanel = new JPanel(new BorderLayout());
+        riskPanel.add(riskControls, BorderLayout.NORTH);
+        riskPanel.add(new JScrollPane(riskArea), BorderLayout.CENTER);
+
+        JPanel centerPanel = new JPanel(new GridLayout(3, 1));
+        centerPanel.add(new JScrollPane(changesPanel));
+        centerPanel.add(historyPanel);
+        centerPanel.add(riskPanel);
+
+        JButton backButton = new JButton("Back");
+        backButton.addActionListener(e -> shell.showMenu());
+
+        panel.add(headerPanel, BorderLayout.NORTH);
+        panel.add(centerPanel, BorderLayout.CENTER);
+        panel.add(backButton, BorderLayout.SOUTH);
+    }
+
+    @Override
+    public String getTitle() {
+        return "Portfolio Analysis";
+    }
+
+    @Override
+    public JComponent getComponent() {
+        return panel;
+    }
+
+    // Everything here is a report as of now, so it is all recomputed on each visit
+    @Override
+    public void shown() {
+        marketValueLabel.setText("Market Value: $" + new DecimalFormat("#,##0.00").format(managePortfolio.getMarketValue()));
+        showChanges((String) checkpointBox.getSelectedItem());
+        showHistory(true);
+        showRisk();
+    }
+
+    // Leaving the screen counts as the visit the next report compares against
+    @Override
+    public void hidden() {
+        managePortfolio.saveCurrentState();
+    }
+
+    private void showChanges(String checkpoint) {
+        changesPanel.removeAll();
+        int netChange = 0;
+        boolean anyChange = false;
+
+        for (Map.Entry<String, Integer> entry : managePortfolio.getChangesSince(checkpoint).entrySet()) {
+            int change = entry.getValue();
+            netChange += change;
+
+            if (change != 0) {
+                anyChange = true;
+                JLabel changeLabel = new JLabel(entry.getKey() + ": " + (change > 0 ? "INCREASED by " : "DECREASED by ") + Math.abs(change));
+                changesPanel.add(changeLabel);
+            }
+        }
+
+        netChangeLabel.setText("Net Change in Stock Holdings: " + (netChange >= 0 ? "+" : "") + netChange);
+
+        if (!anyChange) {
+            JLabel noChangeLabel = new JLabel("No changes in your portfolio!");
+            noChangeLabel.setFont(new Font("Arial", Font.PLAIN, 18));
+            changesPanel.add(noChangeLabel);
+        }
+        changesPanel.revalidate();
+        changesPanel.repaint();
+    }
+
+    private void showRisk() {
+        int selected = riskWindowBox.getSelectedIndex();
+        if (managePortfolio.getRiskAnalytics().getPriceHistory() == null) {
+            riskArea.setText("No price history loaded (prices.csv or ticks.csv).");
+            return;
+        }
+        riskArea.setText("Computing...");
+        managePortfolio.getRiskAnalytics().analyze(RISK_DAYS[selected]).whenComplete((report, error) -> SwingUtilities.invokeLater(() -> {
+            if (riskWindowBox.getSelectedIndex() != selected) {
+                return; // a newer window was picked while this one was computing
+            }
+            if (error != null) {
+                riskArea.setText("Could not compute risk: " + error.getMessage());
+            } else {
+                riskArea.setText(formatRisk(report));
+                riskArea.setCaretPosition(0);
+            }
+        }));
+    }
+
+    private static String formatRisk(RiskReport report) {
+        if (report.getWindow() == 0 || report.size() == 0) {
+            return "Not enough price history for the held stocks.";
+        }
+        DecimalFormat money = new DecimalFormat("#,##0.00");
+        DecimalFormat percent = new DecimalFormat("0.0%");
+        StringBuilder text = new StringBuilder();
+        text.append("Over ").append(report.getWindow()).append(" trading days:\n");
+        text.append("1-day VaR 95%: $").append(money.format(report.getValueAtRisk95()));
+        text.append(", 99%: $").append(money.format(report.getValueAtRisk99())).append('\n');
+        text.append("Daily volatility: $").append(money.format(report.getDailyVolatility()));
+        text.append(", max drawdown: ").append(percent.format(report.getMaxDrawdown())).append('\n');
+        for (int i = 0; i < report.size(); i++) {
+            text.append(report.getStockName(i)).append(" volatility: ").append(percent.format(report.getVolatility(i))).append('\n');
+        }
+
+        // The most correlated pairs, strongest first
+        int pairs = report.size() * (report.size() - 1) / 2;
+        int[][] best = new int[Math.min(5, pairs)][];
+        for (int i = 0; i < report.size(); i++) {
+            for (int j = i + 1; j < report.size(); j++) {
+                double strength = Math.abs(report.getCorrelation(i, j));
+                for (int k = 0; k < best.length; k++) {
+                    if (best[k] == null || strength > Math.abs(report.getCorrelation(best[k][0], best[k][1]))) {
+                        System.arraycopy(best, k, best, k + 1, best.length - k - 1);
+                        best[k] = new int[]{i, j};
+                        break;
+                    }
+                }
+            }
+        }
+        for (int[] pair : best) {
+            text.append("Correlation ").append(report.getStockName(pair[0])).append(" / ").append(report.getStockName(pair[1]));
+            text.append(": ").append(new DecimalFormat("0.00").format(report.getCorrelation(pair[0], pair[1]))).append('\n');
+        }
+        return text.toString();
+    }
+
+    // Lists the days on which the holding changed, newest first. Recording today's positions, when
+    // asked to, and reading the history are file IO, so both run on a worker and done() fills the view.
+    private void showHistory(boolean record) {
+        String symbol = (String) symbolBox.getSelectedItem();
+        int days = HISTORY_DAYS[rangeBox.getSelectedIndex()];
+        int request = ++historyRequest;
+        PositionHistoryStore history = managePortfolio.getHistory();
+        if (history == null || symbol == null) {
+            historyArea.setText("No position history is being recorded.");
+            return;
+        }
+        int today = (int) LocalDate.now().toEpochDay();
+        int from = today - days + 1;
+        historyArea.setText("Loading...");
+        new SwingWorker<long[], Void>() {
+            private String failure;
+
+            @Override
+            protected long[] doInBackground() throws IOException {
+                if (record) {
+                    try {
+                        managePortfolio.recordHistory();
+                    } catch (IOException | IllegalArgumentException e) {
+                        LOG.log(Level.WARNING, "Could not record the position history", e);
+                        failure = e.getMessage();
+                    }
+                }
+                return history.getSymbolHistory(symbol, from, today);
+            }
+
+            @Override
+            protected void done() {
+                if (record) {
+                    recordFailure = failure;
+                }
+                if (request != historyRequest) {
+                    if (record) {
+                        showHistory(false); // the newer read may have run before today was recorded
+                    }
+                    return;
+                }
+                long[] holdings;
+                try {
+                    holdings = get();
+                } catch (InterruptedException | ExecutionException e) {
+                    Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+                    LOG.log(Level.WARNING, "Could not read the position history of " + symbol, cause);
+                    historyArea.setText("Could not read the position history: " + cause.getMessage());
+                    return;
+                }
+                StringBuilder text = new StringBuilder();
+                if (recordFailure != null) {
+                    text.append("Today's positions could not be recorded: ").append(recordFailure).append("\n\n");
+                }
+                for (int i = holdings.length - 1; i >= 0; i--) {
+                    if (i == 0 || holdings[i] != holdings[i - 1]) {
+                        text.append(LocalDate.ofEpochDay(from + i)).append(": ").append(holdings[i]).append(" shares\n");
+                    }
+                }
+                historyArea.setText(text.toString());
+                historyArea.setCaretPosition(0);
+            }
+        }.execute();
+    }
+}
@@ -0,0 +1,160 @@
+package tmp;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongConsumer;
+
+// One row per stock (or per stock matching the search prefix), reading holdings straight from the
+// portfolio. Trades can arrive from any thread and far faster than the screen repaints, so the
+// listener only marks stocks dirty; a single EDT task per burst turns the marks into row updates
+// and one refresh of the total, however many trades the burst held.
+public class PortfolioTableModel extends AbstractTableModel implements PortfolioListener {
+    public static final int STOCK_COLUMN = 0;
+    public static final int OWNED_COLUMN = 1;
+    public static final int BUY_COLUMN = 2;
+    public static final int SELL_COLUMN = 3;
+    private static final String[] COLUMN_NAMES = {"Stock", "Owned", "", ""};
+    // Past this many changed rows one event for the whole column is cheaper than one per row
+    private static final int MAX_ROW_EVENTS = 64;
+
+    private final ManagePortfolio managePortfolio;
+    private final SymbolRegistry registry;
+    private int[] rows; // stock id of each row
+    private final int[] rowOf; // row of each stock id, -1 while filtered out
+    private long totalShares;
+    private LongConsumer totalListener;
+
+    // Guarded by pending
+    private final BitSet pending = new BitSet();
+    private long pendingShares = 0;
+    private boolean flushScheduled = false;
+
+    public PortfolioTableModel(ManagePortfolio managePortfolio) {
+        this.managePortfolio = managePortfolio;
+        this.registry = managePortfolio.getRegistry();
+        rowOf = new int[registry.size()];
+        setFilter("");
+    }
+
+    // Called on the EDT with the number of shares held whenever it changes
+    public void setTotalListener(LongConsumer totalListener) {
+        this.totalListener = totalListener;
+    }
+
+    public long getTotalShares() {
+        return totalShares;
+    }
+
+    // Shows only the stocks starting with prefix (ignoring case), in universe order
+    public void setFilter(String prefix) {
+        prefix = prefix.trim();
+        if (prefix.isEmpty()) {
+            rows = new int[registry.size()];
+            for (int id = 0; id < rows.length; id++) {
+                rows[id] = id;
+            }
+        } else {
+            rows = registry.findByPrefix(prefix);
+            Arrays.sort(rows);
+        }
+        Arrays.fill(rowOf, -1);
+        for (int row = 0; row < rows.length; row++) {
+            rowOf[rows[row]] = row;
+        }
+        fireTableDataChanged();
+    }
+
+    // Re-reads everything, for when trades were made while the model was not listening
+    public void refresh() {
+        synchronized (pending) {
+            pending.clear();
+            pendingShares = 0;
+        }
+        totalShares = (long) managePortfolio.getPortfolioValue();
+        fireTableDataChanged();
+        if (totalListener != null) {
+            totalListener.accept(totalShares);
+        }
+    }
+
+    public int getStockId(int row) {
+        return rows[row];
+    }
+
+    @Override
+    public void holdingsChanged(TradeResult result) {
+        synchronized (pending) {
+            for (int i = 0; i < result.size(); i++) {
+                pending.set(result.getStockId(i));
+                pendingShares += result.getChange(i);
+            }
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        SwingUtilities.invokeLater(this::flush);
+    }
+
+    private void flush() {
+        BitSet changed;
+        long shares;
+        synchronized (pending) {
+            changed = (BitSet) pending.clone();
+            pending.clear();
+            shares = pendingShares;
+            pendingShares = 0;
+            flushScheduled = false;
+        }
+        if (changed.cardinality() > MAX_ROW_EVENTS) {
+            fireTableChanged(new TableModelEvent(this, 0, Math.max(0, rows.length - 1), OWNED_COLUMN));
+        } else {
+            for (int id = changed.nextSetBit(0); id >= 0; id = changed.nextSetBit(id + 1)) {
+                if (rowOf[id] >= 0) {
+                    fireTableCellUpdated(rowOf[id], OWNED_COLUMN);
+                }
+            }
+        }
+        if (shares != 0) {
+            totalShares += shares;
+            if (totalListener != null) {
+                totalListener.accept(totalShares);
+            }
+        }
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == OWNED_COLUMN ? Integer.class : String.class;
+    }
+
+    // The button columns show the stock too; their renderers turn it into "Buy X" / "Sell X"
+    @Override
+    public Object getValueAt(int row, int column) {
+        int stockId = rows[row];
+        return column == OWNED_COLUMN ? managePortfolio.getStockQuantity(stockId) : registry.getSymbol(stockId);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return column == BUY_COLUMN || column == SELL_COLUMN;
+    }
+}
@@ -0,0 +1,16 @@
+package tmp;
+
+import javax.swing.*;
+
+// A view hosted in the MainApp window. Each one is built on its first visit and kept for the rest of
+// the session; the shell calls shown() whenever it comes to the front and hidden() when it leaves,
+// so a screen only follows model changes while it is visible and catches up when shown again.
+public interface Screen {
+    String getTitle();
+
+    JComponent getComponent();
+
+    void shown();
+
+    void hidden();
+}
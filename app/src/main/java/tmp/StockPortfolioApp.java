@@ -0,0 +1,174 @@
+package tmp;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.text.DecimalFormat;
+import java.io.File;
+
+public class StockPortfolioApp implements Screen {
+    private MainApp shell;
+    private ExpenseTracker expenseTracker;
+    private ManagePortfolio managePortfolio;
+
+    private JPanel panel;
+    private JLabel portfolioValueLabel;
+    private JLabel marketValueLabel;
+    private Timer marketValueTimer;
+    private JSpinner quantitySpinner;
+    private PortfolioTableModel tableModel;
+    private DecimalFormat df = new DecimalFormat("0");
+
+    public StockPortfolioApp(MainApp shell, ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) {
+        this.shell = shell;
+        this.expenseTracker = expenseTracker;
+        this.managePortfolio = managePortfolio;
+        panel = new JPanel(new BorderLayout());
+
+        // Portfolio Value Label; kept up to date by the table model, one refresh per burst of trades
+        portfolioValueLabel = new JLabel();
+        portfolioValueLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        
+        // Export Button
+        JButton exportButton = new JButton("Export");
+        exportButton.addActionListener((ActionEvent e) -> exportToCSV());
+        exportButton.setAlignmentX(Component.RIGHT_ALIGNMENT);
+        exportButton.setFont(new Font("Arial", Font.PLAIN, 12));
+        exportButton.setBackground(new Color(135, 206, 250));
+        exportButton.setPreferredSize(new Dimension(100, 30));
+
+        // Number of shares each Buy/Sell click moves
+        quantitySpinner = new JSpinner(new SpinnerNumberModel(1, 1, 1_000_000, 1));
+        JPanel quantityPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        quantityPanel.add(new JLabel("Shares:"));
+        quantityPanel.add(quantitySpinner);
+
+        // Prefix search over the symbol registry; the table shows only the matching rows
+        JTextField searchField = new JTextField(8);
+        quantityPanel.add(new JLabel("Search:"));
+        quantityPanel.add(searchField);
+        searchField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                tableModel.setFilter(searchField.getText());
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                tableModel.setFilter(searchField.getText());
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                tableModel.setFilter(searchField.getText());
+            }
+        });
+
+        // Prices can tick far faster than the screen can repaint, so poll the value a few times a second
+        marketValueLabel = new JLabel();
+        marketValueLabel.setFont(new Font("Arial", Font.BOLD, 16));
+        DecimalFormat moneyFormat = new DecimalFormat("#,##0.00");
+        marketValueTimer = new Timer(250, e -> marketValueLabel.setText(" Market value: $" + moneyFormat.format(managePortfolio.getMarketValue())));
+        marketValueTimer.setInitialDelay(0);
+
+        // Create a panel for the header that includes the portfolio value label and the export button
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.add(marketValueLabel, BorderLayout.SOUTH);
+        headerPanel.add(portfolioValueLabel, BorderLayout.WEST);
+        headerPanel.add(quantityPanel, BorderLayout.CENTER);
+        headerPanel.add(exportButton, BorderLayout.EAST);
+
+        // Buy & Sell Options: a table only creates and paints the rows in view, so the screen costs
+        // the same with a handful of stocks or tens of thousands
+        tableModel = new PortfolioTableModel(managePortfolio);
+        tableModel.setTotalListener(this::updatePortfolioValue);
+        JTable table = new JTable(tableModel);
+        table.setRowHeight(40);
+        table.setFont(new Font("Arial", Font.PLAIN, 14));
+        table.setRowSelectionAllowed(false);
+        table.getTableHeader().setReorderingAllowed(false);
+        TradeButtonColumn buyColumn = new TradeButtonColumn("Buy", row -> {
+            TradeResult result = managePortfolio.buyStock(tableModel.getStockId(row), getQuantity());
+            if (!result.isAccepted()) {
+                JOptionPane.showMessageDialog(panel, "A holding can't go over " + ManagePortfolio.MAX_HOLDING + " " + result.getRejectedStock() + " shares.");
+            }
+        });
+        TradeButtonColumn sellColumn = new TradeButtonColumn("Sell", row -> {
+            int stockId = tableModel.getStockId(row);
+            TradeResult result = managePortfolio.sellStock(stockId, getQuantity());
+            if (!result.isAccepted()) {
+                JOptionPane.showMessageDialog(panel, "You only own " + managePortfolio.getStockQuantity(stockId) + " " + result.getRejectedStock() + " shares.");
+            }
+        });
+        table.getColumnModel().getColumn(PortfolioTableModel.BUY_COLUMN).setCellRenderer(buyColumn);
+        table.getColumnModel().getColumn(PortfolioTableModel.BUY_COLUMN).setCellEditor(buyColumn);
+        table.getColumnModel().getColumn(PortfolioTableModel.SELL_COLUMN).setCellRenderer(sellColumn);
+        table.getColumnModel().getColumn(PortfolioTableModel.SELL_COLUMN).setCellEditor(sellColumn);
+        table.getColumnModel().getColumn(PortfolioTableModel.BUY_COLUMN).setPreferredWidth(135);
+        table.getColumnModel().getColumn(PortfolioTableModel.SELL_COLUMN).setPreferredWidth(135);
+
+        // Back button
+        JButton backButton = new JButton("Back");
+        backButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        backButton.setFont(new Font("Arial", Font.PLAIN, 12));
+        backButton.setBackground(new Color(135, 206, 250));
+        backButton.setPreferredSize(new Dimension(100, 30));
+        backButton.addActionListener((ActionEvent e) -> shell.showMenu());
+
+        panel.add(headerPanel, BorderLayout.NORTH);
+        panel.add(new JScrollPane(table), BorderLayout.CENTER);
+        panel.add(backButton, BorderLayout.SOUTH);
+    }
+
+    @Override
+    public String getTitle() {
+        return "Stock Portfolio";
+    }
+
+    @Override
+    public JComponent getComponent() {
+        return panel;
+    }
+
+    // Trades made while another screen was showing are picked up here
+    @Override
+    public void shown() {
+        managePortfolio.addListener(tableModel);
+        tableModel.refresh();
+        marketValueTimer.start();
+    }
+
+    @Override
+    public void hidden() {
+        managePortfolio.removeListener(tableModel);
+        marketValueTimer.stop();
+    }
+
+    private int getQuantity() {
+        return (Integer) quantitySpinner.getValue();
+    }
+
+    private void updatePortfolioValue(long shares) {
+        portfolioValueLabel.setText(" # Stocks Owned: " + df.format(shares));
+    }
+    
+    private void exportToCSV() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Specify a file to save");
+        fileChooser.setSelectedFile(new File("portfolio.csv")); // Default file name
+        int userSelection = fileChooser.showSaveDialog(panel);
+
+        if (userSelection == JFileChooser.APPROVE_OPTION) {
+            File fileToSave = fileChooser.getSelectedFile();
+
+            // Take the holdings on the EDT so the worker writes a consistent picture
+            CsvRowSource rows = new PortfolioCsvExport(managePortfolio);
+            managePortfolio.resetCheckpoint(ManagePortfolio.LAST_EXPORT);
+            new CsvExportWorker(panel, fileToSave, rows).execute();
+        }
+    }
+
+
+}
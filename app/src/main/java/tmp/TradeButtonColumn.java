@@ -0,0 +1,49 @@
+package tmp;
+
+import javax.swing.*;
+import javax.swing.table.TableCellEditor;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+import java.util.function.IntConsumer;
+
+// A clickable button in every row of a table column. One button paints all the rows and a second
+// one stands in for the row being clicked, so a column costs two components however long it is.
+public class TradeButtonColumn extends AbstractCellEditor implements TableCellRenderer, TableCellEditor {
+    private final String action;
+    private final JButton renderButton = new JButton();
+    private final JButton editButton = new JButton();
+    private int editingRow = -1;
+
+    // onClick gets the model row whose button was pressed
+    public TradeButtonColumn(String action, IntConsumer onClick) {
+        this.action = action;
+        for (JButton button : new JButton[]{renderButton, editButton}) {
+            button.setFont(new Font("Arial", Font.PLAIN, 14));
+            button.setBackground(new Color(173, 216, 230)); // Light blue color
+        }
+        editButton.setFocusable(false);
+        editButton.addActionListener(e -> {
+            int row = editingRow;
+            fireEditingStopped();
+            onClick.accept(row);
+        });
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        renderButton.setText(action + " " + value);
+        return renderButton;
+    }
+
+    @Override
+    public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
+        editingRow = table.convertRowIndexToModel(row);
+        editButton.setText(action + " " + value);
+        return editButton;
+    }
+
+    @Override
+    public Object getCellEditorValue() {
+        return null;
+    }
+}
@@ -0,0 +1,107 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Compares a JMH run against the committed baseline, both written with -rf csv.
+//   java -cp benchmarks/target/benchmarks.jar tmp.BaselineCheck baseline.csv result.csv [tolerancePercent]
+// Prints every benchmark's change and exits with status 1 if any got slower than the tolerance
+// (default 10%); for throughput modes slower means a lower score, for time modes a higher one.
+public class BaselineCheck {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BaselineCheck baseline.csv result.csv [tolerancePercent]");
+            System.exit(2);
+        }
+        Map<String, String[]> baseline = read(Paths.get(args[0]));
+        Map<String, String[]> result = read(Paths.get(args[1]));
+        double tolerance = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+        int regressions = 0;
+        for (Map.Entry<String, String[]> entry : result.entrySet()) {
+            String[] current = entry.getValue();
+            String[] base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("%-70s %12s %s  (new)%n", entry.getKey(), current[4], current[6]);
+                continue;
+            }
+            double before = Double.parseDouble(base[4]);
+            double after = Double.parseDouble(current[4]);
+            boolean higherIsBetter = current[1].equals("thrpt");
+            double slowdown = (higherIsBetter ? before / after - 1 : after / before - 1) * 100;
+            boolean regressed = slowdown > tolerance;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %12s -> %12s %s  score %+.1f%%%s%n", entry.getKey(), base[4], current[4], current[6],
+                    (after / before - 1) * 100, regressed ? "  REGRESSION" : "");
+        }
+        System.out.printf("%d of %d benchmarks regressed by more than %.0f%%%n", regressions, result.size(), tolerance);
+        System.exit(regressions > 0 ? 1 : 0);
+    }
+
+    // Keyed by benchmark name, mode and parameter values. Rows without a name, mode, score and unit,
+    // or with a score that is not a number, are reported and left out.
+    private static Map<String, String[]> read(Path file) throws IOException {
+        Map<String, String[]> rows = new LinkedHashMap<>();
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return rows;
+        }
+        String[] header = split(lines.get(0).strip());
+        for (int number = 2; number <= lines.size(); number++) {
+            String line = lines.get(number - 1).strip();
+            if (line.isEmpty()) {
+                continue;
+            }
+            String[] fields = split(line);
+            if (fields.length < 7 || fields[0].isEmpty() || !isNumber(fields[4])) {
+                System.err.printf("%s:%d: skipping malformed row: %s%n", file, number, line);
+                continue;
+            }
+            StringBuilder key = new StringBuilder(fields[0]).append(" ").append(fields[1]);
+            for (int i = 7; i < fields.length && i < header.length; i++) {
+                if (!fields[i].isEmpty()) {
+                    key.append(" ").append(header[i].replace("Param: ", "")).append("=").append(fields[i]);
+                }
+            }
+            rows.put(key.toString(), fields);
+        }
+        return rows;
+    }
+
+    private static boolean isNumber(String text) {
+        try {
+            Double.parseDouble(text);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+}
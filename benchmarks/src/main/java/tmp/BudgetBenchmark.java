@@ -0,0 +1,60 @@
+package tmp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Cost of keeping budgets on the ledger's hot paths. With budgets there are five on each of the
+// 200 companies plus a few on all of them, so a row affects about ten of the thousand.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BudgetBenchmark {
+    private static final int ROWS = 100_000;
+
+    @Param({"0", "1000"})
+    public int budgets;
+
+    private ExpenseTracker expenseTracker;
+    private Expense[] expenses;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        expenses = new Expense[1024];
+        for (int i = 0; i < expenses.length; i++) {
+            expenses[i] = new Expense("Company" + random.nextInt(200), "Expense " + random.nextInt(10_000),
+                    random.nextInt(100_000) / 100.0, "2024-" + String.format("%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        }
+        expenseTracker = new ExpenseTracker();
+        for (int i = 0; i < ROWS; i++) {
+            expenseTracker.addExpense(expenses[i % expenses.length]);
+        }
+        for (int i = 0; i < budgets; i++) {
+            String company = i < 10 ? null : "Company" + i % 200;
+            int period = i % 3;
+            expenseTracker.addBudget(new Budget("Budget " + i, company, period, 1000 + random.nextInt(100_000)));
+        }
+        expenseTracker.addBudgetListener(alert -> next++);
+    }
+
+    private Expense nextExpense() {
+        return expenses[next++ & (expenses.length - 1)];
+    }
+
+    @Benchmark
+    public void addExpense() {
+        expenseTracker.addExpense(nextExpense());
+        expenseTracker.deleteExpense(expenseTracker.getExpenseCount() - 1);
+    }
+
+    @Benchmark
+    public void editExpenseAtHead() {
+        expenseTracker.editExpense(0, nextExpense());
+    }
+}
@@ -0,0 +1,91 @@
+package tmp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Categorization throughput in rows per second, for rule files of different sizes. Merchants and
+// keywords are made-up words; about half the rows match a merchant rule, some a keyword or an
+// amount range, and the rest nothing, which is the most expensive case for rules tried in order.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CategorizerBenchmark {
+    private static final int ROWS = 100_000;
+
+    @Param({"100", "5000"})
+    public int rules;
+
+    private List<String> lines;
+    private CategoryRules compiled;
+    private ExpenseBatch batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        String[] merchants = new String[rules];
+        for (int i = 0; i < merchants.length; i++) {
+            merchants[i] = word(random) + " " + word(random);
+        }
+        lines = new ArrayList<>();
+        for (int i = 0; i < rules; i++) {
+            String category = "Category " + random.nextInt(50);
+            switch (i % 10) {
+                case 0:
+                    lines.add(category + " | keyword | " + word(random));
+                    break;
+                case 1:
+                    lines.add(category + " | amount | " + random.nextInt(5000) + ".." + (5000 + random.nextInt(5000)));
+                    break;
+                case 2:
+                    lines.add(category + " | text | " + word(random) + " | 10..500");
+                    break;
+                default:
+                    lines.add(category + " | merchant | " + merchants[i]);
+            }
+        }
+        compiled = CategoryRules.compile(lines);
+
+        batch = new ExpenseBatch(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            String company = random.nextBoolean()
+                    ? merchants[random.nextInt(merchants.length)].toUpperCase() + " #" + random.nextInt(1000)
+                    : word(random) + " " + word(random) + " LLC";
+            batch.add(company, word(random) + " " + word(random), random.nextInt(100_000), 19_000 + random.nextInt(1000));
+        }
+    }
+
+    private static String word(Random random) {
+        char[] letters = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(letters);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int categorizeBatch() {
+        int matched = 0;
+        for (int i = 0; i < ROWS; i++) {
+            if (compiled.categorize(batch.getCompany(i), batch.getDescription(i), batch.getAmountCents(i)) != CategoryRules.UNCATEGORIZED) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    // Compiling the rule file, which is what a hot reload costs
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CategoryRules compileRules() {
+        return CategoryRules.compile(lines);
+    }
+}
@@ -0,0 +1,16 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+// Benchmark: java -cp benchmarks/target/benchmarks.jar tmp.ExpenseCsvImporterHarness expenses.csv
+public class ExpenseCsvImporterHarness {
+    public static void main(String[] args) throws IOException {
+        ExpenseCsvImporter.ImportResult result = new ExpenseCsvImporter().read(Paths.get(args[0]));
+        System.out.printf("Imported %d rows (%d malformed) at %.0f rows/s%n",
+                result.getBatch().size(), result.getErrorCount(), result.getRowsPerSecond());
+        for (String error : result.getErrors()) {
+            System.out.println(error);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package tmp;
+
+import java.util.BitSet;
+import java.util.Random;
+
+// Benchmark: java -cp benchmarks/target/benchmarks.jar tmp.ExpenseSearchIndexHarness [rows]
+// Builds a ledger of synthetic rows, then times search-as-you-type prefixes of a few queries, each
+// prefix once in the order typed after an untimed pass over them all, and checks every result
+// against a plain scan of the rows. The queries run twice: on the fresh ledger
+// and again after deleting one row in a hundred, which leaves tombstones in the table order.
+public class ExpenseSearchIndexHarness {
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String[] words = {"coffee", "lunch", "dinner", "taxi", "train", "hotel", "flight", "office", "supplies",
+                "software", "license", "groceries", "fuel", "parking", "subscription", "books", "team", "client"};
+        Random random = new Random(42);
+        ExpenseBatch batch = new ExpenseBatch();
+        for (int i = 0; i < rows; i++) {
+            String description = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " #" + random.nextInt(rows / 10 + 1);
+            batch.add("Company" + random.nextInt(2000), description, random.nextInt(100_000), 18_000 + random.nextInt(3000));
+        }
+        ExpenseTracker tracker = new ExpenseTracker();
+        long start = System.nanoTime();
+        tracker.addExpenses(batch);
+        System.out.printf("%d rows added and indexed in %.2f s%n", rows, (System.nanoTime() - start) / 1e9);
+
+        typeQueries(tracker);
+        for (int i = 0; i < rows / 100; i++) {
+            tracker.deleteExpense(random.nextInt(tracker.getExpenseCount()));
+        }
+        System.out.printf("After deleting %d rows:%n", rows / 100);
+        typeQueries(tracker);
+    }
+
+    private static void typeQueries(ExpenseTracker tracker) {
+        int rows = tracker.getExpenseCount();
+        String[] queries = {"company1234 taxi", "subscription", "4242", "offi supp"};
+        for (String query : queries) {
+            for (int length = 1; length <= query.length(); length++) {
+                tracker.search(query.substring(0, length)); // warm up
+            }
+        }
+        for (String query : queries) {
+            for (int length = 1; length <= query.length(); length++) {
+                String typed = query.substring(0, length);
+                long start = System.nanoTime();
+                BitSet found = tracker.search(typed);
+                double millis = (System.nanoTime() - start) / 1e6;
+                if (length == query.length() || length <= 3) {
+                    System.out.printf("\"%s\": %d rows in %.3f ms%n", typed, found == null ? rows : found.cardinality(), millis);
+                }
+                String[] terms = ExpenseSearchIndex.split(typed);
+                for (int row = 0; row < rows && found != null; row++) {
+                    String[] rowWords = ExpenseSearchIndex.split(tracker.getCompany(row) + " " + tracker.getDescription(row));
+                    boolean matches = true;
+                    for (String term : terms) {
+                        boolean any = false;
+                        for (String word : rowWords) {
+                            any |= word.contains(term);
+                        }
+                        matches &= any;
+                    }
+                    if (matches != found.get(row)) {
+                        throw new AssertionError("Row " + row + " disagrees for \"" + typed + "\"");
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package tmp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Ledger operations at different ledger sizes. The mutating benchmarks undo their own change (or
+// rotate a row from the head to the tail) so the ledger keeps its size across invocations.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ExpenseTrackerBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int rows;
+
+    private ExpenseTracker expenseTracker;
+    private Expense[] expenses;
+    private int next = 0;
+    private long[] ids; // ids of the rows, in no particular order
+    private Random picker = new Random(7);
+    private Path exportFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(42);
+        expenses = new Expense[1024];
+        for (int i = 0; i < expenses.length; i++) {
+            expenses[i] = new Expense("Company" + random.nextInt(200), "Expense " + random.nextInt(10_000),
+                    random.nextInt(100_000) / 100.0, "2024-" + String.format("%02d-%02d", 1 + random.nextInt(12), 1 + random.nextInt(28)));
+        }
+        ExpenseBatch batch = new ExpenseBatch();
+        for (int i = 0; i < rows; i++) {
+            Expense expense = expenses[i % expenses.length];
+            batch.add(expense.getCompany(), expense.getDescription(), Math.round(expense.getAmount() * 100),
+                    (int) java.time.LocalDate.parse(expense.getDate()).toEpochDay());
+        }
+        expenseTracker = new ExpenseTracker();
+        expenseTracker.addExpenses(batch);
+        ids = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            ids[i] = expenseTracker.getExpenseId(i);
+        }
+        exportFile = Files.createTempFile("expenses", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(exportFile);
+    }
+
+    private Expense nextExpense() {
+        return expenses[next++ & (expenses.length - 1)];
+    }
+
+    // Appends a row, then removes it again from the tail
+    @Benchmark
+    public void addExpense() {
+        expenseTracker.addExpense(nextExpense());
+        expenseTracker.deleteExpense(expenseTracker.getExpenseCount() - 1);
+    }
+
+    @Benchmark
+    public void editExpenseAtHead() {
+        expenseTracker.editExpense(0, nextExpense());
+    }
+
+    // Deletes the first row, the most expensive position, and appends it at the tail
+    @Benchmark
+    public void deleteExpenseAtHead() {
+        Expense head = expenseTracker.getExpense(0);
+        expenseTracker.deleteExpense(0);
+        expenseTracker.addExpense(head);
+    }
+
+    // Deletes a random row by id and appends it again under a new id
+    @Benchmark
+    public void deleteExpenseById() {
+        int k = picker.nextInt(ids.length);
+        Expense expense = expenseTracker.getExpenseById(ids[k]);
+        expenseTracker.deleteExpenseById(ids[k]);
+        ids[k] = expenseTracker.addExpense(expense);
+    }
+
+    @Benchmark
+    public void editExpenseById() {
+        expenseTracker.editExpenseById(ids[picker.nextInt(ids.length)], nextExpense());
+    }
+
+    // Taking a snapshot is O(1); the first edit after it pays for copying the chunks it touches
+    @Benchmark
+    public ExpenseSnapshot snapshotThenEdit() {
+        ExpenseSnapshot snapshot = expenseTracker.snapshot();
+        expenseTracker.editExpense(0, nextExpense());
+        return snapshot;
+    }
+
+    @Benchmark
+    public double getSumOfExpenses() {
+        return expenseTracker.getSumOfExpenses();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int exportCsv() throws IOException {
+        return new ExpenseCsvExport(expenseTracker).writeTo(exportFile);
+    }
+}
@@ -0,0 +1,78 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Benchmark: java -cp benchmarks/target/benchmarks.jar tmp.MappedLedgerHarness [rows] [directory]
+// Appends rows in batches, then reopens the ledger and times the remap, lookups by id, edits and
+// deletes, checking the header's sum against the records. Heap use is printed along the way.
+public class MappedLedgerHarness {
+    public static void main(String[] args) throws IOException {
+        long rows = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000;
+        Path directory = args.length > 1 ? Paths.get(args[1]) : Files.createTempDirectory("ledger");
+        String[] companies = new String[500];
+        for (int i = 0; i < companies.length; i++) {
+            companies[i] = "Company " + i;
+        }
+        Random random = new Random(42);
+        int today = (int) LocalDate.now().toEpochDay();
+
+        long begin = System.nanoTime();
+        try (MappedLedger ledger = MappedLedger.open(directory)) {
+            for (long done = 0; done < rows; ) {
+                ExpenseBatch batch = new ExpenseBatch(100_000);
+                for (int i = 0; i < 100_000 && done < rows; i++, done++) {
+                    batch.add(companies[random.nextInt(companies.length)], "Item " + random.nextInt(1000),
+                            1 + random.nextInt(100_000), today - random.nextInt(3650));
+                }
+                ledger.addExpenses(batch);
+            }
+        }
+        double appendSeconds = (System.nanoTime() - begin) / 1e9;
+        System.out.printf("%d rows appended in %.2f s (%.0f rows/s); %d bytes on disk; heap used %d MB%n",
+                rows, appendSeconds, rows / appendSeconds,
+                Files.size(directory.resolve("records.bin")) + Files.size(directory.resolve("text.bin")), usedHeapMegabytes());
+
+        begin = System.nanoTime();
+        try (MappedLedger ledger = MappedLedger.open(directory)) {
+            double openMillis = (System.nanoTime() - begin) / 1e6;
+            int lookups = 1_000_000;
+            long nextId = ledger.getNextId();
+            begin = System.nanoTime();
+            long found = 0;
+            for (int i = 0; i < lookups; i++) {
+                if (ledger.getExpenseById(1 + (long) (random.nextDouble() * (nextId - 1))) != null) {
+                    found++;
+                }
+            }
+            double lookupNanos = (System.nanoTime() - begin) / (double) lookups;
+            begin = System.nanoTime();
+            for (int i = 0; i < lookups; i++) {
+                long id = 1 + (long) (random.nextDouble() * (nextId - 1));
+                if (i % 2 == 0) {
+                    ledger.editExpenseById(id, new Expense(companies[i % companies.length], "Edited", 12.34, "2024-01-01"));
+                } else {
+                    ledger.deleteExpenseById(id);
+                }
+            }
+            double changeNanos = (System.nanoTime() - begin) / (double) lookups;
+            if (ledger.recomputeSumCents() != ledger.getSumCents()) {
+                throw new AssertionError("Header sum " + ledger.getSumCents() + " != records " + ledger.recomputeSumCents());
+            }
+            System.out.printf("reopened in %.2f ms; %d of %d random lookups found, %.0f ns each; edit/delete %.0f ns each%n",
+                    openMillis, found, lookups, lookupNanos, changeNanos);
+            System.out.printf("%d rows, sum $%.2f matches the records; heap used %d MB%n",
+                    ledger.size(), ledger.getSumOfExpenses(), usedHeapMegabytes());
+        }
+    }
+
+    private static long usedHeapMegabytes() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+    }
+}
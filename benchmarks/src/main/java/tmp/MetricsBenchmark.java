@@ -0,0 +1,35 @@
+package tmp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of the instrumentation on the hot paths: a timed recording and a counter bump. Run with
+// -prof gc to check the recording path allocates nothing.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark {
+    private final LatencyHistogram histogram = new LatencyHistogram("benchmark");
+    private long value = 1;
+
+    @Benchmark
+    public void record() {
+        // Spread over the buckets so the benchmark doesn't hammer a single counter
+        value = value * 6364136223846793005L + 1442695040888963407L;
+        histogram.record(value >>> 40);
+    }
+
+    @Benchmark
+    public void recordSince() {
+        histogram.recordSince(System.nanoTime());
+    }
+
+    @Benchmark
+    public void counter() {
+        Metrics.ROWS_ADDED.increment();
+    }
+}
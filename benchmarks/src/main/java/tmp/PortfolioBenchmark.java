@@ -0,0 +1,82 @@
+package tmp;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Trading, change reports and the holdings export for different sizes of symbol universe
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PortfolioBenchmark {
+    @Param({"16", "1000", "10000"})
+    public int symbols;
+
+    private ManagePortfolio managePortfolio;
+    private int next = 0;
+    private Path exportFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < symbols; i++) {
+            names.add("SYM" + i);
+        }
+        managePortfolio = new ManagePortfolio(new SymbolRegistry(names));
+        for (int id = 0; id < symbols; id++) {
+            managePortfolio.buyStock(id, 100);
+        }
+        // A tenth of the universe has moved since the last visit
+        managePortfolio.saveCurrentState();
+        for (int id = 0; id < symbols; id += 10) {
+            managePortfolio.buyStock(id, 1);
+        }
+        exportFile = Files.createTempFile("portfolio", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(exportFile);
+    }
+
+    private int nextStock() {
+        int stockId = next++;
+        if (next == symbols) {
+            next = 0;
+        }
+        return stockId;
+    }
+
+    @Benchmark
+    public TradeResult buyStock() {
+        return managePortfolio.buyStock(nextStock(), 1);
+    }
+
+    // Sells what the previous call bought, so the holdings don't drain
+    @Benchmark
+    public TradeResult buyThenSellStock() {
+        int stockId = nextStock();
+        managePortfolio.buyStock(stockId, 1);
+        return managePortfolio.sellStock(stockId, 1);
+    }
+
+    @Benchmark
+    public Map<String, Integer> getChangedStocks() {
+        return managePortfolio.getChangedStocks();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int exportCsv() throws IOException {
+        return new PortfolioCsvExport(managePortfolio).writeTo(exportFile);
+    }
+}
@@ -0,0 +1,63 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+// Benchmark: java -cp benchmarks/target/benchmarks.jar tmp.PositionHistoryStoreHarness [symbols] [years]
+// Records years of days over a synthetic universe where about 1% of symbols trade each day,
+// then times a full-portfolio lookup and a single-symbol history over the whole range.
+public class PositionHistoryStoreHarness {
+    public static void main(String[] args) throws IOException {
+        int symbolCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Path directory = Files.createTempDirectory("history");
+        StringBuilder symbols = new StringBuilder();
+        for (int i = 0; i < symbolCount; i++) {
+            symbols.append("SYM").append(i).append('\n');
+        }
+        Path symbolsFile = directory.resolve("universe.txt");
+        Files.write(symbolsFile, symbols.toString().getBytes(StandardCharsets.UTF_8));
+        SymbolRegistry registry = SymbolRegistry.load(symbolsFile);
+
+        PositionHistoryStore store = PositionHistoryStore.open(directory.resolve("store"), registry);
+        Random random = new Random(42);
+        long[] quantities = new long[symbolCount];
+        int days = years * 365;
+        int start = (int) LocalDate.now().toEpochDay() - days + 1;
+        long begin = System.nanoTime();
+        for (int day = start; day < start + days; day++) {
+            for (int i = 0; i < symbolCount / 100; i++) {
+                int id = random.nextInt(symbolCount);
+                quantities[id] = Math.max(0, quantities[id] + random.nextInt(21) - 10);
+            }
+            store.recordDay(day, quantities);
+        }
+        double recordSeconds = (System.nanoTime() - begin) / 1e9;
+
+        long bytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory.resolve("store"), "chunk-*.bin")) {
+            for (Path file : files) {
+                bytes += Files.size(file);
+            }
+        }
+
+        // Reopen so every query goes to disk
+        store = PositionHistoryStore.open(directory.resolve("store"), registry);
+        begin = System.nanoTime();
+        long[] holdings = store.getHoldingsOn(start + days / 2);
+        double holdingsMillis = (System.nanoTime() - begin) / 1e6;
+        begin = System.nanoTime();
+        long[] series = store.getSymbolHistory("SYM7", start, start + days - 1);
+        double seriesMillis = (System.nanoTime() - begin) / 1e6;
+
+        System.out.printf("%d days x %d symbols recorded in %.2f s; %d bytes on disk (%.2f bytes/symbol-day)%n",
+                days, symbolCount, recordSeconds, bytes, bytes / ((double) days * symbolCount));
+        System.out.printf("portfolio on one day: %.2f ms (%d symbols); one symbol over %d days: %.2f ms (last %d)%n",
+                holdingsMillis, holdings.length, series.length, seriesMillis, series[series.length - 1]);
+    }
+}
@@ -0,0 +1,47 @@
+package tmp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Benchmark: java -cp benchmarks/target/benchmarks.jar tmp.RiskAnalyticsHarness [symbols] [days]
+// Random-walk closes for every symbol, all of them held, analyzed over the whole history.
+public class RiskAnalyticsHarness {
+    public static void main(String[] args) {
+        int symbolCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int dayCount = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        List<String> symbols = new ArrayList<>();
+        for (int i = 0; i < symbolCount; i++) {
+            symbols.add("SYM" + i);
+        }
+        ManagePortfolio managePortfolio = new ManagePortfolio(new SymbolRegistry(symbols));
+        Random random = new Random(42);
+        int size = symbolCount * dayCount;
+        int[] days = new int[size];
+        int[] ids = new int[size];
+        long[] cents = new long[size];
+        for (int id = 0, line = 0; id < symbolCount; id++) {
+            managePortfolio.buyStock(id, 1 + random.nextInt(100));
+            long price = 100_00;
+            for (int day = 0; day < dayCount; day++, line++) {
+                price = Math.max(1, price + Math.round(price * random.nextGaussian() * 0.02));
+                days[line] = day;
+                ids[line] = id;
+                cents[line] = price;
+            }
+        }
+        managePortfolio.getRiskAnalytics().setPriceHistory(PriceHistory.build(symbolCount, days, ids, cents, size, 0));
+
+        long start = System.nanoTime();
+        RiskReport report = managePortfolio.getRiskAnalytics().analyze(dayCount).join();
+        double firstMillis = (System.nanoTime() - start) / 1e6;
+        start = System.nanoTime();
+        managePortfolio.getRiskAnalytics().analyze(dayCount).join();
+        double cachedMillis = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%d symbols x %d returns on %d cores: %.1f ms (%.1f ms computing), cached %.3f ms%n",
+                report.size(), report.getWindow(), Runtime.getRuntime().availableProcessors(),
+                firstMillis, report.getComputeMillis(), cachedMillis);
+        System.out.printf("VaR95 $%.2f, VaR99 $%.2f, daily vol $%.2f, max drawdown %.1f%%%n",
+                report.getValueAtRisk95(), report.getValueAtRisk99(), report.getDailyVolatility(), report.getMaxDrawdown() * 100);
+    }
+}
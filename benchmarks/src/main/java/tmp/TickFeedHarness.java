@@ -0,0 +1,41 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Random;
+
+// Benchmark: java -cp benchmarks/target/benchmarks.jar tmp.TickFeedHarness [ticks.csv]
+// Without a file, replays 5M random-walk ticks over the default symbols.
+public class TickFeedHarness {
+    public static void main(String[] args) throws IOException {
+        ManagePortfolio managePortfolio = new ManagePortfolio();
+        SymbolRegistry registry = managePortfolio.getRegistry();
+        for (int id = 0; id < registry.size(); id++) {
+            managePortfolio.buyStock(id, 10 + id);
+        }
+
+        TickFeed feed;
+        if (args.length > 0) {
+            feed = TickFeed.load(Paths.get(args[0]), registry);
+        } else {
+            feed = new TickFeed(5_000_000);
+            Random random = new Random(42);
+            long[] prices = new long[registry.size()];
+            Arrays.fill(prices, 100_00);
+            for (int i = 0; i < 5_000_000; i++) {
+                int stockId = random.nextInt(prices.length);
+                prices[stockId] = Math.max(1, prices[stockId] + random.nextInt(21) - 10);
+                feed.add(i, stockId, prices[stockId]);
+            }
+        }
+
+        PricingEngine engine = managePortfolio.getPricingEngine();
+        long start = System.nanoTime();
+        feed.replay(engine, 0);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d ticks in %.2f s: %.0f ticks/s, mean tick-to-value %.0f ns, max %d ns, value $%.2f%n",
+                feed.size(), seconds, feed.size() / seconds, engine.getMeanLatencyNanos(),
+                engine.getMaxLatencyNanos(), engine.getMarketValue());
+    }
+}
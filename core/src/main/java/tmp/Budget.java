@@ -0,0 +1,84 @@
+package tmp;
+
+import java.time.LocalDate;
+
+// A spending limit on one company, or on all of them when the company is null, for each calendar
+// month, each year or all time. Budgets are told apart by identity, not by name.
+public class Budget {
+    public static final int MONTH = 0;
+    public static final int YEAR = 1;
+    public static final int ALL_TIME = 2;
+
+    private final String name;
+    private final String company;
+    private final int period;
+    private final long limitCents;
+
+    public Budget(String name, String company, int period, double limit) {
+        if (period < MONTH || period > ALL_TIME) {
+            throw new IllegalArgumentException("Unknown budget period " + period);
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Budget limit must not be negative: " + limit);
+        }
+        this.name = name;
+        this.company = company;
+        this.period = period;
+        this.limitCents = Math.round(limit * 100);
+    }
+
+    public static Budget monthly(String name, String company, double limit) {
+        return new Budget(name, company, MONTH, limit);
+    }
+
+    public static Budget yearly(String name, String company, double limit) {
+        return new Budget(name, company, YEAR, limit);
+    }
+
+    public static Budget allTime(String name, String company, double limit) {
+        return new Budget(name, company, ALL_TIME, limit);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Null when the budget covers every company
+    public String getCompany() {
+        return company;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public long getLimitCents() {
+        return limitCents;
+    }
+
+    public double getLimit() {
+        return limitCents / 100.0;
+    }
+
+    // The period a day falls in: its epoch month, its year, or 0 for all time
+    public int periodOf(int epochDay) {
+        return periodOfMonth(ExpenseRollups.epochMonth(epochDay));
+    }
+
+    int periodOfMonth(int epochMonth) {
+        return period == MONTH ? epochMonth : period == YEAR ? Math.floorDiv(epochMonth, 12) : 0;
+    }
+
+    // "2024-03", "2024" or "all time"
+    public String describePeriod(int key) {
+        if (period == MONTH) {
+            return LocalDate.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1, 1).toString().substring(0, 7);
+        }
+        return period == YEAR ? Integer.toString(key) : "all time";
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,42 @@
+package tmp;
+
+// A budget going over its limit in one period, or coming back within it after an edit or delete
+public class BudgetAlert {
+    private final Budget budget;
+    private final int period;
+    private final long spentCents;
+
+    BudgetAlert(Budget budget, int period, long spentCents) {
+        this.budget = budget;
+        this.period = period;
+        this.spentCents = spentCents;
+    }
+
+    public Budget getBudget() {
+        return budget;
+    }
+
+    // See Budget.periodOf
+    public int getPeriod() {
+        return period;
+    }
+
+    public long getSpentCents() {
+        return spentCents;
+    }
+
+    public double getSpent() {
+        return spentCents / 100.0;
+    }
+
+    // True when the budget went over the limit, false when it came back within it
+    public boolean isExceeded() {
+        return spentCents > budget.getLimitCents();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s: $%.2f of $%.2f%s", budget.getName(), budget.describePeriod(period), getSpent(),
+                budget.getLimit(), isExceeded() ? " (over budget)" : " (within budget again)");
+    }
+}
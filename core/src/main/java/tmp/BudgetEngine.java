@@ -0,0 +1,221 @@
+package tmp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Running totals for every budget, kept in step by the tracker on every add, edit and delete. A
+// row only touches the budgets on its own company and those on every company, found through a
+// table by company id, so a change costs O(budgets it affects) whatever the number of rows or
+// budgets. An edit is the old row taken out and the new one put in.
+//
+// Alerts are not sent as totals move: the first time a change touches a period its total is noted,
+// and fireAlerts() compares each touched total with its noted one. A bulk import thus sends one
+// alert per budget and period it pushed over the limit, and an edit that moves spending around
+// without crossing a limit sends none.
+public class BudgetEngine {
+    private static final Tally[] NONE = new Tally[0];
+
+    private final StringPool companies;
+    private final ArrayList<Tally> tallies = new ArrayList<>();
+    private Tally[][] talliesByCompany = new Tally[0][]; // null until first needed
+    private final ArrayList<BudgetListener> listeners = new ArrayList<>();
+
+    // Periods touched since the last fireAlerts(), as the tally and its slot for the period
+    private final ArrayList<Tally> touched = new ArrayList<>();
+    private final IntList touchedSlots = new IntList();
+    private int stamp = 1;
+
+    // One budget's totals, kept only for the periods that have seen spending: each period gets a
+    // slot in the arrays the first time it is used, found again through a map keyed by period
+    private static class Tally {
+        final Budget budget;
+        final LongIntMap slotsByPeriod = new LongIntMap();
+        int[] periods = new int[4];
+        long[] spent = new long[4];
+        long[] before = new long[4]; // the total when first touched since the last alerts
+        int[] stamps = new int[4];
+        int count = 0;
+
+        Tally(Budget budget) {
+            this.budget = budget;
+        }
+
+        long get(int period) {
+            int slot = slotsByPeriod.get(key(period), -1);
+            return slot < 0 ? 0 : spent[slot];
+        }
+
+        // The period's slot, added on first use
+        int slotOf(int period) {
+            long key = key(period);
+            int slot = slotsByPeriod.get(key, -1);
+            if (slot < 0) {
+                if (count == spent.length) {
+                    periods = Arrays.copyOf(periods, count * 2);
+                    spent = Arrays.copyOf(spent, count * 2);
+                    before = Arrays.copyOf(before, count * 2);
+                    stamps = Arrays.copyOf(stamps, count * 2);
+                }
+                slot = count++;
+                periods[slot] = period;
+                slotsByPeriod.put(key, slot);
+            }
+            return slot;
+        }
+
+        // LongIntMap keys must be positive, and the all-time period is 0
+        private static long key(int period) {
+            return (long) period - Integer.MIN_VALUE + 1;
+        }
+    }
+
+    public BudgetEngine(StringPool companies) {
+        this.companies = companies;
+    }
+
+    // Starts tracking a budget from the totals in the rollups, without sending alerts for them
+    public void addBudget(Budget budget, ExpenseRollups rollups) {
+        for (Tally tally : tallies) {
+            if (tally.budget == budget) {
+                throw new IllegalArgumentException("Budget " + budget + " is already tracked");
+            }
+        }
+        Tally tally = new Tally(budget);
+        int companyId = budget.getCompany() == null ? -1 : companies.idOf(budget.getCompany());
+        if (budget.getCompany() == null || companyId >= 0) {
+            for (int i = 0; i < rollups.getYearsInUse(); i++) {
+                for (int month = rollups.getYearInUse(i) * 12, end = month + 12; month < end; month++) {
+                    long cents = budget.getCompany() == null ? rollups.getMonthCents(month) : rollups.getCompanyMonthCents(companyId, month);
+                    if (cents != 0) {
+                        int slot = tally.slotOf(budget.periodOfMonth(month));
+                        tally.spent[slot] += cents;
+                    }
+                }
+            }
+        }
+        tallies.add(tally);
+        talliesByCompany = new Tally[0][];
+    }
+
+    public boolean removeBudget(Budget budget) {
+        for (int i = 0; i < tallies.size(); i++) {
+            if (tallies.get(i).budget == budget) {
+                tallies.remove(i);
+                talliesByCompany = new Tally[0][];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public List<Budget> getBudgets() {
+        List<Budget> budgets = new ArrayList<>();
+        for (Tally tally : tallies) {
+            budgets.add(tally.budget);
+        }
+        return budgets;
+    }
+
+    // Spent in the budget's period that the day falls in; 0 for a budget that is not tracked
+    public long getSpentCents(Budget budget, int epochDay) {
+        for (Tally tally : tallies) {
+            if (tally.budget == budget) {
+                return tally.get(budget.periodOf(epochDay));
+            }
+        }
+        return 0;
+    }
+
+    public void addListener(BudgetListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(BudgetListener listener) {
+        listeners.remove(listener);
+    }
+
+    public void add(int companyId, int epochDay, long cents) {
+        apply(companyId, epochDay, cents);
+    }
+
+    public void remove(int companyId, int epochDay, long cents) {
+        apply(companyId, epochDay, -cents);
+    }
+
+    // Sends an alert for every period touched since the last call whose total crossed its limit
+    public void fireAlerts() {
+        if (touched.isEmpty()) {
+            return;
+        }
+        List<BudgetAlert> alerts = null;
+        for (int i = 0; i < touched.size(); i++) {
+            Tally tally = touched.get(i);
+            int slot = touchedSlots.get(i);
+            long limit = tally.budget.getLimitCents();
+            if ((tally.before[slot] > limit) != (tally.spent[slot] > limit)) {
+                if (alerts == null) {
+                    alerts = new ArrayList<>();
+                }
+                alerts.add(new BudgetAlert(tally.budget, tally.periods[slot], tally.spent[slot]));
+            }
+        }
+        touched.clear();
+        touchedSlots.clear();
+        stamp++;
+        if (alerts == null) {
+            return;
+        }
+        for (BudgetAlert alert : alerts) {
+            for (BudgetListener listener : listeners) {
+                listener.budgetCrossed(alert);
+            }
+        }
+    }
+
+    private void apply(int companyId, int epochDay, long cents) {
+        if (tallies.isEmpty()) {
+            return;
+        }
+        Tally[] affected = talliesFor(companyId);
+        if (affected.length == 0) {
+            return;
+        }
+        int month = ExpenseRollups.epochMonth(epochDay);
+        for (Tally tally : affected) {
+            int slot = tally.slotOf(tally.budget.periodOfMonth(month));
+            if (tally.stamps[slot] != stamp) {
+                tally.stamps[slot] = stamp;
+                tally.before[slot] = tally.spent[slot];
+                touched.add(tally);
+                touchedSlots.add(slot);
+            }
+            tally.spent[slot] += cents;
+        }
+    }
+
+    // The budgets on every company followed by those on this one
+    private Tally[] talliesFor(int companyId) {
+        if (companyId >= talliesByCompany.length) {
+            talliesByCompany = Arrays.copyOf(talliesByCompany, Math.max(companyId + 1, talliesByCompany.length * 2));
+        }
+        Tally[] affected = talliesByCompany[companyId];
+        if (affected == null) {
+            String company = companies.get(companyId);
+            ArrayList<Tally> matching = new ArrayList<>();
+            for (Tally tally : tallies) {
+                if (tally.budget.getCompany() == null) {
+                    matching.add(tally);
+                }
+            }
+            for (Tally tally : tallies) {
+                if (company.equals(tally.budget.getCompany())) {
+                    matching.add(tally);
+                }
+            }
+            affected = matching.isEmpty() ? NONE : matching.toArray(NONE);
+            talliesByCompany[companyId] = affected;
+        }
+        return affected;
+    }
+}
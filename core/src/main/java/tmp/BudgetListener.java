@@ -0,0 +1,7 @@
+package tmp;
+
+// Budget alerts from ExpenseTracker, delivered once per change or batch and only when a budget
+// crosses its limit in either direction
+public interface BudgetListener {
+    void budgetCrossed(BudgetAlert alert);
+}
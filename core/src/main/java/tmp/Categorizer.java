@@ -0,0 +1,132 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+// Tags expenses with the category of a rule file (see CategoryRules) and picks up changes to the
+// file while imports keep running: the new rules are compiled on the side and swapped in with one
+// write, so a row is categorized by either the old rules or the new ones, and a batch all by the
+// same ones. A file that fails to load leaves the rules in use as they were.
+public class Categorizer {
+    // Checks the rule files for changes, for every categorizer
+    private static final ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "category-rules-watcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path rulesFile;
+    private volatile CategoryRules rules;
+    private FileTime readTime;
+    private long readSize;
+    private ScheduledFuture<?> watching;
+    private final CopyOnWriteArrayList<CategorizerListener> listeners = new CopyOnWriteArrayList<>();
+
+    public Categorizer(Path rulesFile) throws IOException {
+        this.rulesFile = rulesFile;
+        reload();
+    }
+
+    public CategoryRules getRules() {
+        return rules;
+    }
+
+    // Null when no rule matches
+    public String categorize(Expense expense) {
+        return categorize(expense.getCompany(), expense.getDescription(), Math.round(expense.getAmount() * 100));
+    }
+
+    public String categorize(String company, String description, long cents) {
+        Metrics.ROWS_CATEGORIZED.increment();
+        return rules.categoryOf(company, description, cents);
+    }
+
+    // Tags every row of the batch with the same rules, null where no rule matches
+    public void categorize(ExpenseBatch batch) {
+        CategoryRules rules = this.rules;
+        for (int i = 0; i < batch.size(); i++) {
+            batch.setCategory(i, rules.categoryOf(batch.getCompany(i), batch.getDescription(i), batch.getAmountCents(i)));
+        }
+        batch.setCategorized(true);
+        Metrics.ROWS_CATEGORIZED.add(batch.size());
+    }
+
+    // Reads the file if it changed since it was last read; true when new rules were loaded. A file
+    // that fails to load is reported once, not again until it changes.
+    public synchronized boolean reload() throws IOException {
+        FileTime time = Files.getLastModifiedTime(rulesFile);
+        long size = Files.size(rulesFile);
+        if (time.equals(readTime) && size == readSize) {
+            return false;
+        }
+        CategoryRules loaded;
+        try {
+            loaded = CategoryRules.load(rulesFile);
+        } catch (IOException | RuntimeException e) {
+            markRead(time, size);
+            throw e;
+        }
+        // The first rules are used even from a file still being written, since there are none to keep
+        boolean complete = markRead(time, size);
+        if (complete || rules == null) {
+            rules = loaded;
+        }
+        return complete;
+    }
+
+    // Checks the file for changes every intervalMillis until stopWatching(), telling the listeners
+    // about each reload and each file that failed to load
+    public synchronized void watch(long intervalMillis) {
+        stopWatching();
+        watching = watcher.scheduleWithFixedDelay(() -> {
+            boolean reloaded;
+            try {
+                reloaded = reload();
+            } catch (IOException | RuntimeException e) {
+                Metrics.RULE_RELOADS_FAILED.increment();
+                for (CategorizerListener listener : listeners) {
+                    listener.rulesRejected(e);
+                }
+                return;
+            }
+            if (reloaded) {
+                Metrics.RULE_RELOADS.increment();
+                for (CategorizerListener listener : listeners) {
+                    listener.rulesReloaded(rules);
+                }
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void addListener(CategorizerListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(CategorizerListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void stopWatching() {
+        if (watching != null) {
+            watching.cancel(false);
+            watching = null;
+        }
+    }
+
+    // False when the file changed while it was read; it is read again on the next check then
+    private boolean markRead(FileTime time, long size) throws IOException {
+        if (!time.equals(Files.getLastModifiedTime(rulesFile)) || size != Files.size(rulesFile)) {
+            return false;
+        }
+        readTime = time;
+        readSize = size;
+        return true;
+    }
+}
@@ -0,0 +1,10 @@
+package tmp;
+
+// Reloads seen by Categorizer.watch, called on the watcher thread
+public interface CategorizerListener {
+    // New rules are in use; rows tagged before keep their old categories until recategorized
+    void rulesReloaded(CategoryRules rules);
+
+    // The changed file could not be loaded and the rules in use were kept
+    void rulesRejected(Exception e);
+}
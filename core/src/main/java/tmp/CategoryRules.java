@@ -0,0 +1,318 @@
+package tmp;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// A compiled set of categorization rules. Each line of a rule file is
+//
+//     category | merchant | text       the company contains the text
+//     category | keyword  | text       the description contains it
+//     category | text     | text       either does
+//     category | amount   | min..max   the amount is in the range, in dollars; either end may be left out
+//
+// and any text rule may add an amount range as a fourth column. Text matches ignore case. Rules
+// are tried in file order and the first that matches names the category; blank lines and lines
+// starting with # are skipped.
+//
+// All the texts are compiled into one Aho-Corasick automaton, laid out as a table indexed by state
+// and character class, so an expense is categorized in one pass over its company and description
+// whatever the number of rules. Amount-only rules become a table of disjoint ranges, searched once.
+// Instances never change; Categorizer swaps in a new one when the file does.
+public class CategoryRules {
+    public static final int UNCATEGORIZED = -1;
+
+    private static final int MERCHANT = 1;
+    private static final int KEYWORD = 2;
+
+    private final String[] categories;
+    private final int[] ruleCategories;
+    private final int[] ruleFields;
+    private final long[] ruleMinCents;
+    private final long[] ruleMaxCents;
+
+    // Automaton: state * stride + class -> state. Class 0 is every character in no rule, which
+    // always leads back to the root.
+    private final char[] classes = new char[Character.MAX_VALUE + 1];
+    private final int stride;
+    private final int[] next;
+    private final int[] firstMatch; // nearest state at or below this one on the failure chain with rules ending there, or -1
+    private final int[] matchLink; // the same for the states strictly below
+    private final int[][] matches; // rules ending at each state, lowest first
+
+    // Amount-only rules: the first rule covering [rangeStarts[i], rangeStarts[i + 1])
+    private final long[] rangeStarts;
+    private final int[] rangeRules;
+
+    private CategoryRules(List<String> categoryNames, int[] ruleCategories, int[] ruleFields, long[] ruleMinCents,
+                          long[] ruleMaxCents, List<String> texts) {
+        this.categories = categoryNames.toArray(new String[0]);
+        this.ruleCategories = ruleCategories;
+        this.ruleFields = ruleFields;
+        this.ruleMinCents = ruleMinCents;
+        this.ruleMaxCents = ruleMaxCents;
+
+        // Character classes, the upper and lower case of a letter sharing one
+        int classCount = 1;
+        for (String text : texts) {
+            if (text == null) {
+                continue;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (classes[c] == 0) {
+                    char[] cases = {c, Character.toLowerCase(c), Character.toUpperCase(c), Character.toTitleCase(c)};
+                    for (char same : cases) {
+                        classes[same] = (char) classCount;
+                    }
+                    classCount++;
+                }
+            }
+        }
+        stride = classCount;
+
+        // The trie; 0 in the table means no edge until the failure links are filled in below
+        IntList trie = new IntList();
+        for (int i = 0; i < stride; i++) {
+            trie.add(0);
+        }
+        ArrayList<IntList> ending = new ArrayList<>();
+        ending.add(null);
+        for (int rule = 0; rule < texts.size(); rule++) {
+            String text = texts.get(rule);
+            if (text == null) {
+                continue;
+            }
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                int edge = state * stride + classes[text.charAt(i)];
+                if (trie.get(edge) == 0) {
+                    int added = ending.size();
+                    ending.add(null);
+                    for (int j = 0; j < stride; j++) {
+                        trie.add(0);
+                    }
+                    trie.set(edge, added);
+                }
+                state = trie.get(edge);
+            }
+            if (ending.get(state) == null) {
+                ending.set(state, new IntList());
+            }
+            ending.get(state).add(rule);
+        }
+
+        int states = ending.size();
+        next = trie.toArray();
+        matches = new int[states][];
+        for (int state = 0; state < states; state++) {
+            matches[state] = ending.get(state) == null ? null : ending.get(state).toArray();
+        }
+        firstMatch = new int[states];
+        matchLink = new int[states];
+
+        // Breadth first, so a state's failure target is finished before the state itself
+        int[] failure = new int[states];
+        int[] queue = new int[states];
+        int head = 0;
+        int tail = 0;
+        matchLink[0] = -1;
+        firstMatch[0] = -1;
+        for (int c = 1; c < stride; c++) {
+            int child = next[c];
+            if (child != 0) {
+                failure[child] = 0;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int state = queue[head++];
+            matchLink[state] = firstMatch[failure[state]];
+            firstMatch[state] = matches[state] != null ? state : matchLink[state];
+            for (int c = 1; c < stride; c++) {
+                int edge = state * stride + c;
+                int child = next[edge];
+                int fallback = next[failure[state] * stride + c];
+                if (child != 0) {
+                    failure[child] = fallback;
+                    queue[tail++] = child;
+                } else {
+                    next[edge] = fallback;
+                }
+            }
+        }
+
+        // Disjoint amount ranges for the amount-only rules, each with the first rule covering it
+        TreeSet<Long> bounds = new TreeSet<>();
+        for (int rule = 0; rule < texts.size(); rule++) {
+            if (texts.get(rule) == null) {
+                bounds.add(ruleMinCents[rule]);
+                if (ruleMaxCents[rule] < Long.MAX_VALUE) {
+                    bounds.add(ruleMaxCents[rule] + 1);
+                }
+            }
+        }
+        rangeStarts = new long[bounds.size()];
+        rangeRules = new int[bounds.size()];
+        int range = 0;
+        for (long start : bounds) {
+            rangeStarts[range] = start;
+            rangeRules[range] = UNCATEGORIZED;
+            for (int rule = 0; rule < texts.size(); rule++) {
+                if (texts.get(rule) == null && ruleMinCents[rule] <= start && start <= ruleMaxCents[rule]) {
+                    rangeRules[range] = rule;
+                    break;
+                }
+            }
+            range++;
+        }
+    }
+
+    public static CategoryRules load(Path file) throws IOException {
+        try {
+            return compile(Files.readAllLines(file, StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    public static CategoryRules compile(List<String> lines) {
+        LinkedHashMap<String, Integer> categoryIds = new LinkedHashMap<>();
+        IntList categories = new IntList();
+        IntList fields = new IntList();
+        ArrayList<long[]> ranges = new ArrayList<>();
+        ArrayList<String> texts = new ArrayList<>();
+        for (int line = 0; line < lines.size(); line++) {
+            String rule = lines.get(line).trim();
+            if (rule.isEmpty() || rule.startsWith("#")) {
+                continue;
+            }
+            String[] columns = rule.split("\\|", -1);
+            if (columns.length < 3 || columns.length > 4) {
+                throw new IllegalArgumentException("Line " + (line + 1) + ": expected category | kind | pattern [| min..max]");
+            }
+            String category = columns[0].trim();
+            String kind = columns[1].trim().toLowerCase(Locale.ROOT);
+            String pattern = columns[2].trim();
+            if (category.isEmpty() || pattern.isEmpty()) {
+                throw new IllegalArgumentException("Line " + (line + 1) + ": empty category or pattern");
+            }
+            int field;
+            switch (kind) {
+                case "merchant":
+                    field = MERCHANT;
+                    break;
+                case "keyword":
+                    field = KEYWORD;
+                    break;
+                case "text":
+                    field = MERCHANT | KEYWORD;
+                    break;
+                case "amount":
+                    field = 0;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Line " + (line + 1) + ": unknown rule kind " + kind);
+            }
+            if (field == 0 && columns.length == 4) {
+                throw new IllegalArgumentException("Line " + (line + 1) + ": an amount rule takes one range");
+            }
+            categories.add(categoryIds.computeIfAbsent(category, k -> categoryIds.size()));
+            fields.add(field);
+            ranges.add(parseRange(field == 0 ? pattern : columns.length == 4 ? columns[3].trim() : "..", line));
+            texts.add(field == 0 ? null : pattern);
+        }
+        long[] minCents = new long[ranges.size()];
+        long[] maxCents = new long[ranges.size()];
+        for (int rule = 0; rule < ranges.size(); rule++) {
+            minCents[rule] = ranges.get(rule)[0];
+            maxCents[rule] = ranges.get(rule)[1];
+        }
+        return new CategoryRules(new ArrayList<>(categoryIds.keySet()), categories.toArray(), fields.toArray(),
+                minCents, maxCents, texts);
+    }
+
+    public int getRuleCount() {
+        return ruleCategories.length;
+    }
+
+    public int getCategoryCount() {
+        return categories.length;
+    }
+
+    // Categories are numbered in the order the file first names them
+    public String getCategory(int categoryId) {
+        return categories[categoryId];
+    }
+
+    // The category of the first matching rule, or UNCATEGORIZED
+    public int categorize(String company, String description, long cents) {
+        int best = rangeRule(cents);
+        best = scan(company, MERCHANT, cents, best);
+        best = scan(description, KEYWORD, cents, best);
+        return best == UNCATEGORIZED ? UNCATEGORIZED : ruleCategories[best];
+    }
+
+    // The name of categorize()'s category, or null
+    public String categoryOf(String company, String description, long cents) {
+        int category = categorize(company, description, cents);
+        return category == UNCATEGORIZED ? null : categories[category];
+    }
+
+    public int categorize(Expense expense) {
+        return categorize(expense.getCompany(), expense.getDescription(), Math.round(expense.getAmount() * 100));
+    }
+
+    // Lowest rule number matching in the text, if lower than best
+    private int scan(String text, int field, long cents, int best) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next[state * stride + classes[text.charAt(i)]];
+            for (int m = firstMatch[state]; m >= 0; m = matchLink[m]) {
+                for (int rule : matches[m]) {
+                    if (best != UNCATEGORIZED && rule >= best) {
+                        break;
+                    }
+                    if ((ruleFields[rule] & field) != 0 && ruleMinCents[rule] <= cents && cents <= ruleMaxCents[rule]) {
+                        best = rule;
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int rangeRule(long cents) {
+        int i = Arrays.binarySearch(rangeStarts, cents);
+        if (i < 0) {
+            i = -i - 2;
+        }
+        return i < 0 ? UNCATEGORIZED : rangeRules[i];
+    }
+
+    // "min..max" in dollars, both ends inclusive, as cents
+    private static long[] parseRange(String range, int line) {
+        int dots = range.indexOf("..");
+        if (dots < 0) {
+            throw new IllegalArgumentException("Line " + (line + 1) + ": expected an amount range min..max, got " + range);
+        }
+        try {
+            String min = range.substring(0, dots).trim();
+            String max = range.substring(dots + 2).trim();
+            long[] cents = {
+                    min.isEmpty() ? Long.MIN_VALUE : new BigDecimal(min).movePointRight(2).longValueExact(),
+                    max.isEmpty() ? Long.MAX_VALUE : new BigDecimal(max).movePointRight(2).longValueExact()
+            };
+            if (cents[0] > cents[1]) {
+                throw new IllegalArgumentException("Line " + (line + 1) + ": empty amount range " + range);
+            }
+            return cents;
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Line " + (line + 1) + ": bad amount range " + range);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package tmp;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Net position changes since a named point in time. Trades add their change to a per-symbol delta
+// and put the symbol on a dirty queue the first time it moves, so reading or resetting the
+// checkpoint only touches symbols that actually changed. Safe for concurrent trades.
+public class ChangeCheckpoint {
+    private final String name;
+    private final AtomicLongArray deltas;
+    private final AtomicIntegerArray dirty;
+    private final ConcurrentLinkedQueue<Integer> changed = new ConcurrentLinkedQueue<>();
+
+    public ChangeCheckpoint(String name, int symbolCount) {
+        this.name = name;
+        deltas = new AtomicLongArray(symbolCount);
+        dirty = new AtomicIntegerArray(symbolCount);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // The delta is added before the dirty flag is checked, so a concurrent reset either reports
+    // this change or leaves the symbol queued for the next report
+    public void record(int stockId, long change) {
+        deltas.addAndGet(stockId, change);
+        if (dirty.get(stockId) == 0 && dirty.compareAndSet(stockId, 0, 1)) {
+            changed.add(stockId);
+        }
+    }
+
+    public Map<String, Integer> getChanges(SymbolRegistry registry) {
+        Map<String, Integer> changes = new HashMap<>();
+        for (int stockId : changed) {
+            long delta = deltas.get(stockId);
+            if (delta != 0) {
+                changes.put(registry.getSymbol(stockId), (int) delta);
+            }
+        }
+        return changes;
+    }
+
+    // Starts a new period and returns what changed in the one that just ended. A trade can queue a
+    // symbol again while it is being drained, so one reset may meet it twice; the deltas add up.
+    public Map<String, Integer> reset(SymbolRegistry registry) {
+        Map<String, Integer> changes = new HashMap<>();
+        Integer stockId;
+        while ((stockId = changed.poll()) != null) {
+            dirty.set(stockId, 0);
+            long delta = deltas.getAndSet(stockId, 0);
+            if (delta != 0) {
+                changes.merge(registry.getSymbol(stockId), (int) delta, (a, b) -> a + b == 0 ? null : a + b);
+            }
+        }
+        return changes;
+    }
+}
@@ -0,0 +1,64 @@
+package tmp;
+
+import java.util.Arrays;
+
+// An int array kept in fixed-size chunks so that snapshots can share it. share() hands out the
+// current chunks in O(1); the owner keeps writing as before, and the first write to a chunk after
+// a share copies that chunk (and once, the chunk directory), so a snapshot keeps seeing exactly
+// what was there when it was taken. Only the owning thread (or lock holder) may write.
+public class ChunkedIntArray {
+    static final int SHIFT = 12;
+    static final int CHUNK = 1 << SHIFT;
+    static final int MASK = CHUNK - 1;
+
+    private int[][] chunks = new int[0][];
+    private int[] chunkEpochs = new int[0]; // a chunk from an older epoch may be shared
+    private int epoch = 0;
+    private boolean directoryShared = false;
+
+    public int get(int index) {
+        return chunks[index >>> SHIFT][index & MASK];
+    }
+
+    public void set(int index, int value) {
+        writableChunk(index >>> SHIFT)[index & MASK] = value;
+    }
+
+    public int capacity() {
+        return chunks.length << SHIFT;
+    }
+
+    public void ensureCapacity(int capacity) {
+        int needed = (capacity + MASK) >>> SHIFT;
+        if (needed > chunks.length) {
+            int count = Math.max(needed, chunks.length * 2);
+            int old = chunks.length;
+            chunks = Arrays.copyOf(chunks, count);
+            chunkEpochs = Arrays.copyOf(chunkEpochs, count);
+            directoryShared = false;
+            for (int c = old; c < count; c++) {
+                chunks[c] = new int[CHUNK];
+                chunkEpochs[c] = epoch;
+            }
+        }
+    }
+
+    // The chunks as they are now; they will not change under the caller
+    public int[][] share() {
+        epoch++;
+        directoryShared = true;
+        return chunks;
+    }
+
+    private int[] writableChunk(int c) {
+        if (chunkEpochs[c] != epoch) {
+            if (directoryShared) {
+                chunks = chunks.clone();
+                directoryShared = false;
+            }
+            chunks[c] = chunks[c].clone();
+            chunkEpochs[c] = epoch;
+        }
+        return chunks[c];
+    }
+}
@@ -0,0 +1,61 @@
+package tmp;
+
+import java.util.Arrays;
+
+// The long counterpart of ChunkedIntArray: fixed-size chunks that snapshots share, copied on write
+public class ChunkedLongArray {
+    static final int SHIFT = ChunkedIntArray.SHIFT;
+    static final int CHUNK = ChunkedIntArray.CHUNK;
+    static final int MASK = ChunkedIntArray.MASK;
+
+    private long[][] chunks = new long[0][];
+    private int[] chunkEpochs = new int[0]; // a chunk from an older epoch may be shared
+    private int epoch = 0;
+    private boolean directoryShared = false;
+
+    public long get(int index) {
+        return chunks[index >>> SHIFT][index & MASK];
+    }
+
+    public void set(int index, long value) {
+        writableChunk(index >>> SHIFT)[index & MASK] = value;
+    }
+
+    public int capacity() {
+        return chunks.length << SHIFT;
+    }
+
+    public void ensureCapacity(int capacity) {
+        int needed = (capacity + MASK) >>> SHIFT;
+        if (needed > chunks.length) {
+            int count = Math.max(needed, chunks.length * 2);
+            int old = chunks.length;
+            chunks = Arrays.copyOf(chunks, count);
+            chunkEpochs = Arrays.copyOf(chunkEpochs, count);
+            directoryShared = false;
+            for (int c = old; c < count; c++) {
+                chunks[c] = new long[CHUNK];
+                chunkEpochs[c] = epoch;
+            }
+        }
+    }
+
+    // The chunks as they are now; they will not change under the caller
+    public long[][] share() {
+        epoch++;
+        directoryShared = true;
+        return chunks;
+    }
+
+    private long[] writableChunk(int c) {
+        if (chunkEpochs[c] != epoch) {
+            if (directoryShared) {
+                chunks = chunks.clone();
+                directoryShared = false;
+            }
+            chunks[c] = chunks[c].clone();
+            chunkEpochs[c] = epoch;
+        }
+        return chunks[c];
+    }
+}
@@ -0,0 +1,28 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+// The rows of a CSV export, written one at a time so the caller controls progress and cancellation
+public interface CsvRowSource {
+    int getRowCount();
+
+    void writeHeader(CsvWriter out) throws IOException;
+
+    void writeRow(int row, CsvWriter out) throws IOException;
+
+    // Writes the whole export to a file in one go and returns the number of rows
+    default int writeTo(Path file) throws IOException {
+        long start = System.nanoTime();
+        int rowCount = getRowCount();
+        try (CsvWriter out = new CsvWriter(file)) {
+            writeHeader(out);
+            for (int row = 0; row < rowCount; row++) {
+                writeRow(row, out);
+            }
+        }
+        Metrics.EXPORT_CSV.recordSince(start);
+        Metrics.ROWS_EXPORTED.add(rowCount);
+        return rowCount;
+    }
+}
@@ -0,0 +1,145 @@
+package tmp;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Streams CSV rows to a file channel through one reused StringBuilder and buffer pair,
+// so memory use stays constant no matter how many rows are written
+public class CsvWriter implements Closeable {
+    private static final int BUFFER_CHARS = 64 * 1024;
+
+    private final FileChannel channel;
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder pending = new StringBuilder(BUFFER_CHARS * 2);
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_CHARS * 2);
+    private final ByteBuffer bytes = ByteBuffer.allocateDirect(BUFFER_CHARS * 4);
+    private boolean firstField = true;
+
+    public CsvWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    public void writeRow(String... fields) throws IOException {
+        for (String field : fields) {
+            writeField(field);
+        }
+        endRow();
+    }
+
+    public void writeField(String field) throws IOException {
+        separate();
+        if (field == null) {
+            return;
+        }
+        if (needsQuotes(field)) {
+            pending.append('"');
+            for (int i = 0; i < field.length(); i++) {
+                char c = field.charAt(i);
+                if (c == '"') {
+                    pending.append('"');
+                }
+                pending.append(c);
+            }
+            pending.append('"');
+        } else {
+            pending.append(field);
+        }
+    }
+
+    public void writeField(long value) throws IOException {
+        separate();
+        pending.append(value);
+    }
+
+    // Writes an amount with two decimals, without going through DecimalFormat
+    public void writeAmount(double amount) throws IOException {
+        separate();
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            pending.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        pending.append(cents / 100).append('.');
+        if (fraction < 10) {
+            pending.append('0');
+        }
+        pending.append(fraction);
+    }
+
+    public void endRow() throws IOException {
+        pending.append('\n');
+        firstField = true;
+        if (pending.length() >= BUFFER_CHARS) {
+            flush();
+        }
+    }
+
+    public void flush() throws IOException {
+        int offset = 0;
+        while (offset < pending.length()) {
+            int length = Math.min(chars.capacity(), pending.length() - offset);
+            if (offset + length < pending.length() && Character.isHighSurrogate(pending.charAt(offset + length - 1))) {
+                length--; // keep surrogate pairs in one chunk
+            }
+            chars.clear();
+            pending.getChars(offset, offset + length, chars.array(), 0);
+            chars.limit(length);
+            offset += length;
+            encode();
+        }
+        pending.setLength(0);
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void encode() throws IOException {
+        while (encoder.encode(chars, bytes, false) == CoderResult.OVERFLOW) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    private void separate() throws IOException {
+        if (!firstField) {
+            pending.append(',');
+        }
+        firstField = false;
+    }
+
+    private static boolean needsQuotes(String field) {
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package tmp;
+
+import java.util.Arrays;
+
+// Amounts in cents keyed by epoch day, summed over any date range in O(log n). Days are grouped in
+// blocks of 64 and only blocks that were ever added to are stored, each as a Fenwick tree over its
+// days; a second Fenwick tree runs over the block totals in day order. Memory follows the number of
+// blocks in use, so two rows centuries apart cost two blocks rather than every day in between.
+public class DateSumIndex {
+    private static final int BLOCK_SHIFT = 6;
+    private static final int BLOCK_DAYS = 1 << BLOCK_SHIFT;
+
+    private int[] blockKeys = new int[0]; // epochDay >> BLOCK_SHIFT, ascending
+    private long[][] blocks = new long[0][]; // Fenwick tree over each block's days, 1-based
+    private long[] blockTotals = new long[0];
+    private long[] tree = new long[1]; // Fenwick tree over blockTotals, 1-based
+    private int blockCount = 0;
+
+    public void add(int epochDay, long amount) {
+        int key = epochDay >> BLOCK_SHIFT;
+        int b = Arrays.binarySearch(blockKeys, 0, blockCount, key);
+        if (b < 0) {
+            b = insertBlock(-b - 1, key);
+        }
+        long[] block = blocks[b];
+        for (int j = (epochDay & (BLOCK_DAYS - 1)) + 1; j <= BLOCK_DAYS; j += j & -j) {
+            block[j] += amount;
+        }
+        blockTotals[b] += amount;
+        for (int j = b + 1; j <= blockCount; j += j & -j) {
+            tree[j] += amount;
+        }
+    }
+
+    public long sumBetween(int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            return 0;
+        }
+        return prefixSum(toDay) - (fromDay == Integer.MIN_VALUE ? 0 : prefixSum(fromDay - 1));
+    }
+
+    public long sumAll() {
+        return blocksBefore(blockCount);
+    }
+
+    // Sum of every day up to and including this one
+    private long prefixSum(int day) {
+        int b = Arrays.binarySearch(blockKeys, 0, blockCount, day >> BLOCK_SHIFT);
+        if (b < 0) {
+            return blocksBefore(-b - 1);
+        }
+        long sum = blocksBefore(b);
+        long[] block = blocks[b];
+        for (int j = (day & (BLOCK_DAYS - 1)) + 1; j > 0; j -= j & -j) {
+            sum += block[j];
+        }
+        return sum;
+    }
+
+    // Sum of the first count blocks
+    private long blocksBefore(int count) {
+        long sum = 0;
+        for (int j = count; j > 0; j -= j & -j) {
+            sum += tree[j];
+        }
+        return sum;
+    }
+
+    // A new block shifts the ones after it, so the tree over the totals is rebuilt in linear time
+    private int insertBlock(int b, int key) {
+        if (blockCount == blockKeys.length) {
+            int capacity = Math.max(4, blockKeys.length * 2);
+            blockKeys = Arrays.copyOf(blockKeys, capacity);
+            blocks = Arrays.copyOf(blocks, capacity);
+            blockTotals = Arrays.copyOf(blockTotals, capacity);
+            tree = new long[capacity + 1];
+        }
+        System.arraycopy(blockKeys, b, blockKeys, b + 1, blockCount - b);
+        System.arraycopy(blocks, b, blocks, b + 1, blockCount - b);
+        System.arraycopy(blockTotals, b, blockTotals, b + 1, blockCount - b);
+        blockKeys[b] = key;
+        blocks[b] = new long[BLOCK_DAYS + 1];
+        blockTotals[b] = 0;
+        blockCount++;
+        Arrays.fill(tree, 0);
+        for (int i = 1; i <= blockCount; i++) {
+            tree[i] += blockTotals[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= blockCount) {
+                tree[parent] += tree[i];
+            }
+        }
+        return b;
+    }
+}
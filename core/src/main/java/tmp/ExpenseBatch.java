@@ -0,0 +1,113 @@
+package tmp;
+
+import java.util.Arrays;
+
+// Column buffers for appending many expenses to the tracker in one step
+public class ExpenseBatch {
+    private String[] companies;
+    private String[] descriptions;
+    private long[] amountCents;
+    private int[] epochDays;
+    private long[] ids;
+    private String[] categories;
+    private boolean categorized = false;
+    private int size = 0;
+
+    public ExpenseBatch() {
+        this(1024);
+    }
+
+    public ExpenseBatch(int capacity) {
+        capacity = Math.max(capacity, 1);
+        companies = new String[capacity];
+        descriptions = new String[capacity];
+        amountCents = new long[capacity];
+        epochDays = new int[capacity];
+        ids = new long[capacity];
+        categories = new String[capacity];
+    }
+
+    public void add(String company, String description, long cents, int epochDay) {
+        add(0, company, description, cents, epochDay);
+    }
+
+    // A row that keeps the id it had when it was saved; 0 lets the tracker pick one
+    public void add(long id, String company, String description, long cents, int epochDay) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        companies[size] = company;
+        descriptions[size] = description;
+        amountCents[size] = cents;
+        epochDays[size] = epochDay;
+        categories[size] = null;
+        categorized = false;
+        size++;
+    }
+
+    public void addAll(ExpenseBatch other) {
+        categorized = size == 0 ? other.categorized : categorized && other.categorized;
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.companies, 0, companies, size, other.size);
+        System.arraycopy(other.descriptions, 0, descriptions, size, other.size);
+        System.arraycopy(other.amountCents, 0, amountCents, size, other.size);
+        System.arraycopy(other.epochDays, 0, epochDays, size, other.size);
+        System.arraycopy(other.ids, 0, ids, size, other.size);
+        System.arraycopy(other.categories, 0, categories, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String getCompany(int i) {
+        return companies[i];
+    }
+
+    public String getDescription(int i) {
+        return descriptions[i];
+    }
+
+    public long getAmountCents(int i) {
+        return amountCents[i];
+    }
+
+    public int getEpochDay(int i) {
+        return epochDays[i];
+    }
+
+    public long getId(int i) {
+        return ids[i];
+    }
+
+    // Null when the row has no category
+    public String getCategory(int i) {
+        return categories[i];
+    }
+
+    public void setCategory(int i, String category) {
+        categories[i] = category;
+    }
+
+    // True once every row has been through a categorizer, the null ones matching no rule; the
+    // tracker then keeps the batch's categories instead of running its own categorizer
+    public boolean isCategorized() {
+        return categorized;
+    }
+
+    public void setCategorized(boolean categorized) {
+        this.categorized = categorized;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > companies.length) {
+            int newCapacity = Math.max(capacity, companies.length * 2);
+            companies = Arrays.copyOf(companies, newCapacity);
+            descriptions = Arrays.copyOf(descriptions, newCapacity);
+            amountCents = Arrays.copyOf(amountCents, newCapacity);
+            epochDays = Arrays.copyOf(epochDays, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+            categories = Arrays.copyOf(categories, newCapacity);
+        }
+    }
+}
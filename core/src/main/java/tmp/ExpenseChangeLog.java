@@ -0,0 +1,22 @@
+package tmp;
+
+// Write-ahead hook for ExpenseTracker. A change is first described with log calls, which refuse it
+// by throwing (a text the log cannot store, say); publish() then queues it, still before the tracker
+// changes anything, and commit() runs once the change is made and the listeners have been told. All
+// three are called with the tracker's write lock held. A log call or publish() that throws leaves
+// nothing queued. commit() returns a number that the tracker, with its lock released, passes to
+// awaitDurable(), which returns once the change is on disk; writers waiting together that way share
+// the log's flushes instead of queueing up behind each other's.
+public interface ExpenseChangeLog {
+    void logAdd(long id, String company, String description, long cents, int epochDay);
+
+    void logEdit(long id, String company, String description, long cents, int epochDay);
+
+    void logDelete(long id);
+
+    void publish();
+
+    long commit();
+
+    void awaitDurable(long seq);
+}
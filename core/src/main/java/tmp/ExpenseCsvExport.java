@@ -0,0 +1,36 @@
+package tmp;
+
+import java.io.IOException;
+
+// The expense ledger as CSV: one row per expense, in table order. Writes a snapshot taken when the
+// export is created, so the tracker can keep changing while the file is written.
+public class ExpenseCsvExport implements CsvRowSource {
+    private final ExpenseSnapshot snapshot;
+
+    public ExpenseCsvExport(ExpenseTracker expenseTracker) {
+        this(expenseTracker.snapshot());
+    }
+
+    public ExpenseCsvExport(ExpenseSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public int getRowCount() {
+        return snapshot.size();
+    }
+
+    @Override
+    public void writeHeader(CsvWriter out) throws IOException {
+        out.writeRow("Company", "Description", "$ Amount", "Date");
+    }
+
+    @Override
+    public void writeRow(int row, CsvWriter out) throws IOException {
+        out.writeField(snapshot.getCompany(row));
+        out.writeField(snapshot.getDescription(row));
+        out.writeAmount(snapshot.getAmount(row));
+        out.writeField(snapshot.getDate(row));
+        out.endRow();
+    }
+}
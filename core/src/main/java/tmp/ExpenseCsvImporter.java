@@ -0,0 +1,348 @@
+package tmp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Bulk import of the CSV written by ExpenseTrackerApp's export. The file is memory-mapped, cut into
+// chunks on line boundaries and the chunks are parsed in parallel straight into column buffers.
+// Rows are split on newlines, so a quoted field spanning lines is reported as malformed. With a
+// Categorizer the chunks also tag their rows as they parse them, all with the rules in use when
+// the import started.
+public class ExpenseCsvImporter {
+    private static final long MIN_CHUNK_BYTES = 1 << 20;
+    private static final long MAX_CHUNK_BYTES = 256L << 20;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final long MAX_CENTS = 999_999_999_999_999_999L; // 16 whole digits, as read directly
+    private static final String HEADER = "Company,Description,$ Amount,Date";
+
+    private final ForkJoinPool pool;
+    private final Categorizer categorizer;
+
+    public ExpenseCsvImporter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ExpenseCsvImporter(ForkJoinPool pool) {
+        this(pool, null);
+    }
+
+    // categorizer may be null, leaving the rows for the tracker to categorize
+    public ExpenseCsvImporter(ForkJoinPool pool, Categorizer categorizer) {
+        this.pool = pool;
+        this.categorizer = categorizer;
+    }
+
+    public static class ImportResult {
+        private final ExpenseBatch batch;
+        private final List<String> errors;
+        private final int errorCount;
+        private final long nanos;
+
+        ImportResult(ExpenseBatch batch, List<String> errors, int errorCount, long nanos) {
+            this.batch = batch;
+            this.errors = errors;
+            this.errorCount = errorCount;
+            this.nanos = nanos;
+        }
+
+        public ExpenseBatch getBatch() {
+            return batch;
+        }
+
+        // At most MAX_REPORTED_ERRORS messages are kept; getErrorCount() has the full count
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        public int getErrorCount() {
+            return errorCount;
+        }
+
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : batch.size() * 1e9 / nanos;
+        }
+    }
+
+    // Parses the file; the caller appends getBatch() to the tracker on its own thread
+    public ImportResult read(Path file) throws IOException {
+        long start = System.nanoTime();
+        CategoryRules rules = categorizer == null ? null : categorizer.getRules();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel);
+            List<ForkJoinTask<Chunk>> tasks = new ArrayList<>();
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                tasks.add(pool.submit(() -> parseChunk(channel, from, to, rules)));
+            }
+
+            ExpenseBatch batch = new ExpenseBatch();
+            List<String> errors = new ArrayList<>();
+            int errorCount = 0;
+            int lineOffset = 0;
+            for (ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = task.join();
+                batch.addAll(chunk.batch);
+                for (int i = 0; i < chunk.errorLines.size() && errors.size() < MAX_REPORTED_ERRORS; i++) {
+                    errors.add("Line " + (lineOffset + chunk.errorLines.get(i)) + ": " + chunk.errorMessages.get(i));
+                }
+                errorCount += chunk.errorLines.size();
+                lineOffset += chunk.lineCount;
+            }
+            if (rules != null) {
+                batch.setCategorized(true);
+                Metrics.ROWS_CATEGORIZED.add(batch.size());
+            }
+            return new ImportResult(batch, errors, errorCount, System.nanoTime() - start);
+        }
+    }
+
+    private long[] chunkBounds(FileChannel channel) throws IOException {
+        long size = channel.size();
+        int chunks = (int) Math.max(1, Math.min(size / MIN_CHUNK_BYTES, pool.getParallelism() * 4L));
+        chunks = (int) Math.max(chunks, (size + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        long[] bounds = new long[chunks + 1];
+        bounds[chunks] = size;
+        for (int i = 1; i < chunks; i++) {
+            bounds[i] = Math.max(bounds[i - 1], nextLineStart(channel, size * i / chunks));
+        }
+        return bounds;
+    }
+
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(8192);
+        while (position < channel.size()) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return channel.size();
+    }
+
+    private static class Chunk {
+        final ExpenseBatch batch = new ExpenseBatch();
+        final IntList errorLines = new IntList();
+        final List<String> errorMessages = new ArrayList<>();
+        int lineCount = 0;
+
+        void error(int line, String message) {
+            errorLines.add(line);
+            errorMessages.add(message);
+        }
+    }
+
+    // rules may be null, leaving the rows untagged
+    private static Chunk parseChunk(FileChannel channel, long from, long to, CategoryRules rules) throws IOException {
+        Chunk chunk = new Chunk();
+        if (from == to) {
+            return chunk;
+        }
+        MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        LineParser parser = new LineParser(buf, rules);
+        int limit = buf.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buf.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            chunk.lineCount++;
+            int end = lineEnd > lineStart && buf.get(lineEnd - 1) == '\r' ? lineEnd - 1 : lineEnd;
+            boolean header = from == 0 && chunk.lineCount == 1 && parser.matches(lineStart, end, HEADER);
+            if (end > lineStart && !header) {
+                String error = parser.parse(lineStart, end, chunk.batch);
+                if (error != null) {
+                    chunk.error(chunk.lineCount, error);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    // Splits one line into its four fields and appends the row, or returns why it is malformed
+    private static class LineParser {
+        private final ByteBuffer buf;
+        private final CategoryRules rules;
+        private final int[] fieldStarts = new int[4];
+        private final int[] fieldEnds = new int[4];
+        private final boolean[] quoted = new boolean[4];
+        private byte[] scratch = new byte[256];
+
+        LineParser(ByteBuffer buf, CategoryRules rules) {
+            this.buf = buf;
+            this.rules = rules;
+        }
+
+        boolean matches(int start, int end, String text) {
+            if (end - start != text.length()) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (buf.get(start + i) != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String parse(int start, int end, ExpenseBatch batch) {
+            int field = 0;
+            int i = start;
+            while (true) {
+                if (field == 4) {
+                    return "expected 4 fields";
+                }
+                if (i < end && buf.get(i) == '"') {
+                    fieldStarts[field] = ++i;
+                    while (i < end) {
+                        if (buf.get(i) == '"') {
+                            if (i + 1 < end && buf.get(i + 1) == '"') {
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        i++;
+                    }
+                    if (i >= end) {
+                        return "unterminated quoted field";
+                    }
+                    fieldEnds[field] = i++;
+                    quoted[field] = true;
+                    if (i < end && buf.get(i) != ',') {
+                        return "unexpected text after quoted field";
+                    }
+                } else {
+                    fieldStarts[field] = i;
+                    while (i < end && buf.get(i) != ',') {
+                        i++;
+                    }
+                    fieldEnds[field] = i;
+                    quoted[field] = false;
+                }
+                field++;
+                if (i >= end) {
+                    break;
+                }
+                i++;
+            }
+            if (field != 4) {
+                return "expected 4 fields";
+            }
+
+            long cents = parseCents(fieldStarts[2], fieldEnds[2]);
+            if (cents == Long.MIN_VALUE) {
+                return "invalid amount '" + text(2) + "'";
+            }
+            int epochDay = parseEpochDay(fieldStarts[3], fieldEnds[3]);
+            if (epochDay == Integer.MIN_VALUE) {
+                return "invalid date '" + text(3) + "'";
+            }
+            String company = text(0);
+            String description = text(1);
+            batch.add(company, description, cents, epochDay);
+            if (rules != null) {
+                batch.setCategory(batch.size() - 1, rules.categoryOf(company, description, cents));
+            }
+            return null;
+        }
+
+        // Plain "-123.45" style amounts are read directly; anything else goes through Double.parseDouble,
+        // where NaN, infinities and amounts too large to read directly are refused rather than rounded
+        private long parseCents(int start, int end) {
+            int i = start;
+            boolean negative = i < end && buf.get(i) == '-';
+            if (negative || (i < end && buf.get(i) == '+')) {
+                i++;
+            }
+            long whole = 0;
+            int digits = 0;
+            while (i < end && buf.get(i) >= '0' && buf.get(i) <= '9' && digits < 16) {
+                whole = whole * 10 + (buf.get(i++) - '0');
+                digits++;
+            }
+            long fraction = 0;
+            int fractionDigits = 0;
+            if (i < end && buf.get(i) == '.') {
+                i++;
+                while (i < end && buf.get(i) >= '0' && buf.get(i) <= '9' && fractionDigits < 2) {
+                    fraction = fraction * 10 + (buf.get(i++) - '0');
+                    fractionDigits++;
+                }
+            }
+            if (i == end && digits + fractionDigits > 0) {
+                long cents = whole * 100 + (fractionDigits == 1 ? fraction * 10 : fraction);
+                return negative ? -cents : cents;
+            }
+            try {
+                double cents = Double.parseDouble(text(2)) * 100;
+                return Math.abs(cents) <= MAX_CENTS ? Math.round(cents) : Long.MIN_VALUE;
+            } catch (NumberFormatException e) {
+                return Long.MIN_VALUE;
+            }
+        }
+
+        private int parseEpochDay(int start, int end) {
+            if (end - start != 10 || buf.get(start + 4) != '-' || buf.get(start + 7) != '-') {
+                return Integer.MIN_VALUE;
+            }
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if (year < 0 || month < 0 || day < 0) {
+                return Integer.MIN_VALUE;
+            }
+            try {
+                return (int) LocalDate.of(year, month, day).toEpochDay();
+            } catch (DateTimeException e) {
+                return Integer.MIN_VALUE;
+            }
+        }
+
+        private int digits(int start, int count) {
+            int value = 0;
+            for (int i = start; i < start + count; i++) {
+                byte b = buf.get(i);
+                if (b < '0' || b > '9') {
+                    return -1;
+                }
+                value = value * 10 + (b - '0');
+            }
+            return value;
+        }
+
+        private String text(int field) {
+            int start = fieldStarts[field];
+            int end = fieldEnds[field];
+            if (scratch.length < end - start) {
+                scratch = new byte[Math.max(end - start, scratch.length * 2)];
+            }
+            int length = 0;
+            for (int i = start; i < end; i++) {
+                byte b = buf.get(i);
+                scratch[length++] = b;
+                if (quoted[field] && b == '"') {
+                    i++; // skip the second quote of an escaped pair
+                }
+            }
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package tmp;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// Pre-aggregated spend: totals and counts per company x month, per month and per company, kept in
+// step by the tracker on every add, edit and delete so views read them in constant time. Months
+// are "epoch months" (year * 12 + month - 1). Only the years that have seen a row are stored: each
+// company's year, and each year's all-company total, gets a block of 12 months the first time it
+// is used, found again through a map, so rows centuries apart cost two blocks rather than every
+// month in between. A year is read as the sum of its 12 months.
+public class ExpenseRollups {
+    private static final int ALL_COMPANIES = -1;
+
+    private final LongIntMap blocksByKey = new LongIntMap();
+    private int[] blockCompanies = new int[4];
+    private int[] blockYears = new int[4];
+    private long[] monthCents = new long[4 * 12]; // block * 12 + month of the year
+    private int[] monthCounts = new int[4 * 12];
+    private int blockCount = 0;
+    private int[] years = new int[0]; // ascending, every year that has a block
+    private int yearCount = 0;
+
+    private long[] companyCents = new long[0];
+    private int[] companyCounts = new int[0];
+    private long totalCents = 0;
+    private int count = 0;
+
+    public static int epochMonth(int epochDay) {
+        LocalDate date = LocalDate.ofEpochDay(epochDay);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    public void add(int companyId, int epochDay, long cents) {
+        apply(companyId, epochMonth(epochDay), cents, 1);
+    }
+
+    public void remove(int companyId, int epochDay, long cents) {
+        apply(companyId, epochMonth(epochDay), -cents, -1);
+    }
+
+    private void apply(int companyId, int month, long cents, int rows) {
+        int year = Math.floorDiv(month, 12);
+        int column = Math.floorMod(month, 12);
+        ensureCompany(companyId);
+        int cell = blockOf(companyId, year) * 12 + column;
+        monthCents[cell] += cents;
+        monthCounts[cell] += rows;
+        cell = blockOf(ALL_COMPANIES, year) * 12 + column;
+        monthCents[cell] += cents;
+        monthCounts[cell] += rows;
+        companyCents[companyId] += cents;
+        companyCounts[companyId] += rows;
+        totalCents += cents;
+        count += rows;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getMonthCents(int epochMonth) {
+        int cell = cellOf(ALL_COMPANIES, epochMonth);
+        return cell < 0 ? 0 : monthCents[cell];
+    }
+
+    public int getMonthCount(int epochMonth) {
+        int cell = cellOf(ALL_COMPANIES, epochMonth);
+        return cell < 0 ? 0 : monthCounts[cell];
+    }
+
+    public long getYearCents(int year) {
+        int block = blocksByKey.get(key(ALL_COMPANIES, year), -1);
+        long cents = 0;
+        for (int column = 0; block >= 0 && column < 12; column++) {
+            cents += monthCents[block * 12 + column];
+        }
+        return cents;
+    }
+
+    public int getYearCount(int year) {
+        int block = blocksByKey.get(key(ALL_COMPANIES, year), -1);
+        int rows = 0;
+        for (int column = 0; block >= 0 && column < 12; column++) {
+            rows += monthCounts[block * 12 + column];
+        }
+        return rows;
+    }
+
+    public long getCompanyCents(int companyId) {
+        return companyId >= 0 && companyId < companyCents.length ? companyCents[companyId] : 0;
+    }
+
+    public int getCompanyCount(int companyId) {
+        return companyId >= 0 && companyId < companyCounts.length ? companyCounts[companyId] : 0;
+    }
+
+    public long getCompanyMonthCents(int companyId, int epochMonth) {
+        int cell = companyId < 0 ? -1 : cellOf(companyId, epochMonth);
+        return cell < 0 ? 0 : monthCents[cell];
+    }
+
+    public int getCompanyMonthCount(int companyId, int epochMonth) {
+        int cell = companyId < 0 ? -1 : cellOf(companyId, epochMonth);
+        return cell < 0 ? 0 : monthCounts[cell];
+    }
+
+    // The range of months that may hold expenses; the months between the years in use are empty
+    public int getFirstMonth() {
+        return yearCount == 0 ? 0 : years[0] * 12;
+    }
+
+    public int getLastMonth() {
+        return yearCount == 0 ? -1 : years[yearCount - 1] * 12 + 11;
+    }
+
+    // The years that hold expenses, ascending, for views that walk the cube without the gaps
+    public int getYearsInUse() {
+        return yearCount;
+    }
+
+    public int getYearInUse(int index) {
+        return years[index];
+    }
+
+    // Rebuilds the rollups from every row of a snapshot, splitting the rows across the fork-join pool
+    public static ExpenseRollups build(ExpenseSnapshot snapshot) {
+        int rows = snapshot.size();
+        int parts = Math.max(1, Math.min(rows / 16_384, Runtime.getRuntime().availableProcessors() * 4));
+        return IntStream.range(0, parts).parallel().mapToObj(part -> {
+            ExpenseRollups rollups = new ExpenseRollups();
+            int end = (int) ((long) rows * (part + 1) / parts);
+            for (int position = (int) ((long) rows * part / parts); position < end; position++) {
+                rollups.add(snapshot.getCompanyId(position), snapshot.getEpochDay(position), snapshot.getAmountCents(position));
+            }
+            return rollups;
+        }).reduce(ExpenseRollups::merge).orElseGet(ExpenseRollups::new);
+    }
+
+    private ExpenseRollups merge(ExpenseRollups other) {
+        for (int block = 0; block < other.blockCount; block++) {
+            if (other.blockCompanies[block] == ALL_COMPANIES) {
+                continue;
+            }
+            for (int column = 0; column < 12; column++) {
+                int rows = other.monthCounts[block * 12 + column];
+                long cents = other.monthCents[block * 12 + column];
+                if (rows != 0 || cents != 0) {
+                    apply(other.blockCompanies[block], other.blockYears[block] * 12 + column, cents, rows);
+                }
+            }
+        }
+        return this;
+    }
+
+    // True when both hold the same figures in every cell
+    public boolean sameAs(ExpenseRollups other) {
+        if (totalCents != other.totalCents || count != other.count) {
+            return false;
+        }
+        int companies = Math.max(companyCents.length, other.companyCents.length);
+        for (int companyId = 0; companyId < companies; companyId++) {
+            if (getCompanyCents(companyId) != other.getCompanyCents(companyId)
+                    || getCompanyCount(companyId) != other.getCompanyCount(companyId)) {
+                return false;
+            }
+        }
+        return cellsFoundIn(other) && other.cellsFoundIn(this);
+    }
+
+    // True when every cell of this one's blocks has the same figures in other, which may have blocks
+    // of zeros that this one lacks
+    private boolean cellsFoundIn(ExpenseRollups other) {
+        for (int block = 0; block < blockCount; block++) {
+            for (int column = 0; column < 12; column++) {
+                int cell = other.cellOf(blockCompanies[block], blockYears[block] * 12 + column);
+                long cents = cell < 0 ? 0 : other.monthCents[cell];
+                int rows = cell < 0 ? 0 : other.monthCounts[cell];
+                if (monthCents[block * 12 + column] != cents || monthCounts[block * 12 + column] != rows) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // The cell of a company's month, ALL_COMPANIES for the month's total, or -1 when it has no block
+    private int cellOf(int companyId, int epochMonth) {
+        int block = blocksByKey.get(key(companyId, Math.floorDiv(epochMonth, 12)), -1);
+        return block < 0 ? -1 : block * 12 + Math.floorMod(epochMonth, 12);
+    }
+
+    // The block of a company's year, added on first use
+    private int blockOf(int companyId, int year) {
+        long key = key(companyId, year);
+        int block = blocksByKey.get(key, -1);
+        if (block < 0) {
+            if (blockCount == blockYears.length) {
+                blockCompanies = Arrays.copyOf(blockCompanies, blockCount * 2);
+                blockYears = Arrays.copyOf(blockYears, blockCount * 2);
+                monthCents = Arrays.copyOf(monthCents, blockCount * 2 * 12);
+                monthCounts = Arrays.copyOf(monthCounts, blockCount * 2 * 12);
+            }
+            block = blockCount++;
+            blockCompanies[block] = companyId;
+            blockYears[block] = year;
+            blocksByKey.put(key, block);
+            if (companyId == ALL_COMPANIES) {
+                addYear(year);
+            }
+        }
+        return block;
+    }
+
+    private void addYear(int year) {
+        int index = -Arrays.binarySearch(years, 0, yearCount, year) - 1;
+        if (yearCount == years.length) {
+            years = Arrays.copyOf(years, Math.max(4, yearCount * 2));
+        }
+        System.arraycopy(years, index, years, index + 1, yearCount - index);
+        years[index] = year;
+        yearCount++;
+    }
+
+    // LongIntMap keys must be positive: the company above the year, both moved clear of zero
+    private static long key(int companyId, int year) {
+        return ((long) (companyId + 2) << 32) + ((long) year - Integer.MIN_VALUE);
+    }
+
+    private void ensureCompany(int companyId) {
+        if (companyId >= companyCents.length) {
+            int size = Math.max(companyId + 1, companyCents.length * 2);
+            companyCents = Arrays.copyOf(companyCents, size);
+            companyCounts = Arrays.copyOf(companyCounts, size);
+        }
+    }
+}
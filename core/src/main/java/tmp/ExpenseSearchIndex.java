@@ -0,0 +1,244 @@
+package tmp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+// Inverted index over the words of each row's company and description. Every distinct lower-cased
+// token gets a posting list of the slots that contain it, and the tokens themselves are indexed by
+// every substring of one, two and three characters. A query term is resolved against the token
+// dictionary first (a term of up to three characters is looked up directly; a longer one is narrowed
+// down by its rarest trigram and each candidate token checked), so rows are only touched to OR
+// together the postings of tokens that really match. A row matches when every query term is a
+// substring of one of its words. Companies and descriptions arrive with their string-pool ids, so
+// each distinct string is only tokenized once.
+//
+// Typing narrows a search: a query that extends the previous one, with no change to the rows in
+// between, matches a subset of its rows, so when those are few only they are checked again.
+public class ExpenseSearchIndex {
+    private static final int MAX_GRAM = 3;
+
+    private final ExpenseStore store;
+    private final StringPool tokens = new StringPool();
+    private final ArrayList<SlotList> postings = new ArrayList<>();
+    private final HashMap<Long, IntList> tokensByGram = new HashMap<>();
+    private final ArrayList<int[]> companyTokens = new ArrayList<>();
+    private final ArrayList<int[]> descriptionTokens = new ArrayList<>();
+    private int[] slotCompany = new int[16];
+    private int[] slotDescription = new int[16];
+    private int changes = 0;
+    // Written by any thread that searches, under the tracker's read lock, so it is replaced whole
+    private volatile LastSearch lastSearch;
+
+    private static class LastSearch {
+        final String query;
+        final int changes;
+        final BitSet slots; // never modified
+
+        LastSearch(String query, int changes, BitSet slots) {
+            this.query = query;
+            this.changes = changes;
+            this.slots = slots;
+        }
+    }
+
+    public ExpenseSearchIndex(ExpenseStore store) {
+        this.store = store;
+    }
+
+    public void add(int slot, int companyId, String company, int descriptionId, String description) {
+        int[] companyIds = tokenIds(companyTokens, companyId, company);
+        int[] descriptionIds = tokenIds(descriptionTokens, descriptionId, description);
+        if (slot >= slotCompany.length) {
+            slotCompany = Arrays.copyOf(slotCompany, Math.max(slot + 1, slotCompany.length * 2));
+            slotDescription = Arrays.copyOf(slotDescription, slotCompany.length);
+        }
+        slotCompany[slot] = companyId;
+        slotDescription[slot] = descriptionId;
+        changes++;
+        for (int token : companyIds) {
+            postings.get(token).add(slot);
+        }
+        for (int token : descriptionIds) {
+            if (!contains(companyIds, companyIds.length, token)) {
+                postings.get(token).add(slot);
+            }
+        }
+    }
+
+    public void remove(int slot, int companyId, String company, int descriptionId, String description) {
+        changes++;
+        int[] companyIds = tokenIds(companyTokens, companyId, company);
+        int[] descriptionIds = tokenIds(descriptionTokens, descriptionId, description);
+        for (int token : companyIds) {
+            postings.get(token).retire(slot);
+        }
+        for (int token : descriptionIds) {
+            if (!contains(companyIds, companyIds.length, token)) {
+                postings.get(token).retire(slot);
+            }
+        }
+    }
+
+    // Slots of the rows matching every term of the query; null for a query with no terms. The
+    // cheapest term is expanded from its postings, or the previous result is reused when the query
+    // extends it; the other terms only filter the rows that are left when that is cheaper than
+    // expanding them too.
+    public BitSet find(String query) {
+        String[] terms = split(query);
+        if (terms.length == 0) {
+            return null;
+        }
+        BitSet[] matching = new BitSet[terms.length];
+        long[] costs = new long[terms.length];
+        Integer[] order = new Integer[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            matching[t] = new BitSet();
+            IntList candidates = candidateTokens(terms[t]);
+            boolean exact = terms[t].length() <= MAX_GRAM;
+            for (int i = 0; i < candidates.size(); i++) {
+                int token = candidates.get(i);
+                if (exact || tokens.get(token).contains(terms[t])) {
+                    matching[t].set(token);
+                    costs[t] += postings.get(token).size();
+                }
+            }
+            order[t] = t;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(costs[a], costs[b]));
+
+        // Worth it when the previous rows are fewer than the postings of the cheapest term
+        LastSearch last = lastSearch;
+        boolean narrowing = last != null && last.changes == changes && query.startsWith(last.query)
+                && last.slots.cardinality() < costs[order[0]];
+        BitSet result = narrowing ? (BitSet) last.slots.clone() : expand(matching[order[0]]);
+        for (int k = narrowing ? 0 : 1; k < order.length && !result.isEmpty(); k++) {
+            BitSet tokensOfTerm = matching[order[k]];
+            // Checking a remaining row costs a few times more than setting one bit from a posting
+            if (costs[order[k]] < 4L * result.cardinality()) {
+                result.and(expand(tokensOfTerm));
+                continue;
+            }
+            for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+                if (!anySet(tokensOfTerm, companyTokens.get(slotCompany[slot]))
+                        && !anySet(tokensOfTerm, descriptionTokens.get(slotDescription[slot]))) {
+                    result.clear(slot);
+                }
+            }
+        }
+        lastSearch = new LastSearch(query, changes, (BitSet) result.clone());
+        return result;
+    }
+
+    // The union of the postings of the given tokens
+    private BitSet expand(BitSet tokenSet) {
+        BitSet slots = new BitSet();
+        for (int token = tokenSet.nextSetBit(0); token >= 0; token = tokenSet.nextSetBit(token + 1)) {
+            postings.get(token).forEach(slots::set);
+        }
+        return slots;
+    }
+
+    private static boolean anySet(BitSet set, int[] values) {
+        for (int value : values) {
+            if (set.get(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Tokens that may contain the term: exactly those that do for a term of up to MAX_GRAM chars,
+    // otherwise the shortest list of one of its trigrams
+    private IntList candidateTokens(String term) {
+        if (term.length() <= MAX_GRAM) {
+            IntList list = tokensByGram.get(gram(term, 0, term.length()));
+            return list == null ? new IntList(1) : list;
+        }
+        IntList shortest = null;
+        for (int i = 0; i + MAX_GRAM <= term.length(); i++) {
+            IntList list = tokensByGram.get(gram(term, i, MAX_GRAM));
+            if (list == null) {
+                return new IntList(1);
+            }
+            if (shortest == null || list.size() < shortest.size()) {
+                shortest = list;
+            }
+        }
+        return shortest;
+    }
+
+    // Distinct token ids of a pooled string, cached by its pool id
+    private int[] tokenIds(ArrayList<int[]> cache, int stringId, String text) {
+        while (cache.size() <= stringId) {
+            cache.add(null);
+        }
+        int[] ids = cache.get(stringId);
+        if (ids == null) {
+            String[] words = split(text);
+            ids = new int[words.length];
+            int count = 0;
+            for (String word : words) {
+                int token = intern(word);
+                if (!contains(ids, count, token)) {
+                    ids[count++] = token;
+                }
+            }
+            ids = Arrays.copyOf(ids, count);
+            cache.set(stringId, ids);
+        }
+        return ids;
+    }
+
+    private int intern(String word) {
+        int token = tokens.idOf(word);
+        if (token < 0) {
+            token = tokens.intern(word);
+            postings.add(new SlotList(store));
+            for (int length = 1; length <= MAX_GRAM; length++) {
+                for (int i = 0; i + length <= word.length(); i++) {
+                    IntList list = tokensByGram.computeIfAbsent(gram(word, i, length), k -> new IntList(2));
+                    if (list.isEmpty() || list.get(list.size() - 1) != token) {
+                        list.add(token);
+                    }
+                }
+            }
+        }
+        return token;
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Up to three chars packed 16 bits apart, with the length above them so "a" and "\0a" differ
+    private static long gram(String word, int start, int length) {
+        long gram = length;
+        for (int i = start; i < start + length; i++) {
+            gram = (gram << 16) | word.charAt(i);
+        }
+        return gram;
+    }
+
+    // Lower-cased runs of letters and digits
+    static String[] split(String text) {
+        ArrayList<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,127 @@
+package tmp;
+
+import java.time.LocalDate;
+
+// The ledger as it was at one moment, from ExpenseTracker.snapshot(). It shares the tracker's
+// chunks instead of copying them, so taking one is O(1), and it never changes: any thread can read
+// it for as long as it likes, without locks, while the tracker carries on. Indexes are table
+// positions at the time of the snapshot.
+public class ExpenseSnapshot {
+    private static final int SHIFT = ChunkedIntArray.SHIFT;
+    private static final int MASK = ChunkedIntArray.MASK;
+
+    private final long version;
+    private final int size;
+    private final int orderLength;
+    private final boolean dense;
+    private final int[][] order;
+    private final long[][] amountCents;
+    private final int[][] epochDays;
+    private final int[][] companyIds;
+    private final int[][] descriptionIds;
+    private final long[][] ids;
+    private final String[][] companies;
+    private final String[][] descriptions;
+    private final long sumCents;
+    private volatile int[] slots; // position -> slot, built on first use when the order had tombstones
+
+    ExpenseSnapshot(long version, int size, int orderLength, boolean dense, int[][] order, long[][] amountCents,
+                    int[][] epochDays, int[][] companyIds, int[][] descriptionIds, long[][] ids,
+                    String[][] companies, String[][] descriptions, long sumCents) {
+        this.version = version;
+        this.size = size;
+        this.orderLength = orderLength;
+        this.dense = dense;
+        this.order = order;
+        this.amountCents = amountCents;
+        this.epochDays = epochDays;
+        this.companyIds = companyIds;
+        this.descriptionIds = descriptionIds;
+        this.ids = ids;
+        this.companies = companies;
+        this.descriptions = descriptions;
+        this.sumCents = sumCents;
+    }
+
+    // The tracker's change count when the snapshot was taken; equal versions mean equal contents
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long getSumCents() {
+        return sumCents;
+    }
+
+    public double getSumOfExpenses() {
+        return sumCents / 100.0;
+    }
+
+    public long getExpenseId(int index) {
+        int slot = slot(index);
+        return ids[slot >>> SHIFT][slot & MASK];
+    }
+
+    public int getCompanyId(int index) {
+        int slot = slot(index);
+        return companyIds[slot >>> SHIFT][slot & MASK];
+    }
+
+    public String getCompany(int index) {
+        int id = getCompanyId(index);
+        return companies[id >>> SHIFT][id & MASK];
+    }
+
+    public String getDescription(int index) {
+        int slot = slot(index);
+        int id = descriptionIds[slot >>> SHIFT][slot & MASK];
+        return descriptions[id >>> SHIFT][id & MASK];
+    }
+
+    public long getAmountCents(int index) {
+        int slot = slot(index);
+        return amountCents[slot >>> SHIFT][slot & MASK];
+    }
+
+    public double getAmount(int index) {
+        return getAmountCents(index) / 100.0;
+    }
+
+    public int getEpochDay(int index) {
+        int slot = slot(index);
+        return epochDays[slot >>> SHIFT][slot & MASK];
+    }
+
+    public String getDate(int index) {
+        return LocalDate.ofEpochDay(getEpochDay(index)).toString();
+    }
+
+    public Expense getExpense(int index) {
+        return new Expense(getCompany(index), getDescription(index), getAmount(index), getDate(index));
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        if (dense) {
+            return order[index >>> SHIFT][index & MASK];
+        }
+        int[] slots = this.slots;
+        if (slots == null) {
+            // Racing readers may both build it; they get the same array contents
+            slots = new int[size];
+            for (int i = 0, position = 0; i < orderLength; i++) {
+                int slot = order[i >>> SHIFT][i & MASK];
+                if (slot >= 0) {
+                    slots[position++] = slot;
+                }
+            }
+            this.slots = slots;
+        }
+        return slots[index];
+    }
+}
@@ -0,0 +1,348 @@
+package tmp;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+
+// Structure-of-arrays storage for expenses. Each row lives in a fixed slot of the primitive
+// columns and carries a long id that never changes and is never reused; the id -> slot map makes
+// finding a row by id O(1), and the indexes refer to slots, which never move.
+//
+// The table order is an array of slots in which a deleted row leaves a tombstone (-1) instead of
+// shifting everything after it. A row's table position is the number of live entries before it,
+// counted by a Fenwick tree over the live flags, so deleting or locating any row is O(log n). With
+// no tombstones the order index is the position, but the tree is kept up all the same, so the
+// first delete after a compaction costs no more than any other. compact() squeezes the tombstones
+// out without changing any row's position.
+//
+// A row's category, if it has one, is kept like its company: an id into a pool of names, or -1.
+//
+// The columns, the order and the string pools are chunked and copied on write, so snapshot()
+// freezes the whole table in O(1) and later changes only copy the chunks they touch.
+public class ExpenseStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final StringPool companies = new StringPool();
+    private final StringPool descriptions = new StringPool();
+    private final StringPool categories = new StringPool();
+
+    private final ChunkedLongArray amountCents = new ChunkedLongArray();
+    private final ChunkedIntArray epochDays = new ChunkedIntArray();
+    private final ChunkedIntArray companyIds = new ChunkedIntArray();
+    private final ChunkedIntArray descriptionIds = new ChunkedIntArray();
+    private final ChunkedIntArray categoryIds = new ChunkedIntArray();
+    private final ChunkedLongArray ids = new ChunkedLongArray();
+    private int[] versions = new int[INITIAL_CAPACITY]; // bumped on every write and delete, see SlotList
+    private int[] orderIndexes = new int[INITIAL_CAPACITY];
+    private int slotCount = 0;
+    private IntList freeSlots = new IntList();
+    private final LongIntMap slotsById = new LongIntMap();
+    private long nextId = 1;
+
+    private final ChunkedIntArray order = new ChunkedIntArray();
+    private int[] liveTree = new int[1]; // one node per order index, plus the unused node 0
+    private final BitSet tombstoneIndexes = new BitSet();
+    private int orderLength = 0;
+    private int tombstones = 0;
+    private int size = 0;
+
+    public ExpenseStore() {
+        growSlots(INITIAL_CAPACITY);
+    }
+
+    // Appends a row with a new id at the end of the table and returns its slot; category may be null
+    public int add(String company, String description, long cents, int epochDay, String category) {
+        return add(nextId, company, description, cents, epochDay, category);
+    }
+
+    // Appends a row under a given id, for restoring a saved ledger; later ids continue after it
+    public int add(long id, String company, String description, long cents, int epochDay, String category) {
+        if (id <= 0 || slotsById.get(id, -1) >= 0) {
+            throw new IllegalArgumentException("Expense id " + id + " is invalid or already in use");
+        }
+        int slot = freeSlots.isEmpty() ? newSlot() : freeSlots.removeAt(freeSlots.size() - 1);
+        write(slot, company, description, cents, epochDay, category);
+        ids.set(slot, id);
+        slotsById.put(id, slot);
+        nextId = Math.max(nextId, id + 1);
+        if (orderLength == order.capacity()) {
+            growOrder(orderLength + 1);
+        }
+        orderIndexes[slot] = orderLength;
+        order.set(orderLength, slot);
+        updateTree(orderLength, 1);
+        orderLength++;
+        size++;
+        return slot;
+    }
+
+    // Overwrites a row in place; it keeps its id and position
+    public void update(int slot, String company, String description, long cents, int epochDay, String category) {
+        write(slot, company, description, cents, epochDay, category);
+    }
+
+    // Retags a row; unlike update() this is not a change to the row's data, so its version stays
+    public void setCategory(int slot, String category) {
+        categoryIds.set(slot, category == null ? -1 : categories.intern(category));
+    }
+
+    // Deletes a row, leaving a tombstone in the table order
+    public void remove(int slot) {
+        int index = orderIndexes[slot];
+        order.set(index, -1);
+        size--;
+        slotsById.remove(ids.get(slot));
+        versions[slot]++;
+        freeSlots.add(slot);
+        updateTree(index, -1);
+        if (index == orderLength - 1) {
+            // The last row leaves no tombstone, and takes any tombstones just before it along
+            orderLength--;
+            while (orderLength > 0 && order.get(orderLength - 1) < 0) {
+                orderLength--;
+                tombstones--;
+            }
+            tombstoneIndexes.clear(orderLength, index + 1);
+            return;
+        }
+        tombstoneIndexes.set(index);
+        tombstones++;
+        // A safety net for when nobody compacts: lookups by position must not degrade without bound
+        if (tombstones * 2 > orderLength) {
+            compact();
+        }
+    }
+
+    // Worth calling compact(), which is O(n), once tombstones are an eighth of the order
+    public boolean needsCompaction() {
+        return tombstones * 8 > orderLength;
+    }
+
+    public void compact() {
+        if (tombstones == 0) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < orderLength; i++) {
+            int slot = order.get(i);
+            if (slot >= 0) {
+                orderIndexes[slot] = kept;
+                order.set(kept++, slot);
+            }
+        }
+        orderLength = kept;
+        tombstones = 0;
+        tombstoneIndexes.clear();
+        // Every index below kept now holds a row, so node i counts the part of (i - lowbit(i), i] below it
+        for (int i = 1; i < liveTree.length; i++) {
+            liveTree[i] = Math.max(0, Math.min(i, kept) - (i - (i & -i)));
+        }
+    }
+
+    // Pre-sizes the columns before a bulk append
+    public void ensureCapacity(int rows) {
+        if (rows > versions.length) {
+            growSlots(rows);
+        }
+        if (orderLength - size + rows > order.capacity()) {
+            growOrder(orderLength - size + rows);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int slotAt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Index " + position + " out of bounds for length " + size);
+        }
+        return order.get(tombstones == 0 ? position : select(position));
+    }
+
+    // Inverse of slotAt, for a slot that holds a row
+    public int positionOf(int slot) {
+        int index = orderIndexes[slot];
+        return tombstones == 0 ? index : prefixCount(index);
+    }
+
+    // positionOf() for a set of slots that hold rows, without its O(log n) per slot: the slots are
+    // put in table order by their order indexes, then each position is its index less the
+    // tombstones passed so far. O(slots + tombstones + n / 64).
+    public BitSet positionsOf(BitSet slots) {
+        BitSet indexes = new BitSet(orderLength);
+        for (int slot = slots.nextSetBit(0); slot >= 0; slot = slots.nextSetBit(slot + 1)) {
+            indexes.set(orderIndexes[slot]);
+        }
+        if (tombstones == 0) {
+            return indexes;
+        }
+        BitSet positions = new BitSet(size);
+        int passed = 0;
+        int tombstone = tombstoneIndexes.nextSetBit(0);
+        for (int index = indexes.nextSetBit(0); index >= 0; index = indexes.nextSetBit(index + 1)) {
+            while (tombstone >= 0 && tombstone < index) {
+                passed++;
+                tombstone = tombstoneIndexes.nextSetBit(tombstone + 1);
+            }
+            positions.set(index - passed);
+        }
+        return positions;
+    }
+
+    // -1 when no row has the id
+    public int slotOf(long id) {
+        return slotsById.get(id, -1);
+    }
+
+    public long getId(int slot) {
+        return ids.get(slot);
+    }
+
+    // The id the next add will get
+    public long getNextId() {
+        return nextId;
+    }
+
+    // Makes sure ids below nextId are never handed out, even those of rows already deleted
+    public void reserveIds(long nextId) {
+        this.nextId = Math.max(this.nextId, nextId);
+    }
+
+    public int getVersion(int slot) {
+        return versions[slot];
+    }
+
+    public long getAmountCents(int slot) {
+        return amountCents.get(slot);
+    }
+
+    public int getEpochDay(int slot) {
+        return epochDays.get(slot);
+    }
+
+    public int getCompanyId(int slot) {
+        return companyIds.get(slot);
+    }
+
+    public int getDescriptionId(int slot) {
+        return descriptionIds.get(slot);
+    }
+
+    // -1 when the row has no category
+    public int getCategoryId(int slot) {
+        return categoryIds.get(slot);
+    }
+
+    // Null when the row has no category
+    public String getCategory(int slot) {
+        int categoryId = categoryIds.get(slot);
+        return categoryId < 0 ? null : categories.get(categoryId);
+    }
+
+    public String getCompany(int slot) {
+        return companies.get(companyIds.get(slot));
+    }
+
+    public String getDescription(int slot) {
+        return descriptions.get(descriptionIds.get(slot));
+    }
+
+    public StringPool getCompanies() {
+        return companies;
+    }
+
+    public StringPool getCategories() {
+        return categories;
+    }
+
+    // Expense objects are only built when a caller asks for one
+    public Expense materialize(int slot) {
+        return new Expense(getCompany(slot), getDescription(slot), amountCents.get(slot) / 100.0,
+                LocalDate.ofEpochDay(epochDays.get(slot)).toString());
+    }
+
+    // The table as it is now; version and sumCents are the tracker's, recorded with it
+    public ExpenseSnapshot snapshot(long version, long sumCents) {
+        return new ExpenseSnapshot(version, size, orderLength, tombstones == 0, order.share(), amountCents.share(),
+                epochDays.share(), companyIds.share(), descriptionIds.share(), ids.share(), companies.share(),
+                descriptions.share(), sumCents);
+    }
+
+    private void write(int slot, String company, String description, long cents, int epochDay, String category) {
+        amountCents.set(slot, cents);
+        epochDays.set(slot, epochDay);
+        companyIds.set(slot, companies.intern(company));
+        descriptionIds.set(slot, descriptions.intern(description));
+        setCategory(slot, category);
+        versions[slot]++;
+    }
+
+    private int newSlot() {
+        if (slotCount == versions.length) {
+            growSlots(slotCount * 2);
+        }
+        return slotCount++;
+    }
+
+    private void growSlots(int capacity) {
+        amountCents.ensureCapacity(capacity);
+        epochDays.ensureCapacity(capacity);
+        companyIds.ensureCapacity(capacity);
+        descriptionIds.ensureCapacity(capacity);
+        categoryIds.ensureCapacity(capacity);
+        ids.ensureCapacity(capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        orderIndexes = Arrays.copyOf(orderIndexes, capacity);
+    }
+
+    private void growOrder(int capacity) {
+        order.ensureCapacity(capacity);
+        if (liveTree.length < order.capacity() + 1) {
+            growTree(order.capacity() + 1);
+        }
+    }
+
+    // Fenwick tree over order indexes (1-based inside liveTree): 1 for a live row, 0 for a tombstone
+    private void updateTree(int index, int delta) {
+        for (int i = index + 1; i < liveTree.length; i += i & -i) {
+            liveTree[i] += delta;
+        }
+    }
+
+    // Live rows before an order index
+    private int prefixCount(int index) {
+        int count = 0;
+        for (int i = index; i > 0; i -= i & -i) {
+            count += liveTree[i];
+        }
+        return count;
+    }
+
+    // Order index of the live row at a position
+    private int select(int position) {
+        int index = 0;
+        int remaining = position + 1;
+        for (int step = Integer.highestOneBit(liveTree.length - 1); step > 0; step >>= 1) {
+            int next = index + step;
+            if (next < liveTree.length && liveTree[next] < remaining) {
+                index = next;
+                remaining -= liveTree[next];
+            }
+        }
+        return index;
+    }
+
+    // The indexes past the old end hold no rows, so only the new nodes need filling in, each from the
+    // nodes below it, in one pass that reads no rows
+    private void growTree(int length) {
+        int oldLength = liveTree.length;
+        liveTree = Arrays.copyOf(liveTree, length);
+        for (int i = 1; i < length; i++) {
+            int parent = i + (i & -i);
+            if (parent >= oldLength && parent < length) {
+                liveTree[parent] += liveTree[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,789 @@
+package tmp;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Safe to use from several threads: changes take the write lock and queries the read lock.
+// Listeners, budget listeners included, are called with the write lock held, so they see the
+// change they are told about and nothing after it. Index-based calls are only meaningful while nobody else is deleting rows;
+// every row also has a long id that stays with it for good, and the ById calls use that instead.
+public class ExpenseTracker {
+    // Squeezes deleted rows out of the table order off the deleting thread, for every tracker
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expense-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private ExpenseStore store = new ExpenseStore();
+
+    // Secondary indexes over store slots, kept in step on every add, edit and delete
+    private TreeMap<Integer, SlotList> slotsByDate = new TreeMap<>();
+    private ArrayList<SlotList> slotsByCompany = new ArrayList<>();
+    private ArrayList<DateSumIndex> companySums = new ArrayList<>();
+    private DateSumIndex dateSums = new DateSumIndex();
+    private ExpenseRollups rollups = new ExpenseRollups();
+    private ExpenseSearchIndex searchIndex = new ExpenseSearchIndex(store);
+    private BudgetEngine budgets = new BudgetEngine(store.getCompanies());
+    private volatile long sumCents = 0;
+    private long version = 0; // changes made so far, see ExpenseSnapshot.getVersion
+
+    private ArrayList<ExpenseTrackerListener> listeners = new ArrayList<>();
+    private ExpenseChangeLog changeLog; // null when changes are not logged
+    private Categorizer categorizer; // null when rows are not categorized
+
+    // Returns the new row's id; the row itself goes at the end of the table
+    public long addExpense(Expense expense) {
+        long start = System.nanoTime();
+        ExpenseChangeLog log = null;
+        long seq = 0;
+        long id;
+        lock.writeLock().lock();
+        try {
+            int day = toEpochDay(expense);
+            long cents = toCents(expense.getAmount());
+            if (changeLog != null) {
+                changeLog.logAdd(store.getNextId(), expense.getCompany(), expense.getDescription(), cents, day);
+                changeLog.publish();
+            }
+            int slot = store.add(expense.getCompany(), expense.getDescription(), cents, day, categoryOf(expense.getCompany(), expense.getDescription(), cents));
+            index(slot);
+            version++;
+            int index = store.size() - 1;
+            for (ExpenseTrackerListener listener : listeners) {
+                listener.expensesAdded(index, index);
+            }
+            budgets.fireAlerts();
+            Metrics.ROWS_ADDED.increment();
+            if (changeLog != null) {
+                log = changeLog;
+                seq = log.commit();
+            }
+            id = store.getId(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(log, seq);
+        } finally {
+            Metrics.ADD_EXPENSE.recordSince(start);
+        }
+        return id;
+    }
+
+    // Appends a whole batch and notifies listeners once for the new range of rows. Rows the batch
+    // gives an id keep it; the others get new ones. A batch that is not categorized yet is tagged by
+    // the tracker's categorizer, if it has one.
+    public void addExpenses(ExpenseBatch batch) {
+        ExpenseChangeLog log = null;
+        long seq = 0;
+        lock.writeLock().lock();
+        try {
+            if (batch.size() == 0) {
+                return;
+            }
+            if (changeLog != null) {
+                logAdds(batch);
+            }
+            if (!batch.isCategorized() && categorizer != null) {
+                categorizer.categorize(batch);
+            }
+            int first = store.size();
+            store.ensureCapacity(first + batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                long id = batch.getId(i);
+                index(id > 0
+                        ? store.add(id, batch.getCompany(i), batch.getDescription(i), batch.getAmountCents(i), batch.getEpochDay(i), batch.getCategory(i))
+                        : store.add(batch.getCompany(i), batch.getDescription(i), batch.getAmountCents(i), batch.getEpochDay(i), batch.getCategory(i)));
+            }
+            version++;
+            for (ExpenseTrackerListener listener : listeners) {
+                listener.expensesAdded(first, store.size() - 1);
+            }
+            // Once for the whole batch: one alert per budget and period it pushed over
+            budgets.fireAlerts();
+            Metrics.ROWS_ADDED.add(batch.size());
+            if (changeLog != null) {
+                log = changeLog;
+                seq = log.commit();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        awaitDurable(log, seq);
+    }
+
+    public void deleteExpense(int index) {
+        long start = System.nanoTime();
+        ExpenseChangeLog log;
+        long seq;
+        lock.writeLock().lock();
+        try {
+            log = changeLog;
+            seq = delete(store.slotAt(index), index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(log, seq);
+        } finally {
+            Metrics.DELETE_EXPENSE.recordSince(start);
+        }
+    }
+
+    // False when no row has the id (any more)
+    public boolean deleteExpenseById(long id) {
+        long start = System.nanoTime();
+        ExpenseChangeLog log;
+        long seq;
+        lock.writeLock().lock();
+        try {
+            int slot = store.slotOf(id);
+            if (slot < 0) {
+                return false;
+            }
+            log = changeLog;
+            seq = delete(slot, store.positionOf(slot));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(log, seq);
+        } finally {
+            Metrics.DELETE_EXPENSE.recordSince(start);
+        }
+        return true;
+    }
+
+    public void editExpense(int index, Expense expense) {
+        long start = System.nanoTime();
+        ExpenseChangeLog log;
+        long seq;
+        lock.writeLock().lock();
+        try {
+            int day = toEpochDay(expense);
+            log = changeLog;
+            seq = edit(store.slotAt(index), index, expense, day);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(log, seq);
+        } finally {
+            Metrics.EDIT_EXPENSE.recordSince(start);
+        }
+    }
+
+    // False when no row has the id (any more)
+    public boolean editExpenseById(long id, Expense expense) {
+        long start = System.nanoTime();
+        ExpenseChangeLog log;
+        long seq;
+        lock.writeLock().lock();
+        try {
+            int day = toEpochDay(expense);
+            int slot = store.slotOf(id);
+            if (slot < 0) {
+                return false;
+            }
+            log = changeLog;
+            seq = edit(slot, store.positionOf(slot), expense, day);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            awaitDurable(log, seq);
+        } finally {
+            Metrics.EDIT_EXPENSE.recordSince(start);
+        }
+        return true;
+    }
+
+    public void addListener(ExpenseTrackerListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.add(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeListener(ExpenseTrackerListener listener) {
+        lock.writeLock().lock();
+        try {
+            listeners.remove(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Every change is offered to the log before it is made; null stops logging
+    public void setChangeLog(ExpenseChangeLog changeLog) {
+        lock.writeLock().lock();
+        try {
+            this.changeLog = changeLog;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Tags rows as they are added or edited; null stops tagging. Rows already in the tracker keep
+    // their categories until recategorize().
+    public void setCategorizer(Categorizer categorizer) {
+        lock.writeLock().lock();
+        try {
+            this.categorizer = categorizer;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Null when rows are not categorized
+    public Categorizer getCategorizer() {
+        lock.readLock().lock();
+        try {
+            return categorizer;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Retags every row with the categorizer's current rules, after they were reloaded, and returns
+    // how many rows changed category; listeners get one categoriesChanged() if any did. O(n).
+    public int recategorize() {
+        lock.writeLock().lock();
+        try {
+            if (categorizer == null) {
+                return 0;
+            }
+            CategoryRules rules = categorizer.getRules();
+            int changed = 0;
+            for (int i = 0; i < store.size(); i++) {
+                int slot = store.slotAt(i);
+                String category = rules.categoryOf(store.getCompany(slot), store.getDescription(slot), store.getAmountCents(slot));
+                if (!Objects.equals(category, store.getCategory(slot))) {
+                    store.setCategory(slot, category);
+                    changed++;
+                }
+            }
+            Metrics.ROWS_CATEGORIZED.add(store.size());
+            if (changed > 0) {
+                for (ExpenseTrackerListener listener : listeners) {
+                    listener.categoriesChanged();
+                }
+            }
+            return changed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public double getSumOfExpenses() {
+        return sumCents / 100.0;
+    }
+
+    public double getSumBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            return dateSums.sumBetween((int) from.toEpochDay(), (int) to.toEpochDay()) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getSumForMonth(YearMonth month) {
+        lock.readLock().lock();
+        try {
+            return rollups.getMonthCents(epochMonth(month)) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getSumForCompany(String company) {
+        lock.readLock().lock();
+        try {
+            return rollups.getCompanyCents(store.getCompanies().idOf(company)) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getSumForCompany(String company, YearMonth month) {
+        lock.readLock().lock();
+        try {
+            return rollups.getCompanyMonthCents(store.getCompanies().idOf(company), epochMonth(month)) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getSumForYear(int year) {
+        lock.readLock().lock();
+        try {
+            return rollups.getYearCents(year) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Live rollups for dashboards; company ids are those of getCompanyId. Only read them from the
+    // thread that changes the tracker (the EDT in the app); other threads use the getSumFor methods.
+    public ExpenseRollups getRollups() {
+        return rollups;
+    }
+
+    // -1 for a company with no expenses
+    public int getCompanyId(String company) {
+        lock.readLock().lock();
+        try {
+            return store.getCompanies().idOf(company);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getCompanyName(int companyId) {
+        lock.readLock().lock();
+        try {
+            return store.getCompanies().get(companyId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Rebuilds the rollups from the rows in parallel and compares; on a mismatch the rebuilt ones are
+    // kept. The rebuild reads a snapshot, so changes only wait for it if one came in meanwhile.
+    public boolean verifyRollups() {
+        ExpenseSnapshot snapshot = snapshot();
+        ExpenseRollups rebuilt = ExpenseRollups.build(snapshot);
+        lock.writeLock().lock();
+        try {
+            if (snapshot.getVersion() != version) {
+                rebuilt = ExpenseRollups.build(snapshot());
+            }
+            if (rebuilt.sameAs(rollups)) {
+                return true;
+            }
+            rollups = rebuilt;
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Starts watching a budget; spending already in the ledger counts towards it, without alerts
+    public void addBudget(Budget budget) {
+        lock.writeLock().lock();
+        try {
+            budgets.addBudget(budget, rollups);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean removeBudget(Budget budget) {
+        lock.writeLock().lock();
+        try {
+            return budgets.removeBudget(budget);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Budget> getBudgets() {
+        lock.readLock().lock();
+        try {
+            return budgets.getBudgets();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Spent against the budget in its period (month, year or all time) that holds the day
+    public double getBudgetSpent(Budget budget, LocalDate day) {
+        lock.readLock().lock();
+        try {
+            return budgets.getSpentCents(budget, (int) day.toEpochDay()) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void addBudgetListener(BudgetListener listener) {
+        lock.writeLock().lock();
+        try {
+            budgets.addListener(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeBudgetListener(BudgetListener listener) {
+        lock.writeLock().lock();
+        try {
+            budgets.removeListener(listener);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public double getSumForCompany(String company, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            DateSumIndex sums = companySums(company);
+            return sums == null ? 0 : sums.sumBetween((int) from.toEpochDay(), (int) to.toEpochDay()) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Expense> getExpensesBetween(LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            List<Expense> result = new ArrayList<>();
+            for (SlotList slots : slotsByDate.subMap((int) from.toEpochDay(), true, (int) to.toEpochDay(), true).values()) {
+                slots.forEach(slot -> result.add(store.materialize(slot)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Expense> getExpensesForCompany(String company) {
+        lock.readLock().lock();
+        try {
+            List<Expense> result = new ArrayList<>();
+            int companyId = store.getCompanies().idOf(company);
+            if (companyId >= 0 && companyId < slotsByCompany.size()) {
+                slotsByCompany.get(companyId).forEach(slot -> result.add(store.materialize(slot)));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Table positions of the rows whose company or description has a word containing every term
+    // of the query (case-insensitive); null when the query has no terms, meaning every row
+    public BitSet search(String query) {
+        lock.readLock().lock();
+        try {
+            BitSet slots = searchIndex.find(query);
+            return slots == null ? null : store.positionsOf(slots);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getExpenseCount() {
+        lock.readLock().lock();
+        try {
+            return store.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Per-cell accessors so views can read a row without materializing an Expense
+    public String getCompany(int index) {
+        lock.readLock().lock();
+        try {
+            return store.getCompany(store.slotAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getDescription(int index) {
+        lock.readLock().lock();
+        try {
+            return store.getDescription(store.slotAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Null when the row has no category
+    public String getCategory(int index) {
+        lock.readLock().lock();
+        try {
+            return store.getCategory(store.slotAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getAmount(int index) {
+        lock.readLock().lock();
+        try {
+            return store.getAmountCents(store.slotAt(index)) / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getAmountCents(int index) {
+        lock.readLock().lock();
+        try {
+            return store.getAmountCents(store.slotAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getEpochDay(int index) {
+        lock.readLock().lock();
+        try {
+            return store.getEpochDay(store.slotAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public String getDate(int index) {
+        lock.readLock().lock();
+        try {
+            return LocalDate.ofEpochDay(store.getEpochDay(store.slotAt(index))).toString();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Expense getExpense(int index) {
+        lock.readLock().lock();
+        try {
+            return store.materialize(store.slotAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getExpenseId(int index) {
+        lock.readLock().lock();
+        try {
+            return store.getId(store.slotAt(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Current table index of the row with the id, or -1 when there is none
+    public int indexOfId(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = store.slotOf(id);
+            return slot < 0 ? -1 : store.positionOf(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Null when no row has the id
+    public Expense getExpenseById(long id) {
+        lock.readLock().lock();
+        try {
+            int slot = store.slotOf(id);
+            return slot < 0 ? null : store.materialize(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The id the next new row will get; ids are never reused, not even those of deleted rows
+    public long getNextId() {
+        lock.readLock().lock();
+        try {
+            return store.getNextId();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // For restoring a saved ledger: new rows get ids from nextId on
+    public void reserveIds(long nextId) {
+        lock.writeLock().lock();
+        try {
+            store.reserveIds(nextId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // The ledger as it is now, readable from any thread while the tracker keeps changing. O(1): the
+    // snapshot shares the current columns and the next changes copy just the chunks they touch.
+    public ExpenseSnapshot snapshot() {
+        lock.writeLock().lock();
+        try {
+            return store.snapshot(version, sumCents);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Hold this to make several reads see one state of the tracker; the getters can be called while
+    // holding it. For long reads take a snapshot() instead, which does not hold up changes.
+    public Lock readLock() {
+        return lock.readLock();
+    }
+
+    // For LedgerJournal, which must keep changes out while it cuts the journal over to a new snapshot
+    Lock writeLock() {
+        return lock.writeLock();
+    }
+
+    // Read-only view in table order; each Expense is materialized from the columns on access
+    public List<Expense> getExpenses() {
+        return new AbstractList<Expense>() {
+            @Override
+            public Expense get(int index) {
+                return getExpense(index);
+            }
+
+            @Override
+            public int size() {
+                return getExpenseCount();
+            }
+        };
+    }
+
+    // Dates are "yyyy-MM-dd"; parsing up front means a bad date never leaves the indexes half-updated
+    private static int toEpochDay(Expense expense) {
+        return (int) LocalDate.parse(expense.getDate()).toEpochDay();
+    }
+
+    private static int epochMonth(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    // These two return what the change log's commit() did, or 0 when nothing is logged
+    private long delete(int slot, int index) {
+        if (changeLog != null) {
+            changeLog.logDelete(store.getId(slot));
+            changeLog.publish();
+        }
+        unindex(slot);
+        store.remove(slot);
+        version++;
+        for (ExpenseTrackerListener listener : listeners) {
+            listener.expenseDeleted(index);
+        }
+        budgets.fireAlerts();
+        Metrics.ROWS_DELETED.increment();
+        long seq = changeLog != null ? changeLog.commit() : 0;
+        if (store.needsCompaction() && compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(this::compact);
+        }
+        return seq;
+    }
+
+    private long edit(int slot, int index, Expense expense, int day) {
+        long cents = toCents(expense.getAmount());
+        if (changeLog != null) {
+            changeLog.logEdit(store.getId(slot), expense.getCompany(), expense.getDescription(), cents, day);
+            changeLog.publish();
+        }
+        unindex(slot);
+        store.update(slot, expense.getCompany(), expense.getDescription(), cents, day, categoryOf(expense.getCompany(), expense.getDescription(), cents));
+        index(slot);
+        version++;
+        for (ExpenseTrackerListener listener : listeners) {
+            listener.expenseUpdated(index);
+        }
+        // The old row was taken out of the budgets and the new one put in; only the net change alerts
+        budgets.fireAlerts();
+        Metrics.ROWS_EDITED.increment();
+        return changeLog != null ? changeLog.commit() : 0;
+    }
+
+    // With the write lock released, so writers waiting on the disk together share its flushes
+    private static void awaitDurable(ExpenseChangeLog log, long seq) {
+        if (log != null) {
+            log.awaitDurable(seq);
+        }
+    }
+
+    // Logs the batch's rows with the ids the store is about to give them, refusing ids already in use
+    private void logAdds(ExpenseBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.getId(i) > 0 && store.slotOf(batch.getId(i)) >= 0) {
+                throw new IllegalArgumentException("Expense id " + batch.getId(i) + " is already in use");
+            }
+        }
+        long nextId = store.getNextId();
+        for (int i = 0; i < batch.size(); i++) {
+            long id = batch.getId(i) > 0 ? batch.getId(i) : nextId;
+            nextId = Math.max(nextId, id + 1);
+            changeLog.logAdd(id, batch.getCompany(i), batch.getDescription(i), batch.getAmountCents(i), batch.getEpochDay(i));
+        }
+        changeLog.publish();
+    }
+
+    private String categoryOf(String company, String description, long cents) {
+        return categorizer == null ? null : categorizer.categorize(company, description, cents);
+    }
+
+    private void compact() {
+        lock.writeLock().lock();
+        try {
+            compactionScheduled.set(false);
+            store.compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private DateSumIndex companySums(String company) {
+        int companyId = store.getCompanies().idOf(company);
+        return companyId >= 0 && companyId < companySums.size() ? companySums.get(companyId) : null;
+    }
+
+    private void index(int slot) {
+        int day = store.getEpochDay(slot);
+        int companyId = store.getCompanyId(slot);
+        long cents = store.getAmountCents(slot);
+        while (slotsByCompany.size() <= companyId) {
+            slotsByCompany.add(new SlotList(store));
+            companySums.add(new DateSumIndex());
+        }
+        slotsByDate.computeIfAbsent(day, k -> new SlotList(store)).add(slot);
+        slotsByCompany.get(companyId).add(slot);
+        companySums.get(companyId).add(day, cents);
+        dateSums.add(day, cents);
+        rollups.add(companyId, day, cents);
+        budgets.add(companyId, day, cents);
+        searchIndex.add(slot, companyId, store.getCompany(slot), store.getDescriptionId(slot), store.getDescription(slot));
+        sumCents += cents;
+    }
+
+    private void unindex(int slot) {
+        int day = store.getEpochDay(slot);
+        int companyId = store.getCompanyId(slot);
+        long cents = store.getAmountCents(slot);
+        SlotList sameDay = slotsByDate.get(day);
+        sameDay.retire(slot);
+        if (sameDay.isEmpty()) {
+            slotsByDate.remove(day);
+        }
+        slotsByCompany.get(companyId).retire(slot);
+        companySums.get(companyId).add(day, -cents);
+        dateSums.add(day, -cents);
+        rollups.remove(companyId, day, cents);
+        budgets.remove(companyId, day, cents);
+        searchIndex.remove(slot, companyId, store.getCompany(slot), store.getDescriptionId(slot), store.getDescription(slot));
+        sumCents -= cents;
+    }
+}
@@ -0,0 +1,13 @@
+package tmp;
+
+// Change notifications from ExpenseTracker; indexes are table positions after the change
+public interface ExpenseTrackerListener {
+    void expensesAdded(int firstIndex, int lastIndex);
+
+    void expenseUpdated(int index);
+
+    void expenseDeleted(int index);
+
+    // Rows were retagged by ExpenseTracker.recategorize(); nothing else about them changed
+    void categoriesChanged();
+}
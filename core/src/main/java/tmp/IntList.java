@@ -0,0 +1,72 @@
+package tmp;
+
+import java.util.Arrays;
+
+// Growable int array, used where a List<Integer> would box every element
+public class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(8);
+    }
+
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return values[index];
+    }
+
+    public void set(int index, int value) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        values[index] = value;
+    }
+
+    public int removeAt(int index) {
+        int value = get(index);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        return value;
+    }
+
+    // Removes the last occurrence, which is the cheapest one to find for recently added values
+    public boolean removeValue(int value) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (values[i] == value) {
+                removeAt(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
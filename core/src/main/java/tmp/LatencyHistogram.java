@@ -0,0 +1,149 @@
+package tmp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latency distribution in nanoseconds with about 12% resolution: each power of two is split into
+// SUB_BUCKETS linear buckets, so recording is one array increment with no allocation and no lock,
+// and quantiles are read off the bucket counts. Safe to record from any number of threads.
+public class LatencyHistogram implements LatencyHistogramMBean {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // Values below SUB_BUCKETS get a bucket each; above that, 8 per power of two up to 2^62 ns
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        long max = maxNanos.get();
+        while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+            max = maxNanos.get();
+        }
+    }
+
+    // For the usual "long start = System.nanoTime(); ...; histogram.recordSince(start);"
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    @Override
+    public long getCount() {
+        return count.get();
+    }
+
+    @Override
+    public double getMeanMicros() {
+        long n = count.get();
+        return n == 0 ? 0 : totalNanos.get() / 1000.0 / n;
+    }
+
+    @Override
+    public double getMaxMicros() {
+        return maxNanos.get() / 1000.0;
+    }
+
+    @Override
+    public double getP50Micros() {
+        return quantileNanos(0.50) / 1000.0;
+    }
+
+    @Override
+    public double getP90Micros() {
+        return quantileNanos(0.90) / 1000.0;
+    }
+
+    @Override
+    public double getP99Micros() {
+        return quantileNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public double getP999Micros() {
+        return quantileNanos(0.999) / 1000.0;
+    }
+
+    // Upper edge of the bucket holding the quantile, capped at the largest value seen; 0 when empty.
+    // Counts keep moving while this reads them, so under load it is approximate like any live metric.
+    public long quantileNanos(double quantile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+
+    // "name n=120 p50=35us p99=410us max=2.1ms"
+    public StringBuilder appendSummary(StringBuilder out) {
+        out.append(name).append(" n=").append(getCount());
+        appendDuration(out.append(" p50="), quantileNanos(0.50));
+        appendDuration(out.append(" p99="), quantileNanos(0.99));
+        return appendDuration(out.append(" max="), maxNanos.get());
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+
+    private static StringBuilder appendDuration(StringBuilder out, long nanos) {
+        if (nanos < 10_000) {
+            return out.append(nanos).append("ns");
+        }
+        if (nanos < 10_000_000) {
+            return out.append(nanos / 1000).append("us");
+        }
+        return out.append(nanos / 1_000_000).append("ms");
+    }
+}
@@ -0,0 +1,20 @@
+package tmp;
+
+// JMX view of a LatencyHistogram; registered by Metrics as tmp:type=Latency,name=<operation>
+public interface LatencyHistogramMBean {
+    long getCount();
+
+    double getMeanMicros();
+
+    double getMaxMicros();
+
+    double getP50Micros();
+
+    double getP90Micros();
+
+    double getP99Micros();
+
+    double getP999Micros();
+
+    void reset();
+}
@@ -0,0 +1,757 @@
+package tmp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Write-ahead journal for the expense ledger and the portfolio. Every change is appended as a small
+// binary record and a background flusher fsyncs whole groups of records at once; a change is only
+// acknowledged once its record is on disk, and callers wait for that outside the tracker's lock, so
+// concurrent changes share an fsync. Expense changes are encoded and queued before the tracker makes
+// them (see ExpenseChangeLog) and trades before anyone is told of them (see TradeLog), so a change
+// the journal cannot take is refused or undone rather than lost.
+//
+// After SNAPSHOT_EVERY records the journal is cut over: the current file is set aside as
+// journal-<generation>.log, a new generation starts, and the state as of the cut is written to a
+// snapshot on a background thread from an O(1) ExpenseSnapshot. Startup loads the snapshot and
+// replays the set-aside files it does not cover yet, then the current one. Lock order is the
+// tracker's lock before this journal's lock.
+//
+// The journal's state is guarded by a ReentrantLock rather than its monitor: callers park in
+// awaitDurable() for an fsync, and a virtual thread parked in Object.wait() pins its carrier.
+public class LedgerJournal implements TradeLog, ExpenseChangeLog, Closeable {
+    private static final int MAGIC = 0x4C454447; // "LEDG"
+    private static final int SNAPSHOT_MAGIC = 0x4C454449; // "LEDI": a snapshot that keeps expense ids; "LEDG" ones predate ids
+    private static final int HEADER_BYTES = 12;
+    private static final int SNAPSHOT_EVERY = 100_000;
+    private static final int MAX_PENDING_BYTES = 1 << 20;
+    private static final int MAX_RECORD_BYTES = 1 << 24;
+
+    // Records from before expense ids, which refer to rows by table position; only ever read
+    private static final byte ADD_EXPENSE = 1;
+    private static final byte EDIT_EXPENSE = 2;
+    private static final byte DELETE_EXPENSE = 3;
+    private static final byte TRADE = 4;
+    private static final byte TRADES = 5;
+    // Expense records by id, so a record that fails to apply cannot shift the rows of the ones after it
+    private static final byte ADD_EXPENSE_ID = 6;
+    private static final byte EDIT_EXPENSE_ID = 7;
+    private static final byte DELETE_EXPENSE_ID = 8;
+
+    private final Path directory;
+    private final Path journalFile;
+    private final Path snapshotFile;
+    private final ExpenseTracker expenseTracker;
+    private final ManagePortfolio managePortfolio;
+    private final List<String> warnings = new ArrayList<>();
+
+    private FileChannel channel;
+    private long generation = 0;
+    private int recordsSinceSnapshot = 0;
+
+    // Holdings as of the last trade record, so a snapshot matches the journal cut exactly even while
+    // trades that are not journaled yet are changing the portfolio
+    private long[] positions;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition(); // signalled whenever any state below moves on
+
+    // Group commit: appenders fill pending, the flusher swaps it out, writes it and forces the file
+    private Buffer pending = new Buffer();
+    private final Buffer record = new Buffer();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+    private final Buffer staged = new Buffer(); // framed records of the change being logged
+    private int stagedRecords = 0;
+    private final CRC32 crc = new CRC32();
+    private long appendedSeq = 0;
+    private long durableSeq = 0;
+    private IOException flushFailure;
+    private boolean closed = false;
+    private Thread flusher;
+
+    private final ExecutorService snapshotter;
+    private boolean snapshotting = false;
+    private volatile Exception snapshotFailure;
+
+    private static class Buffer extends ByteArrayOutputStream {
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private LedgerJournal(Path directory, ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) {
+        this.directory = directory;
+        this.journalFile = directory.resolve("journal.log");
+        this.snapshotFile = directory.resolve("snapshot.bin");
+        this.expenseTracker = expenseTracker;
+        this.managePortfolio = managePortfolio;
+        snapshotter = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Restores the saved state into the (empty) tracker and portfolio, then starts journaling their
+    // changes. Anything that was restored differently from how it was saved is in getRestoreWarnings().
+    public static LedgerJournal open(Path directory, ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) throws IOException {
+        Files.createDirectories(directory);
+        LedgerJournal journal = new LedgerJournal(directory, expenseTracker, managePortfolio);
+        journal.loadSnapshot();
+        boolean setAsideReplayed = journal.replay();
+        if (!expenseTracker.verifyRollups()) {
+            journal.warnings.add("Expense rollups did not match the restored rows and were rebuilt");
+        }
+        managePortfolio.saveCurrentState();
+        SymbolRegistry registry = managePortfolio.getRegistry();
+        journal.positions = new long[registry.size()];
+        for (int id = 0; id < registry.size(); id++) {
+            journal.positions[id] = managePortfolio.getStockQuantity(id);
+        }
+
+        journal.flusher = new Thread(journal::flushLoop, "ledger-journal");
+        journal.flusher.setDaemon(true);
+        journal.flusher.start();
+        if (setAsideReplayed) {
+            journal.snapshot(); // fold the files a crash left behind into one snapshot
+        }
+        expenseTracker.setChangeLog(journal);
+        managePortfolio.setTradeLog(journal);
+        return journal;
+    }
+
+    // Records that were skipped or changed while restoring, in the order they were met
+    public List<String> getRestoreWarnings() {
+        return Collections.unmodifiableList(warnings);
+    }
+
+    // Why the last background snapshot failed, or null; the journal keeps every record until one succeeds
+    public Exception getSnapshotFailure() {
+        return snapshotFailure;
+    }
+
+    @Override
+    public void logAdd(long id, String company, String description, long cents, int epochDay) {
+        lock.lock();
+        try {
+            stage(ADD_EXPENSE_ID, id, company, description, cents, epochDay);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void logEdit(long id, String company, String description, long cents, int epochDay) {
+        lock.lock();
+        try {
+            stage(EDIT_EXPENSE_ID, id, company, description, cents, epochDay);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void logDelete(long id) {
+        lock.lock();
+        try {
+            stage(DELETE_EXPENSE_ID, id, null, null, 0, 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void publish() {
+        lock.lock();
+        try {
+            while (pending.size() > MAX_PENDING_BYTES && flushFailure == null) {
+                waitForFlusher();
+            }
+            if (flushFailure != null) {
+                throw flushFailure;
+            }
+            staged.writeTo(pending);
+            appendedSeq += stagedRecords;
+            recordsSinceSnapshot += stagedRecords;
+            changed.signalAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            staged.reset();
+            stagedRecords = 0;
+            lock.unlock();
+        }
+    }
+
+    // Called with the tracker's write lock held, so the journal can be cut over right here
+    @Override
+    public long commit() {
+        lock.lock();
+        try {
+            if (snapshotDue()) {
+                snapshotter.execute(cutOver());
+            }
+            return appendedSeq;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long seq) {
+        lock.lock();
+        try {
+            waitUntilDurable(seq);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public long logTrades(TradeResult result) {
+        lock.lock();
+        try {
+            while (pending.size() > MAX_PENDING_BYTES && flushFailure == null) {
+                waitForFlusher();
+            }
+            if (flushFailure != null) {
+                throw flushFailure;
+            }
+            recordOut.writeByte(TRADES);
+            recordOut.writeInt(result.size());
+            for (int i = 0; i < result.size(); i++) {
+                recordOut.writeUTF(result.getStockName(i));
+                recordOut.writeInt(result.getChange(i));
+            }
+            frame(pending);
+            for (int i = 0; i < result.size(); i++) {
+                positions[result.getStockId(i)] += result.getChange(i);
+            }
+            appendedSeq++;
+            recordsSinceSnapshot++;
+            changed.signalAll();
+            return appendedSeq;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            record.reset();
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void commitTrades(long seq) {
+        awaitDurable(seq);
+        lock.lock();
+        try {
+            if (!snapshotDue()) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        Lock trackerLock = expenseTracker.writeLock();
+        trackerLock.lock();
+        try {
+            lock.lock();
+            try {
+                if (snapshotDue()) {
+                    snapshotter.execute(cutOver());
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            trackerLock.unlock();
+        }
+    }
+
+    // Waits until every change journaled so far is on disk
+    public void sync() throws IOException {
+        lock.lock();
+        try {
+            waitUntilDurable(appendedSeq);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes a snapshot of the current state on the calling thread and starts a fresh journal generation
+    public void snapshot() throws IOException {
+        Runnable write;
+        Lock trackerLock = expenseTracker.writeLock();
+        trackerLock.lock();
+        try {
+            lock.lock();
+            try {
+                awaitSnapshotter();
+                write = cutOver();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            trackerLock.unlock();
+        }
+        write.run();
+        if (snapshotFailure != null) {
+            throw new IOException("Could not write the ledger snapshot", snapshotFailure);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        expenseTracker.setChangeLog(null);
+        managePortfolio.setTradeLog(null);
+        boolean due;
+        lock.lock();
+        try {
+            awaitSnapshotter();
+            due = recordsSinceSnapshot > 0 || snapshotFailure != null;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (due) {
+                snapshot();
+            }
+        } finally {
+            lock.lock();
+            try {
+                closed = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            snapshotter.shutdown();
+            channel.close();
+        }
+    }
+
+    private boolean snapshotDue() {
+        return recordsSinceSnapshot >= SNAPSHOT_EVERY && !snapshotting;
+    }
+
+    private void awaitSnapshotter() throws IOException {
+        while (snapshotting) {
+            waitForFlusher();
+        }
+    }
+
+    // Sets the current journal aside and starts the next generation. Needs the tracker's write lock
+    // and this journal's lock, so the state captured is exactly what the set-aside journals hold; returns
+    // the snapshot write, which needs neither.
+    private Runnable cutOver() throws IOException {
+        waitUntilDurable(appendedSeq);
+        long next = generation + 1;
+        ExpenseSnapshot rows = expenseTracker.snapshot();
+        long nextId = expenseTracker.getNextId();
+        long[] holdings = positions.clone();
+
+        channel.close();
+        Files.move(journalFile, setAside(generation), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = createJournal(next);
+        syncDirectory();
+        generation = next;
+        recordsSinceSnapshot = 0;
+        snapshotting = true;
+        return () -> {
+            Exception failure = null;
+            try {
+                writeSnapshot(next, nextId, rows, holdings);
+            } catch (IOException | RuntimeException e) {
+                failure = e;
+                Metrics.SNAPSHOTS_FAILED.increment();
+            }
+            lock.lock();
+            try {
+                snapshotFailure = failure;
+                snapshotting = false;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        };
+    }
+
+    // A crash part way leaves the previous snapshot and the set-aside journals it needs in place
+    private void writeSnapshot(long snapshotGeneration, long nextId, ExpenseSnapshot rows, long[] holdings) throws IOException {
+        Path tmp = snapshotFile.resolveSibling("snapshot.tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(snapshotGeneration);
+            out.writeLong(nextId);
+            out.writeInt(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                out.writeLong(rows.getExpenseId(i));
+                writeRow(out, rows.getCompany(i), rows.getDescription(i), rows.getAmountCents(i), rows.getEpochDay(i));
+            }
+            SymbolRegistry registry = managePortfolio.getRegistry();
+            out.writeInt(registry.size());
+            for (int id = 0; id < registry.size(); id++) {
+                out.writeUTF(registry.getSymbol(id));
+                out.writeInt((int) holdings[id]);
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        syncDirectory();
+        deleteSetAsideBefore(snapshotGeneration);
+    }
+
+    private Path setAside(long journalGeneration) {
+        return directory.resolve("journal-" + journalGeneration + ".log");
+    }
+
+    private void deleteSetAsideBefore(long snapshotGeneration) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    if (Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length())) < snapshotGeneration) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NumberFormatException e) {
+                    // not one of ours
+                }
+            }
+        }
+    }
+
+    private static void writeRow(DataOutputStream out, String company, String description, long cents, int epochDay) throws IOException {
+        out.writeUTF(company);
+        out.writeUTF(description);
+        out.writeLong(cents);
+        out.writeInt(epochDay);
+    }
+
+    // Encodes one expense record into staged; if it cannot be encoded, drops everything staged
+    private void stage(byte type, long id, String company, String description, long cents, int epochDay) {
+        try {
+            recordOut.writeByte(type);
+            recordOut.writeLong(id);
+            if (type != DELETE_EXPENSE_ID) {
+                writeRow(recordOut, company, description, cents, epochDay);
+            }
+            frame(staged);
+            stagedRecords++;
+        } catch (IOException e) {
+            staged.reset();
+            stagedRecords = 0;
+            // The only failure of an in-memory stream: a text over writeUTF's 65535 bytes
+            throw new IllegalArgumentException("Expense text is too long to journal: " + e.getMessage(), e);
+        } finally {
+            record.reset();
+        }
+    }
+
+    // Writes the record built in recordOut to the buffer as [length][crc32][payload]
+    private void frame(Buffer out) throws IOException {
+        if (record.size() > MAX_RECORD_BYTES) {
+            throw new IOException("Journal record of " + record.size() + " bytes is over the limit");
+        }
+        crc.reset();
+        crc.update(record.array(), 0, record.size());
+        writeInt(out, record.size());
+        writeInt(out, (int) crc.getValue());
+        record.writeTo(out);
+    }
+
+    private void waitUntilDurable(long seq) throws IOException {
+        while (durableSeq < seq) {
+            if (flushFailure != null) {
+                throw flushFailure;
+            }
+            waitForFlusher();
+        }
+    }
+
+    private void waitForFlusher() throws IOException {
+        try {
+            changed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the journal");
+        }
+    }
+
+    private void flushLoop() {
+        Buffer spare = new Buffer();
+        while (true) {
+            Buffer toWrite;
+            long target;
+            FileChannel file;
+            lock.lock();
+            try {
+                while (durableSeq == appendedSeq && !closed) {
+                    try {
+                        changed.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (durableSeq == appendedSeq) {
+                    return;
+                }
+                toWrite = pending;
+                pending = spare;
+                target = appendedSeq;
+                file = channel;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            try {
+                ByteBuffer bytes = ByteBuffer.wrap(toWrite.array(), 0, toWrite.size());
+                while (bytes.hasRemaining()) {
+                    file.write(bytes);
+                }
+                file.force(false);
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    flushFailure = e;
+                    changed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            }
+            toWrite.reset();
+            spare = toWrite;
+            lock.lock();
+            try {
+                durableSeq = target;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile), 1 << 16))) {
+            int magic = in.readInt();
+            if (magic != SNAPSHOT_MAGIC && magic != MAGIC) {
+                throw new IOException("Not a ledger snapshot: " + snapshotFile);
+            }
+            generation = in.readLong();
+            // Rows of an older snapshot get new ids in order, as the tracker would have handed them out
+            boolean withIds = magic == SNAPSHOT_MAGIC;
+            long nextId = withIds ? in.readLong() : 1;
+            int count = in.readInt();
+            ExpenseBatch batch = new ExpenseBatch(count);
+            for (int i = 0; i < count; i++) {
+                long id = withIds ? in.readLong() : 0;
+                batch.add(id, in.readUTF(), in.readUTF(), in.readLong(), in.readInt());
+            }
+            expenseTracker.addExpenses(batch);
+            expenseTracker.reserveIds(nextId);
+            int stockCount = in.readInt();
+            for (int i = 0; i < stockCount; i++) {
+                applyTrade(in.readUTF(), in.readInt());
+            }
+        }
+        deleteSetAsideBefore(generation);
+    }
+
+    // Replays the journals set aside since the snapshot, then the current one, and opens the current
+    // one for appending past its last intact record. True when set-aside journals were replayed.
+    private boolean replay() throws IOException {
+        boolean setAsideReplayed = false;
+        for (Path file = setAside(generation); Files.exists(file); file = setAside(generation)) {
+            long length = replay(file, generation);
+            setAsideReplayed = true;
+            if (length != Files.size(file)) {
+                warnings.add(file.getFileName() + " is damaged after byte " + length + "; later changes were not restored");
+                break;
+            }
+            generation++;
+        }
+        long goodLength = replay(journalFile, generation);
+        if (goodLength == 0) {
+            channel = createJournal(generation);
+        } else {
+            channel = FileChannel.open(journalFile, StandardOpenOption.WRITE);
+            channel.truncate(goodLength);
+            channel.position(goodLength);
+        }
+        return setAsideReplayed;
+    }
+
+    // Applies every intact record of a journal of the generation; returns the length they take up,
+    // or 0 when the file is missing or of another generation
+    private long replay(Path file, long journalGeneration) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        long goodLength = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() == MAGIC && in.readLong() == journalGeneration) {
+                goodLength = HEADER_BYTES;
+                ExpenseBatch adds = new ExpenseBatch();
+                while (true) {
+                    byte[] payload;
+                    try {
+                        int length = in.readInt();
+                        int checksum = in.readInt();
+                        if (length <= 0 || length > MAX_RECORD_BYTES) {
+                            break;
+                        }
+                        payload = new byte[length];
+                        in.readFully(payload);
+                        crc.reset();
+                        crc.update(payload, 0, length);
+                        if ((int) crc.getValue() != checksum) {
+                            break;
+                        }
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    adds = apply(payload, adds);
+                    goodLength += 8 + payload.length;
+                    recordsSinceSnapshot++;
+                }
+                expenseTracker.addExpenses(adds);
+            }
+        } catch (EOFException e) {
+            goodLength = 0; // not even a complete header
+        }
+        return goodLength;
+    }
+
+    // Consecutive adds are collected into one batch; anything else flushes the batch first to keep the order
+    private ExpenseBatch apply(byte[] payload, ExpenseBatch adds) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        if (type == ADD_EXPENSE) {
+            adds.add(in.readUTF(), in.readUTF(), in.readLong(), in.readInt());
+            return adds;
+        }
+        if (type == ADD_EXPENSE_ID) {
+            adds.add(in.readLong(), in.readUTF(), in.readUTF(), in.readLong(), in.readInt());
+            return adds;
+        }
+        if (adds.size() > 0) {
+            expenseTracker.addExpenses(adds);
+            adds = new ExpenseBatch();
+        }
+        switch (type) {
+            case EDIT_EXPENSE:
+                int index = in.readInt();
+                expenseTracker.editExpense(index, readExpense(in));
+                break;
+            case DELETE_EXPENSE:
+                expenseTracker.deleteExpense(in.readInt());
+                break;
+            case EDIT_EXPENSE_ID:
+                long id = in.readLong();
+                if (!expenseTracker.editExpenseById(id, readExpense(in))) {
+                    warnings.add("Skipped an edit of expense " + id + ", which no longer exists");
+                }
+                break;
+            case DELETE_EXPENSE_ID:
+                long deleted = in.readLong();
+                if (!expenseTracker.deleteExpenseById(deleted)) {
+                    warnings.add("Skipped a delete of expense " + deleted + ", which no longer exists");
+                }
+                expenseTracker.reserveIds(deleted + 1); // never handed out again, even if it was the last
+                break;
+            case TRADE:
+                applyTrade(in.readUTF(), in.readInt());
+                break;
+            case TRADES:
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    applyTrade(in.readUTF(), in.readInt());
+                }
+                break;
+            default:
+                throw new IOException("Unknown journal record type " + type);
+        }
+        return adds;
+    }
+
+    // Holdings of a symbol that has since left the universe file are reported and dropped
+    private void applyTrade(String stockName, int change) {
+        if (managePortfolio.getRegistry().find(stockName) < 0) {
+            warnings.add("Ignored saved holdings of unknown stock " + stockName);
+            return;
+        }
+        managePortfolio.setStockQuantity(stockName, managePortfolio.getStockQuantity(stockName) + change);
+    }
+
+    private static Expense readExpense(DataInputStream in) throws IOException {
+        String company = in.readUTF();
+        String description = in.readUTF();
+        long cents = in.readLong();
+        int epochDay = in.readInt();
+        return new Expense(company, description, cents / 100.0, LocalDate.ofEpochDay(epochDay).toString());
+    }
+
+    private FileChannel createJournal(long journalGeneration) throws IOException {
+        Path tmp = journalFile.resolveSibling("journal.tmp");
+        try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putLong(journalGeneration);
+            header.flip();
+            while (header.hasRemaining()) {
+                file.write(header);
+            }
+            file.force(true);
+        }
+        Files.move(tmp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        FileChannel file = FileChannel.open(journalFile, StandardOpenOption.WRITE);
+        file.position(HEADER_BYTES);
+        return file;
+    }
+
+    // Makes the renames themselves durable; not every platform allows opening a directory
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(journalFile.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // best effort
+        }
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+}
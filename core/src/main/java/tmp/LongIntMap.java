@@ -0,0 +1,106 @@
+package tmp;
+
+import java.util.Arrays;
+
+// Open-addressing hash map from positive long keys to ints, with linear probing and no boxing.
+// Key 0 marks an empty cell. Removal shifts the rest of the probe run back instead of leaving a
+// tombstone, so lookups never slow down however many keys have come and gone.
+public class LongIntMap {
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size = 0;
+
+    public LongIntMap() {
+        this(16);
+    }
+
+    public LongIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(expected * 2 - 1, 15)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    // The value of key, or missing when it is not in the map
+    public int get(long key, int missing) {
+        for (int i = index(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == 0) {
+                return missing;
+            }
+        }
+    }
+
+    public void put(long key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Key must be positive: " + key);
+        }
+        int i = index(key);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            if ((size + 1) * 4 > keys.length * 3) {
+                grow();
+                put(key, value);
+                return;
+            }
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    public boolean remove(long key) {
+        int i = index(key);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Move back any later key of the run whose home cell is not between the hole and itself
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = index(keys[j]);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    private int index(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[keys.length];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
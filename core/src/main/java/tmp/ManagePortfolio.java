@@ -0,0 +1,424 @@
+package tmp;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ManagePortfolio {
+    public static final String LAST_VISIT = "last visit";
+    public static final String START_OF_DAY = "start of day";
+    public static final String LAST_EXPORT = "last export";
+    // Holdings are handed out as ints (getStockQuantity, the table, the journal), so a buy that would
+    // take one past this is rejected
+    public static final long MAX_HOLDING = Integer.MAX_VALUE;
+
+    private final SymbolRegistry registry;
+    private final PositionBook stocks;
+    private final PricingEngine pricingEngine;
+    private final RiskAnalytics riskAnalytics;
+    private volatile PositionHistoryStore history;
+    // Every trade counts itself in before touching a position and out after, on striped counters, so
+    // trades never write a shared word. snapshot() copies the positions and keeps the copy only if no
+    // trade was under way when it started and none began before it finished; after a few failed
+    // tries it holds new trades back for the moment the copy takes, so it cannot starve. The number
+    // of trades started doubles as the portfolio's version.
+    private static final int OPTIMISTIC_COPIES = 8;
+    private final LongAdder tradesStarted = new LongAdder();
+    private final LongAdder tradesFinished = new LongAdder();
+    private volatile boolean tradesHeld = false;
+    private final Object snapshotLock = new Object();
+    private volatile PortfolioSnapshot lastSnapshot;
+    private final ConcurrentHashMap<String, ChangeCheckpoint> checkpointsByName = new ConcurrentHashMap<>();
+    private volatile ChangeCheckpoint[] checkpoints = new ChangeCheckpoint[0];
+    private volatile long nextMidnightMillis;
+    private CopyOnWriteArrayList<PortfolioListener> listeners = new CopyOnWriteArrayList<>();
+    private volatile TradeLog tradeLog; // null when trades are not logged
+
+    public ManagePortfolio() {
+        this(SymbolRegistry.defaultRegistry());
+    }
+
+    public ManagePortfolio(SymbolRegistry registry) {
+        this.registry = registry;
+        stocks = new PositionBook(registry.size());
+        pricingEngine = new PricingEngine(registry.size());
+        riskAnalytics = new RiskAnalytics(this);
+        addCheckpoint(LAST_VISIT);
+        addCheckpoint(START_OF_DAY);
+        addCheckpoint(LAST_EXPORT);
+        nextMidnightMillis = nextMidnightMillis();
+    }
+
+    public void saveCurrentState() {
+    	resetCheckpoint(LAST_VISIT);
+    }
+
+    public Map<String, Integer> getChangedStocks() {
+        long start = System.nanoTime();
+        Map<String, Integer> changes = getChangesSince(LAST_VISIT);
+        Metrics.GET_CHANGED_STOCKS.recordSince(start);
+        return changes;
+    }
+
+    // Checkpoints record trades as they happen, so reports cost O(changed symbols), not O(universe)
+    public synchronized void addCheckpoint(String name) {
+        if (!checkpointsByName.containsKey(name)) {
+            ChangeCheckpoint checkpoint = new ChangeCheckpoint(name, registry.size());
+            checkpointsByName.put(name, checkpoint);
+            ChangeCheckpoint[] grown = Arrays.copyOf(checkpoints, checkpoints.length + 1);
+            grown[checkpoints.length] = checkpoint;
+            checkpoints = grown;
+        }
+    }
+
+    // In the order the checkpoints were added
+    public List<String> getCheckpointNames() {
+        List<String> names = new ArrayList<>();
+        for (ChangeCheckpoint checkpoint : checkpoints) {
+            names.add(checkpoint.getName());
+        }
+        return names;
+    }
+
+    public Map<String, Integer> getChangesSince(String checkpoint) {
+        rollOverDay();
+        return checkpoint(checkpoint).getChanges(registry);
+    }
+
+    // Returns the changes since the checkpoint and moves it to now
+    public Map<String, Integer> resetCheckpoint(String checkpoint) {
+        return checkpoint(checkpoint).reset(registry);
+    }
+
+    public SymbolRegistry getRegistry() {
+        return registry;
+    }
+
+    // Prefer getRegistry().getSymbols(), which doesn't copy
+    public String[] getStockNames() {
+        return registry.getSymbols().toArray(new String[0]);
+    }
+
+    // Safe to call from any thread; positions are updated without locks
+    public void buyStock(String stockName) {
+        buyStock(registry.idOf(stockName), 1);
+    }
+
+    public void sellStock(String stockName) {
+        sellStock(registry.idOf(stockName), 1);
+    }
+
+    public TradeResult buyStock(String stockName, int quantity) {
+        return buyStock(registry.idOf(stockName), quantity);
+    }
+
+    public TradeResult sellStock(String stockName, int quantity) {
+        return sellStock(registry.idOf(stockName), quantity);
+    }
+
+    // Rejected, with no change, when the holding would pass MAX_HOLDING
+    public TradeResult buyStock(int stockId, int quantity) {
+        long start = System.nanoTime();
+        Trade.checkQuantity(quantity);
+        boolean bought;
+        beginTrade();
+        try {
+            bought = stocks.tryAdd(stockId, quantity, MAX_HOLDING);
+        } finally {
+            tradesFinished.increment();
+        }
+        try {
+            if (!bought) {
+                Metrics.TRADES_REJECTED.increment();
+                return TradeResult.rejected(registry, stockId);
+            }
+            return finishTrade(TradeResult.accepted(registry, stockId, quantity));
+        } finally {
+            Metrics.BUY_STOCK.recordSince(start);
+        }
+    }
+
+    // Rejected, with no change, when fewer than quantity shares are held
+    public TradeResult sellStock(int stockId, int quantity) {
+        long start = System.nanoTime();
+        Trade.checkQuantity(quantity);
+        boolean sold;
+        beginTrade();
+        try {
+            sold = stocks.tryRemove(stockId, quantity);
+        } finally {
+            tradesFinished.increment();
+        }
+        try {
+            if (!sold) {
+                Metrics.TRADES_REJECTED.increment();
+                return TradeResult.rejected(registry, stockId);
+            }
+            return finishTrade(TradeResult.accepted(registry, stockId, -quantity));
+        } finally {
+            Metrics.SELL_STOCK.recordSince(start);
+        }
+    }
+
+    // Applies every trade or none of them. Trades are netted per stock first, so buying and then
+    // selling the same stock in one batch only needs the net amount to be available, and buying only
+    // needs the net amount to fit under MAX_HOLDING. A batch whose net change for a stock does not
+    // fit in an int is refused with an IllegalArgumentException.
+    public TradeResult applyTrades(List<Trade> trades) {
+        long[] net = new long[stocks.size()];
+        boolean[] seen = new boolean[stocks.size()];
+        IntList touched = new IntList();
+        for (Trade trade : trades) {
+            int id = trade.getStockId(registry);
+            if (!seen[id]) {
+                seen[id] = true;
+                touched.add(id);
+            }
+            net[id] += trade.getChange();
+        }
+        for (int i = 0; i < touched.size(); i++) {
+            int id = touched.get(i);
+            if (net[id] != (int) net[id]) {
+                throw new IllegalArgumentException("Net change for " + registry.getSymbol(id) + " is out of range: " + net[id]);
+            }
+        }
+
+        int changed = 0;
+        beginTrade();
+        try {
+            // Sells first: they are the only step that can fail, and undoing one just adds the shares back
+            for (int i = 0; i < touched.size(); i++) {
+                int id = touched.get(i);
+                if (net[id] < 0 && !stocks.tryRemove(id, -net[id])) {
+                    for (int j = 0; j < i; j++) {
+                        int undo = touched.get(j);
+                        if (net[undo] < 0) {
+                            stocks.add(undo, -net[undo]);
+                        }
+                    }
+                    Metrics.TRADES_REJECTED.increment();
+                    return TradeResult.rejected(registry, id);
+                }
+            }
+
+            // Then buys, which fail when a holding would pass MAX_HOLDING; undoing one takes the shares off again
+            for (int i = 0; i < touched.size(); i++) {
+                int id = touched.get(i);
+                if (net[id] > 0 && !stocks.tryAdd(id, net[id], MAX_HOLDING)) {
+                    for (int j = 0; j < touched.size(); j++) {
+                        int undo = touched.get(j);
+                        if (net[undo] < 0 || (net[undo] > 0 && j < i)) {
+                            stocks.add(undo, -net[undo]);
+                        }
+                    }
+                    Metrics.TRADES_REJECTED.increment();
+                    return TradeResult.rejected(registry, id);
+                }
+                if (net[id] != 0) {
+                    changed++;
+                }
+            }
+        } finally {
+            tradesFinished.increment();
+        }
+        int[] stockIds = new int[changed];
+        int[] changes = new int[changed];
+        for (int i = 0, k = 0; i < touched.size(); i++) {
+            int id = touched.get(i);
+            if (net[id] != 0) {
+                stockIds[k] = id;
+                changes[k++] = (int) net[id];
+            }
+        }
+        return finishTrade(TradeResult.accepted(registry, stockIds, changes));
+    }
+
+    // Used when restoring saved state; does not notify listeners
+    public void setStockQuantity(String stockName, int quantity) {
+        int stockId = registry.idOf(stockName);
+        beginTrade();
+        try {
+            stocks.set(stockId, quantity);
+        } finally {
+            tradesFinished.increment();
+        }
+        pricingEngine.setPosition(stockId, quantity);
+    }
+
+    // Every accepted trade is offered to the log before anyone hears of it; null stops logging
+    public void setTradeLog(TradeLog tradeLog) {
+        this.tradeLog = tradeLog;
+    }
+
+    public int getStockQuantity(String stockName) {
+        return getStockQuantity(registry.idOf(stockName));
+    }
+
+    public int getStockQuantity(int stockId) {
+        return (int) stocks.get(stockId);
+    }
+
+    // Indexed by stock id
+    public long[] getStockQuantities() {
+        return snapshot().getQuantities();
+    }
+
+    // The holdings as they are now, consistent across stocks; readable from any thread afterwards
+    public PortfolioSnapshot snapshot() {
+        PortfolioSnapshot last = lastSnapshot;
+        if (last != null && last.getVersion() == tradesStarted.sum()) {
+            return last;
+        }
+        synchronized (snapshotLock) {
+            try {
+                for (int attempt = 1; ; attempt++) {
+                    if (attempt > OPTIMISTIC_COPIES) {
+                        tradesHeld = true;
+                    }
+                    // Finished before started: equal means no trade was under way between the two reads
+                    long finished = tradesFinished.sum();
+                    long started = tradesStarted.sum();
+                    if (started == finished) {
+                        long[] quantities = stocks.copyQuantities();
+                        if (tradesStarted.sum() == started) {
+                            last = new PortfolioSnapshot(registry, started, quantities);
+                            lastSnapshot = last;
+                            return last;
+                        }
+                    }
+                    Thread.onSpinWait();
+                }
+            } finally {
+                tradesHeld = false;
+            }
+        }
+    }
+
+    // Changes whenever any position does, and also on a rejected trade
+    public long getVersion() {
+        return tradesStarted.sum();
+    }
+
+    // Number of shares held; derived from the positions themselves, so it can never disagree with them
+    public double getPortfolioValue() {
+        return stocks.total();
+    }
+
+    // Dollar value of the holdings at the latest prices fed to the pricing engine
+    public double getMarketValue() {
+        return pricingEngine.getMarketValue();
+    }
+
+    public PricingEngine getPricingEngine() {
+        return pricingEngine;
+    }
+
+    public RiskAnalytics getRiskAnalytics() {
+        return riskAnalytics;
+    }
+
+    public void setHistory(PositionHistoryStore history) {
+        this.history = history;
+    }
+
+    // Null when no history store has been attached
+    public PositionHistoryStore getHistory() {
+        return history;
+    }
+
+    // Records the current positions as today's entry in the history; later calls today overwrite it
+    public void recordHistory() throws IOException {
+        PositionHistoryStore history = this.history;
+        if (history != null) {
+            history.recordDay((int) LocalDate.now().toEpochDay(), snapshot().getQuantities());
+        }
+    }
+
+    public void addListener(PortfolioListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(PortfolioListener listener) {
+        listeners.remove(listener);
+    }
+
+    private ChangeCheckpoint checkpoint(String name) {
+        ChangeCheckpoint checkpoint = checkpointsByName.get(name);
+        if (checkpoint == null) {
+            throw new IllegalArgumentException("Unknown checkpoint: " + name);
+        }
+        return checkpoint;
+    }
+
+    private void rollOverDay() {
+        if (System.currentTimeMillis() >= nextMidnightMillis) {
+            synchronized (this) {
+                if (System.currentTimeMillis() >= nextMidnightMillis) {
+                    resetCheckpoint(START_OF_DAY);
+                    nextMidnightMillis = nextMidnightMillis();
+                }
+            }
+        }
+    }
+
+    private static long nextMidnightMillis() {
+        return LocalDate.now().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private void beginTrade() {
+        while (tradesHeld) {
+            Thread.onSpinWait();
+        }
+        tradesStarted.increment();
+    }
+
+    // Logs a trade that has been made, undoing it if the log refuses it, then tells everyone and
+    // waits for the log's disk with no lock held
+    private TradeResult finishTrade(TradeResult result) {
+        TradeLog log = tradeLog;
+        if (log == null || result.size() == 0) {
+            return fireHoldingsChanged(result);
+        }
+        long seq;
+        try {
+            seq = log.logTrades(result);
+        } catch (RuntimeException | Error e) {
+            beginTrade();
+            try {
+                for (int i = 0; i < result.size(); i++) {
+                    stocks.add(result.getStockId(i), -result.getChange(i));
+                }
+            } finally {
+                tradesFinished.increment();
+            }
+            throw e;
+        }
+        fireHoldingsChanged(result);
+        log.commitTrades(seq);
+        return result;
+    }
+
+    private TradeResult fireHoldingsChanged(TradeResult result) {
+        if (result.size() > 0) {
+            rollOverDay();
+            Metrics.TRADES_ACCEPTED.increment();
+            Metrics.SHARES_TRADED.add(result.getSharesMoved());
+            for (int i = 0; i < result.size(); i++) {
+                pricingEngine.onPositionChanged(result.getStockId(i), result.getChange(i));
+            }
+            for (ChangeCheckpoint checkpoint : checkpoints) {
+                for (int i = 0; i < result.size(); i++) {
+                    checkpoint.record(result.getStockId(i), result.getChange(i));
+                }
+            }
+            for (PortfolioListener listener : listeners) {
+                listener.holdingsChanged(result);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,374 @@
+package tmp;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+
+// An expense ledger kept in memory-mapped files instead of on the heap, for archives too big for
+// ExpenseTracker. It is a store on its own, not a backend the tracker can switch to: the tracker's
+// indexes and rollups live on the heap by design. Rows move between the two a page at a time, with
+// readBatch() on one side and addExpenses() on the other. records.bin holds a header and one fixed-width record per id; the strings go to
+// text.bin, each as a length and its UTF-8 bytes, and a record points at them by file offset. The OS
+// pages both files in and out, so the heap holds nothing per row and opening a ledger is a remap.
+//
+// Ids are handed out in order and never reused, so the record of an id sits at a fixed offset and
+// finding it needs no index. Deleting marks the record; editing rewrites it in place and appends
+// any new text, leaving the old text unreferenced. The header keeps the row count and the sum, so
+// both are O(1). It is also marked dirty while the ledger is open: a ledger that was not closed is
+// scanned once on the next open to recover the header from the records.
+//
+// Writes reach the page cache at once and survive the JVM dying; flush() forces them to the disk.
+public class MappedLedger implements AutoCloseable {
+    private static final int MAGIC = 0x4C45444D; // "LEDM"
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int RECORD_BYTES = 40;
+    private static final int RECORD_SHIFT = 20; // records per region, as a power of two
+    private static final long RECORD_REGION_BYTES = (long) RECORD_BYTES << RECORD_SHIFT;
+    private static final int TEXT_REGION_BYTES = 1 << 26;
+    private static final int INTERNED_TEXT = 4096; // strings remembered for reuse, to keep the heap flat
+
+    // Header fields
+    private static final int COUNT = 8; // records used, deleted ones and unused ids included
+    private static final int LIVE = 16;
+    private static final int SUM_CENTS = 24;
+    private static final int TEXT_END = 32;
+    private static final int CLEAN = 40;
+
+    // Record fields; a record whose id is 0 was never written
+    private static final int ID = 0;
+    private static final int AMOUNT_CENTS = 8;
+    private static final int COMPANY = 16;
+    private static final int DESCRIPTION = 24;
+    private static final int EPOCH_DAY = 32;
+    private static final int FLAGS = 36;
+    private static final int DELETED = 1;
+
+    private final FileChannel records;
+    private final FileChannel text;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer[] recordRegions = new MappedByteBuffer[0];
+    private MappedByteBuffer[] textRegions = new MappedByteBuffer[0];
+    private final HashMap<String, Long> textOffsets = new HashMap<>();
+
+    private long count;
+    private long live;
+    private volatile long sumCents;
+    private long textEnd;
+
+    private MappedLedger(FileChannel records, FileChannel text) throws IOException {
+        this.records = records;
+        this.text = text;
+        this.header = records.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+    }
+
+    // Opens the ledger in directory, creating an empty one if there is none
+    public static MappedLedger open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel records = FileChannel.open(directory.resolve("records.bin"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel text = FileChannel.open(directory.resolve("text.bin"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = records.size() == 0;
+            MappedLedger ledger = new MappedLedger(records, text);
+            ledger.load(created);
+            return ledger;
+        } catch (IOException | RuntimeException e) {
+            records.close();
+            text.close();
+            throw e;
+        }
+    }
+
+    // Returns the new row's id
+    public synchronized long addExpense(Expense expense) {
+        long id = count + 1;
+        append(id, expense.getCompany(), expense.getDescription(), Math.round(expense.getAmount() * 100),
+                (int) LocalDate.parse(expense.getDate()).toEpochDay());
+        return id;
+    }
+
+    // Appends a whole batch. Rows the batch gives an id keep it, so the ids must be new and
+    // increasing; the ids skipped over are never used. The others get new ids.
+    public synchronized void addExpenses(ExpenseBatch batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            long id = batch.getId(i);
+            if (id != 0 && id <= count) {
+                throw new IllegalArgumentException("Expense id " + id + " is invalid or already in use");
+            }
+            append(id == 0 ? count + 1 : id, batch.getCompany(i), batch.getDescription(i), batch.getAmountCents(i), batch.getEpochDay(i));
+        }
+    }
+
+    // False when no row has the id (any more)
+    public synchronized boolean editExpenseById(long id, Expense expense) {
+        int day = (int) LocalDate.parse(expense.getDate()).toEpochDay();
+        if (!exists(id)) {
+            return false;
+        }
+        MappedByteBuffer region = recordRegion(id);
+        int at = recordOffset(id);
+        long cents = Math.round(expense.getAmount() * 100);
+        long oldCents = region.getLong(at + AMOUNT_CENTS);
+        region.putLong(at + COMPANY, writeText(expense.getCompany()));
+        region.putLong(at + DESCRIPTION, writeText(expense.getDescription()));
+        region.putLong(at + AMOUNT_CENTS, cents);
+        region.putInt(at + EPOCH_DAY, day);
+        sumCents += cents - oldCents;
+        header.putLong(SUM_CENTS, sumCents);
+        return true;
+    }
+
+    // False when no row has the id (any more)
+    public synchronized boolean deleteExpenseById(long id) {
+        if (!exists(id)) {
+            return false;
+        }
+        MappedByteBuffer region = recordRegion(id);
+        int at = recordOffset(id);
+        region.putInt(at + FLAGS, DELETED);
+        live--;
+        sumCents -= region.getLong(at + AMOUNT_CENTS);
+        header.putLong(LIVE, live);
+        header.putLong(SUM_CENTS, sumCents);
+        return true;
+    }
+
+    // Null when no row has the id
+    public synchronized Expense getExpenseById(long id) {
+        if (!exists(id)) {
+            return null;
+        }
+        MappedByteBuffer region = recordRegion(id);
+        int at = recordOffset(id);
+        return new Expense(readText(region.getLong(at + COMPANY)), readText(region.getLong(at + DESCRIPTION)),
+                region.getLong(at + AMOUNT_CENTS) / 100.0, LocalDate.ofEpochDay(region.getInt(at + EPOCH_DAY)).toString());
+    }
+
+    // Up to maxRows rows that are not deleted, in id order from fromId on, each with its id; the
+    // next page starts after the last id returned. An empty batch means there are no more rows.
+    public synchronized ExpenseBatch readBatch(long fromId, int maxRows) {
+        ExpenseBatch batch = new ExpenseBatch(Math.min(maxRows, 1024));
+        for (long id = Math.max(fromId, 1); id <= count && batch.size() < maxRows; id++) {
+            if (exists(id)) {
+                MappedByteBuffer region = recordRegion(id);
+                int at = recordOffset(id);
+                batch.add(id, readText(region.getLong(at + COMPANY)), readText(region.getLong(at + DESCRIPTION)),
+                        region.getLong(at + AMOUNT_CENTS), region.getInt(at + EPOCH_DAY));
+            }
+        }
+        return batch;
+    }
+
+    public double getSumOfExpenses() {
+        return sumCents / 100.0;
+    }
+
+    public long getSumCents() {
+        return sumCents;
+    }
+
+    // Rows not deleted
+    public synchronized long size() {
+        return live;
+    }
+
+    // The id the next new row will get
+    public synchronized long getNextId() {
+        return count + 1;
+    }
+
+    // Sum over the records themselves, for checking the header's; reads the whole file
+    public synchronized long recomputeSumCents() {
+        long sum = 0;
+        for (long id = 1; id <= count; id++) {
+            if (exists(id)) {
+                sum += recordRegion(id).getLong(recordOffset(id) + AMOUNT_CENTS);
+            }
+        }
+        return sum;
+    }
+
+    // Forces every change so far to the disk
+    public synchronized void flush() {
+        for (MappedByteBuffer region : recordRegions) {
+            if (region != null) {
+                region.force();
+            }
+        }
+        for (MappedByteBuffer region : textRegions) {
+            if (region != null) {
+                region.force();
+            }
+        }
+        header.force();
+    }
+
+    // The mappings themselves are released when they are garbage collected; Java 17 has no unmap
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        header.putInt(CLEAN, 1);
+        header.force();
+        records.close();
+        text.close();
+    }
+
+    private void load(boolean created) throws IOException {
+        if (created) {
+            header.putInt(0, MAGIC);
+            header.putInt(4, FORMAT);
+        } else if (header.getInt(0) != MAGIC || header.getInt(4) != FORMAT) {
+            throw new IOException("Not a mapped ledger");
+        }
+        count = header.getLong(COUNT);
+        live = header.getLong(LIVE);
+        sumCents = header.getLong(SUM_CENTS);
+        textEnd = header.getLong(TEXT_END);
+        if (!created && header.getInt(CLEAN) == 0) {
+            recover();
+        }
+        header.putInt(CLEAN, 0);
+        header.force();
+    }
+
+    // Rebuilds the header from the records after the ledger was not closed. Records are written
+    // before the header, so every row the header knows of is there, and any row added after it
+    // was last written is found by its id.
+    private void recover() throws IOException {
+        long slots = (records.size() - HEADER_BYTES) / RECORD_BYTES;
+        count = 0;
+        live = 0;
+        sumCents = 0;
+        textEnd = 0;
+        for (long id = 1; id <= slots; id++) {
+            MappedByteBuffer region = recordRegion(id);
+            int at = recordOffset(id);
+            if (region.getLong(at + ID) != id) {
+                continue;
+            }
+            count = id;
+            textEnd = Math.max(textEnd, textEntryEnd(region.getLong(at + COMPANY)));
+            textEnd = Math.max(textEnd, textEntryEnd(region.getLong(at + DESCRIPTION)));
+            if ((region.getInt(at + FLAGS) & DELETED) == 0) {
+                live++;
+                sumCents += region.getLong(at + AMOUNT_CENTS);
+            }
+        }
+        writeHeader();
+    }
+
+    private void append(long id, String company, String description, long cents, int epochDay) {
+        // The text first and the id last, so a record with its id in place is complete
+        long companyOffset = writeText(company);
+        long descriptionOffset = writeText(description);
+        MappedByteBuffer region = recordRegion(id);
+        int at = recordOffset(id);
+        region.putLong(at + AMOUNT_CENTS, cents);
+        region.putLong(at + COMPANY, companyOffset);
+        region.putLong(at + DESCRIPTION, descriptionOffset);
+        region.putInt(at + EPOCH_DAY, epochDay);
+        region.putInt(at + FLAGS, 0);
+        region.putLong(at + ID, id);
+        count = id;
+        live++;
+        sumCents += cents;
+        writeHeader();
+    }
+
+    private void writeHeader() {
+        header.putLong(COUNT, count);
+        header.putLong(LIVE, live);
+        header.putLong(SUM_CENTS, sumCents);
+        header.putLong(TEXT_END, textEnd);
+    }
+
+    private boolean exists(long id) {
+        if (id <= 0 || id > count) {
+            return false;
+        }
+        MappedByteBuffer region = recordRegion(id);
+        int at = recordOffset(id);
+        return region.getLong(at + ID) == id && (region.getInt(at + FLAGS) & DELETED) == 0;
+    }
+
+    private MappedByteBuffer recordRegion(long id) {
+        int index = (int) ((id - 1) >>> RECORD_SHIFT);
+        if (index >= recordRegions.length) {
+            recordRegions = Arrays.copyOf(recordRegions, Math.max(index + 1, recordRegions.length * 2));
+        }
+        if (recordRegions[index] == null) {
+            // Mapping past the end of the file grows it; the new records read as zeros
+            recordRegions[index] = map(records, HEADER_BYTES + index * RECORD_REGION_BYTES, RECORD_REGION_BYTES);
+        }
+        return recordRegions[index];
+    }
+
+    private static int recordOffset(long id) {
+        return (int) ((id - 1) & ((1 << RECORD_SHIFT) - 1)) * RECORD_BYTES;
+    }
+
+    // Offset of the text in text.bin; an entry never straddles two regions
+    private long writeText(String value) {
+        Long known = textOffsets.get(value);
+        if (known != null) {
+            return known;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length + 4 > TEXT_REGION_BYTES) {
+            throw new IllegalArgumentException("Text too long: " + bytes.length + " bytes");
+        }
+        if ((textEnd % TEXT_REGION_BYTES) + 4 + bytes.length > TEXT_REGION_BYTES) {
+            textEnd = (textEnd / TEXT_REGION_BYTES + 1) * TEXT_REGION_BYTES;
+        }
+        long offset = textEnd;
+        MappedByteBuffer region = textRegion(offset);
+        int at = (int) (offset % TEXT_REGION_BYTES);
+        region.putInt(at, bytes.length);
+        region.put(at + 4, bytes);
+        textEnd += 4 + bytes.length;
+        if (textOffsets.size() == INTERNED_TEXT) {
+            textOffsets.clear();
+        }
+        textOffsets.put(value, offset);
+        return offset;
+    }
+
+    private String readText(long offset) {
+        MappedByteBuffer region = textRegion(offset);
+        int at = (int) (offset % TEXT_REGION_BYTES);
+        byte[] bytes = new byte[region.getInt(at)];
+        region.get(at + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private long textEntryEnd(long offset) {
+        return offset + 4 + textRegion(offset).getInt((int) (offset % TEXT_REGION_BYTES));
+    }
+
+    private MappedByteBuffer textRegion(long offset) {
+        int index = (int) (offset / TEXT_REGION_BYTES);
+        if (index >= textRegions.length) {
+            textRegions = Arrays.copyOf(textRegions, Math.max(index + 1, textRegions.length * 2));
+        }
+        if (textRegions[index] == null) {
+            textRegions[index] = map(text, (long) index * TEXT_REGION_BYTES, TEXT_REGION_BYTES);
+        }
+        return textRegions[index];
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package tmp;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Process-wide latency histograms and counters for the hot paths. Recording is a few atomic adds,
+// so the call sites time themselves unconditionally:
+//     long start = System.nanoTime();
+//     ...
+//     Metrics.ADD_EXPENSE.recordSince(start);
+// Everything is readable over JMX once register() has been called (tmp:type=Latency,name=... and
+// tmp:type=Metrics), and logged every N seconds when the finance.metrics.log property is set to N.
+public class Metrics implements MetricsMBean {
+    public static final LatencyHistogram ADD_EXPENSE = new LatencyHistogram("addExpense");
+    public static final LatencyHistogram EDIT_EXPENSE = new LatencyHistogram("editExpense");
+    public static final LatencyHistogram DELETE_EXPENSE = new LatencyHistogram("deleteExpense");
+    public static final LatencyHistogram UPDATE_TABLE = new LatencyHistogram("updateTable");
+    public static final LatencyHistogram EXPORT_CSV = new LatencyHistogram("exportToCSV");
+    public static final LatencyHistogram BUY_STOCK = new LatencyHistogram("buyStock");
+    public static final LatencyHistogram SELL_STOCK = new LatencyHistogram("sellStock");
+    public static final LatencyHistogram GET_CHANGED_STOCKS = new LatencyHistogram("getChangedStocks");
+    public static final LatencyHistogram EDT_DISPATCH = new LatencyHistogram("edtDispatch");
+    public static final LatencyHistogram NAVIGATE = new LatencyHistogram("navigate");
+
+    public static final LongAdder ROWS_ADDED = new LongAdder();
+    public static final LongAdder ROWS_EDITED = new LongAdder();
+    public static final LongAdder ROWS_DELETED = new LongAdder();
+    public static final LongAdder ROWS_EXPORTED = new LongAdder();
+    public static final LongAdder TRADES_ACCEPTED = new LongAdder();
+    public static final LongAdder TRADES_REJECTED = new LongAdder();
+    public static final LongAdder SHARES_TRADED = new LongAdder();
+    public static final LongAdder EDT_STALLS = new LongAdder();
+    public static final LongAdder ROWS_CATEGORIZED = new LongAdder();
+    public static final LongAdder RULE_RELOADS = new LongAdder();
+    public static final LongAdder RULE_RELOADS_FAILED = new LongAdder();
+    public static final LongAdder SNAPSHOTS_FAILED = new LongAdder();
+
+    private static final Logger LOG = Logger.getLogger(Metrics.class.getName());
+    private static final LatencyHistogram[] histograms = {
+            ADD_EXPENSE, EDIT_EXPENSE, DELETE_EXPENSE, UPDATE_TABLE, EXPORT_CSV, BUY_STOCK, SELL_STOCK, GET_CHANGED_STOCKS, EDT_DISPATCH, NAVIGATE};
+    private static boolean registered = false;
+    private static ScheduledExecutorService logger;
+
+    private Metrics() {
+    }
+
+    // Registers every histogram and the counters with the platform MBean server; later calls do nothing
+    public static synchronized void register() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (LatencyHistogram histogram : histograms) {
+                server.registerMBean(histogram, new ObjectName("tmp:type=Latency,name=" + histogram.getName()));
+            }
+            server.registerMBean(new Metrics(), new ObjectName("tmp:type=Metrics"));
+        } catch (JMException e) {
+            LOG.log(Level.WARNING, "Could not register the metrics over JMX", e);
+        }
+    }
+
+    // Starts the periodic log line if finance.metrics.log names a period in seconds
+    public static void startLoggingFromProperty() {
+        Long seconds = Long.getLong("finance.metrics.log");
+        if (seconds != null && seconds > 0) {
+            startLogging(seconds);
+        }
+    }
+
+    public static synchronized void startLogging(long periodSeconds) {
+        if (logger != null) {
+            return;
+        }
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-log");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(() -> LOG.info(summary()), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    // One line with every operation that has run so far, then the counters
+    public static String summary() {
+        StringBuilder out = new StringBuilder("metrics:");
+        for (LatencyHistogram histogram : histograms) {
+            if (histogram.getCount() > 0) {
+                histogram.appendSummary(out.append(' ')).append(';');
+            }
+        }
+        return out.append(" rowsAdded=").append(ROWS_ADDED.sum())
+                .append(" rowsEdited=").append(ROWS_EDITED.sum())
+                .append(" rowsDeleted=").append(ROWS_DELETED.sum())
+                .append(" rowsExported=").append(ROWS_EXPORTED.sum())
+                .append(" tradesAccepted=").append(TRADES_ACCEPTED.sum())
+                .append(" tradesRejected=").append(TRADES_REJECTED.sum())
+                .append(" sharesTraded=").append(SHARES_TRADED.sum())
+                .append(" edtStalls=").append(EDT_STALLS.sum())
+                .append(" rowsCategorized=").append(ROWS_CATEGORIZED.sum())
+                .append(" ruleReloads=").append(RULE_RELOADS.sum())
+                .append(" ruleReloadsFailed=").append(RULE_RELOADS_FAILED.sum())
+                .append(" snapshotsFailed=").append(SNAPSHOTS_FAILED.sum())
+                .toString();
+    }
+
+    @Override
+    public long getRowsAdded() {
+        return ROWS_ADDED.sum();
+    }
+
+    @Override
+    public long getRowsEdited() {
+        return ROWS_EDITED.sum();
+    }
+
+    @Override
+    public long getRowsDeleted() {
+        return ROWS_DELETED.sum();
+    }
+
+    @Override
+    public long getRowsExported() {
+        return ROWS_EXPORTED.sum();
+    }
+
+    @Override
+    public long getTradesAccepted() {
+        return TRADES_ACCEPTED.sum();
+    }
+
+    @Override
+    public long getTradesRejected() {
+        return TRADES_REJECTED.sum();
+    }
+
+    @Override
+    public long getSharesTraded() {
+        return SHARES_TRADED.sum();
+    }
+
+    @Override
+    public long getEdtStalls() {
+        return EDT_STALLS.sum();
+    }
+
+    @Override
+    public long getRowsCategorized() {
+        return ROWS_CATEGORIZED.sum();
+    }
+
+    @Override
+    public long getRuleReloads() {
+        return RULE_RELOADS.sum();
+    }
+
+    @Override
+    public long getRuleReloadsFailed() {
+        return RULE_RELOADS_FAILED.sum();
+    }
+
+    @Override
+    public long getSnapshotsFailed() {
+        return SNAPSHOTS_FAILED.sum();
+    }
+
+    @Override
+    public String getSummary() {
+        return summary();
+    }
+}
@@ -0,0 +1,30 @@
+package tmp;
+
+// JMX view of the Metrics counters, registered as tmp:type=Metrics
+public interface MetricsMBean {
+    long getRowsAdded();
+
+    long getRowsEdited();
+
+    long getRowsDeleted();
+
+    long getRowsExported();
+
+    long getTradesAccepted();
+
+    long getTradesRejected();
+
+    long getSharesTraded();
+
+    long getEdtStalls();
+
+    long getRowsCategorized();
+
+    long getRuleReloads();
+
+    long getRuleReloadsFailed();
+
+    long getSnapshotsFailed();
+
+    String getSummary();
+}
@@ -0,0 +1,38 @@
+package tmp;
+
+import java.io.IOException;
+
+// The holdings as CSV: the total number of shares, then one row per symbol. Writes a snapshot
+// taken when the export is created, so it can be written from any thread while trading goes on.
+public class PortfolioCsvExport implements CsvRowSource {
+    private final PortfolioSnapshot snapshot;
+
+    public PortfolioCsvExport(ManagePortfolio managePortfolio) {
+        this(managePortfolio.snapshot());
+    }
+
+    public PortfolioCsvExport(PortfolioSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public int getRowCount() {
+        return snapshot.size();
+    }
+
+    @Override
+    public void writeHeader(CsvWriter out) throws IOException {
+        // Write the total portfolio value, then the header for the stocks
+        out.writeField("Total # of stocks owned");
+        out.writeField(snapshot.getTotalShares());
+        out.endRow();
+        out.writeRow("Stock Name", "Quantity");
+    }
+
+    @Override
+    public void writeRow(int row, CsvWriter out) throws IOException {
+        out.writeField(snapshot.getRegistry().getSymbol(row));
+        out.writeField(snapshot.getQuantity(row));
+        out.endRow();
+    }
+}
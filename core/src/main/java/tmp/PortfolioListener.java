@@ -0,0 +1,6 @@
+package tmp;
+
+// Change notifications from ManagePortfolio, delivered once per trade or batch on the trading thread
+public interface PortfolioListener {
+    void holdingsChanged(TradeResult result);
+}
@@ -0,0 +1,50 @@
+package tmp;
+
+import java.util.Arrays;
+
+// The holdings as they were at one moment, from ManagePortfolio.snapshot(): every trade, batches
+// included, is either wholly in it or not at all. The universe is fixed and small, so this is a
+// single copy of the quantities, and while nothing trades the same snapshot is handed out again.
+public class PortfolioSnapshot {
+    private final SymbolRegistry registry;
+    private final long version;
+    private final long[] quantities;
+    private final long totalShares;
+
+    PortfolioSnapshot(SymbolRegistry registry, long version, long[] quantities) {
+        this.registry = registry;
+        this.version = version;
+        this.quantities = quantities;
+        long total = 0;
+        for (long quantity : quantities) {
+            total += quantity;
+        }
+        this.totalShares = total;
+    }
+
+    // The portfolio's version when the snapshot was taken; see ManagePortfolio.getVersion
+    public long getVersion() {
+        return version;
+    }
+
+    public SymbolRegistry getRegistry() {
+        return registry;
+    }
+
+    public int size() {
+        return quantities.length;
+    }
+
+    public long getQuantity(int stockId) {
+        return quantities[stockId];
+    }
+
+    public long getTotalShares() {
+        return totalShares;
+    }
+
+    // Indexed by stock id; a copy the caller may change
+    public long[] getQuantities() {
+        return Arrays.copyOf(quantities, quantities.length);
+    }
+}
@@ -0,0 +1,79 @@
+package tmp;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free share counts indexed by symbol id. Each symbol owns a dense slot in an AtomicLongArray, padded to its own
+// cache line so writers on different symbols don't contend. Trades never allocate, sells use a
+// CAS loop so a position can't go negative (and buys one so it can't pass a limit), and the total is derived from the slots rather than
+// kept in a second counter that could drift from them.
+public class PositionBook {
+    private static final int STRIDE = 8; // 8 longs = 64 bytes per slot
+
+    private final int size;
+    private final AtomicLongArray quantities;
+
+    public PositionBook(int size) {
+        this.size = size;
+        quantities = new AtomicLongArray(size * STRIDE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long get(int slot) {
+        return quantities.get(slot * STRIDE);
+    }
+
+    public void set(int slot, long quantity) {
+        quantities.set(slot * STRIDE, quantity);
+    }
+
+    public void add(int slot, long quantity) {
+        quantities.addAndGet(slot * STRIDE, quantity);
+    }
+
+    // Adds the shares only if the position stays at or below max; returns false and changes nothing otherwise
+    public boolean tryAdd(int slot, long quantity, long max) {
+        int i = slot * STRIDE;
+        while (true) {
+            long current = quantities.get(i);
+            if (current > max - quantity) {
+                return false;
+            }
+            if (quantities.compareAndSet(i, current, current + quantity)) {
+                return true;
+            }
+        }
+    }
+
+    // Removes the shares only if that many are held; returns false and changes nothing otherwise
+    public boolean tryRemove(int slot, long quantity) {
+        int i = slot * STRIDE;
+        while (true) {
+            long current = quantities.get(i);
+            if (current < quantity) {
+                return false;
+            }
+            if (quantities.compareAndSet(i, current, current - quantity)) {
+                return true;
+            }
+        }
+    }
+
+    public long total() {
+        long total = 0;
+        for (int slot = 0; slot < size; slot++) {
+            total += quantities.get(slot * STRIDE);
+        }
+        return total;
+    }
+
+    public long[] copyQuantities() {
+        long[] copy = new long[size];
+        for (int slot = 0; slot < size; slot++) {
+            copy[slot] = quantities.get(slot * STRIDE);
+        }
+        return copy;
+    }
+}
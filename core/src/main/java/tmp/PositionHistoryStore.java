@@ -0,0 +1,443 @@
+package tmp;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+// Daily position history. Days are grouped into chunks of CHUNK_DAYS, one file per chunk. Inside a
+// chunk each symbol is stored as runs of (zigzag varint delta from the previous run's value, varint
+// run length), so a symbol that didn't move costs a couple of bytes per chunk. An offset table in
+// the chunk header lets a single-symbol query read only that symbol's bytes. Every day from the
+// first recorded one onwards is covered; days that weren't recorded carry the previous positions.
+public class PositionHistoryStore {
+    private static final int CHUNK_DAYS = 128;
+    private static final int MAGIC = 0x48495354; // "HIST"
+
+    private final Path directory;
+    private final SymbolRegistry registry;
+    private final Path symbolsFile;
+    private final ArrayList<String> historySymbols = new ArrayList<>();
+    private final HashMap<String, Integer> historyIndex = new HashMap<>();
+    private final int[] historyIndexById;
+
+    // The chunk currently being written; older chunks are only ever read from disk
+    private int openChunk = Integer.MIN_VALUE;
+    private int firstDay;
+    private int lastDay;
+    private Series[] series = new Series[0];
+
+    private static class Series {
+        long[] values = new long[2];
+        int[] lengths = new int[2];
+        int runs = 0;
+
+        void append(long value, int days) {
+            if (runs > 0 && values[runs - 1] == value) {
+                lengths[runs - 1] += days;
+                return;
+            }
+            if (runs == values.length) {
+                values = Arrays.copyOf(values, runs * 2);
+                lengths = Arrays.copyOf(lengths, runs * 2);
+            }
+            values[runs] = value;
+            lengths[runs++] = days;
+        }
+
+        // Replaces the value of the last day
+        void setLast(long value) {
+            if (values[runs - 1] == value) {
+                return;
+            }
+            if (--lengths[runs - 1] == 0) {
+                runs--;
+            }
+            append(value, 1);
+        }
+
+        long last() {
+            return runs == 0 ? 0 : values[runs - 1];
+        }
+    }
+
+    private PositionHistoryStore(Path directory, SymbolRegistry registry) {
+        this.directory = directory;
+        this.registry = registry;
+        this.symbolsFile = directory.resolve("symbols.txt");
+        this.historyIndexById = new int[registry.size()];
+    }
+
+    public static PositionHistoryStore open(Path directory, SymbolRegistry registry) throws IOException {
+        Files.createDirectories(directory);
+        PositionHistoryStore store = new PositionHistoryStore(directory, registry);
+        store.loadSymbols();
+        store.loadOpenChunk();
+        return store;
+    }
+
+    // Records the end-of-day positions (indexed by symbol id) for epochDay. Recording the same day
+    // again overwrites it; days skipped since the last recording carry the last known positions.
+    public synchronized void recordDay(int epochDay, long[] quantities) throws IOException {
+        if (openChunk != Integer.MIN_VALUE && epochDay < lastDay) {
+            throw new IllegalArgumentException("History is append-only; last recorded day is " + lastDay);
+        }
+        int chunk = Math.floorDiv(epochDay, CHUNK_DAYS);
+        if (openChunk == Integer.MIN_VALUE) {
+            startChunk(chunk, epochDay);
+        }
+        while (openChunk < chunk) {
+            // Fill the rest of the chunk with the last positions and move on to the next one
+            int chunkEnd = (openChunk + 1) * CHUNK_DAYS - 1;
+            carryForward(chunkEnd);
+            writeChunk();
+            startChunk(openChunk + 1, (openChunk + 1) * CHUNK_DAYS);
+        }
+
+        boolean overwrite = epochDay == lastDay && lastDay >= firstDay;
+        carryForward(epochDay - 1);
+        ensureSeries();
+        // Symbols that are no longer in the registry keep their last value
+        long[] next = new long[series.length];
+        for (int i = 0; i < series.length; i++) {
+            next[i] = series[i].last();
+        }
+        for (int id = 0; id < quantities.length; id++) {
+            next[historyIndexById[id]] = quantities[id];
+        }
+        for (int i = 0; i < series.length; i++) {
+            if (overwrite) {
+                series[i].setLast(next[i]);
+            } else {
+                series[i].append(next[i], 1);
+            }
+        }
+        lastDay = epochDay;
+        writeChunk();
+    }
+
+    // Holdings of every symbol (indexed by id) at the end of epochDay; zeros before history starts
+    public synchronized long[] getHoldingsOn(int epochDay) throws IOException {
+        long[] holdings = new long[registry.size()];
+        int chunk = Math.floorDiv(epochDay, CHUNK_DAYS);
+        if (chunk == openChunk) {
+            if (epochDay < firstDay) {
+                return holdings;
+            }
+            int day = Math.min(epochDay, lastDay);
+            for (int id = 0; id < holdings.length; id++) {
+                holdings[id] = valueAt(series[historyIndexById[id]], day - firstDay);
+            }
+            return holdings;
+        }
+        ByteBuffer chunkBytes = readChunk(chunk);
+        if (chunkBytes == null) {
+            return chunk > openChunk && openChunk != Integer.MIN_VALUE ? getHoldingsOn(lastDay) : holdings;
+        }
+        ChunkHeader header = new ChunkHeader(chunkBytes);
+        if (epochDay < header.firstDay) {
+            return holdings;
+        }
+        for (int id = 0; id < holdings.length; id++) {
+            holdings[id] = header.valueAt(chunkBytes, historyIndexById[id], Math.min(epochDay, header.lastDay));
+        }
+        return holdings;
+    }
+
+    // One value per day from fromDay to toDay inclusive; only that symbol's bytes are read
+    public synchronized long[] getSymbolHistory(String symbol, int fromDay, int toDay) throws IOException {
+        long[] result = new long[Math.max(0, toDay - fromDay + 1)];
+        Integer index = historyIndex.get(symbol);
+        if (index == null || result.length == 0) {
+            return result;
+        }
+        int firstChunk = Math.floorDiv(fromDay, CHUNK_DAYS);
+        int lastChunk = Math.floorDiv(toDay, CHUNK_DAYS);
+        for (int chunk = firstChunk; chunk <= lastChunk; chunk++) {
+            int from = Math.max(fromDay, chunk * CHUNK_DAYS);
+            int to = Math.min(toDay, chunk * CHUNK_DAYS + CHUNK_DAYS - 1);
+            if (chunk == openChunk) {
+                Series s = index < series.length ? series[index] : null;
+                for (int day = Math.max(from, firstDay); day <= to; day++) {
+                    result[day - fromDay] = s == null ? 0 : valueAt(s, Math.min(day, lastDay) - firstDay);
+                }
+            } else if (openChunk != Integer.MIN_VALUE && chunk > openChunk) {
+                long last = index < series.length ? series[index].last() : 0;
+                Arrays.fill(result, from - fromDay, to - fromDay + 1, last);
+            } else {
+                readSymbolRange(chunk, index, from, to, result, fromDay);
+            }
+        }
+        return result;
+    }
+
+    private void readSymbolRange(int chunk, int index, int from, int to, long[] result, int resultDay) throws IOException {
+        Path file = chunkFile(chunk);
+        if (!Files.exists(file)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(20);
+            readFully(channel, head, 0);
+            head.flip();
+            if (head.getInt() != MAGIC) {
+                throw new IOException("Not a history chunk: " + file);
+            }
+            head.getInt();
+            int chunkFirst = head.getInt();
+            int chunkLast = head.getInt();
+            int symbolCount = head.getInt();
+            if (index >= symbolCount) {
+                return;
+            }
+            ByteBuffer offsets = ByteBuffer.allocate(8);
+            readFully(channel, offsets, 20 + 4L * index);
+            offsets.flip();
+            int start = offsets.getInt();
+            int end = offsets.getInt();
+            ByteBuffer data = ByteBuffer.allocate(end - start);
+            readFully(channel, data, 20 + 4L * (symbolCount + 1) + start);
+            data.flip();
+
+            int day = chunkFirst;
+            long value = 0;
+            while (data.hasRemaining() && day <= to) {
+                value += zigzagDecode(readVarLong(data));
+                int length = (int) readVarLong(data);
+                for (int d = Math.max(day, from); d < day + length && d <= to; d++) {
+                    result[d - resultDay] = value;
+                }
+                day += length;
+            }
+            // Days past the chunk's last recorded day (only possible in the newest chunk) keep the last value
+            for (int d = Math.max(from, chunkLast + 1); d <= to; d++) {
+                result[d - resultDay] = value;
+            }
+        }
+    }
+
+    private static class ChunkHeader {
+        final int firstDay;
+        final int lastDay;
+        final int symbolCount;
+        final int dataStart;
+
+        ChunkHeader(ByteBuffer bytes) throws IOException {
+            if (bytes.getInt(0) != MAGIC) {
+                throw new IOException("Not a history chunk");
+            }
+            firstDay = bytes.getInt(8);
+            lastDay = bytes.getInt(12);
+            symbolCount = bytes.getInt(16);
+            dataStart = 20 + 4 * (symbolCount + 1);
+        }
+
+        long valueAt(ByteBuffer bytes, int index, int day) {
+            if (index >= symbolCount) {
+                return 0;
+            }
+            ByteBuffer data = bytes.duplicate();
+            data.limit(dataStart + bytes.getInt(20 + 4 * (index + 1)));
+            data.position(dataStart + bytes.getInt(20 + 4 * index));
+            int start = firstDay;
+            long value = 0;
+            while (data.hasRemaining()) {
+                value += zigzagDecode(readVarLong(data));
+                start += (int) readVarLong(data);
+                if (day < start) {
+                    break;
+                }
+            }
+            return value;
+        }
+    }
+
+    private static long valueAt(Series s, int offset) {
+        int day = 0;
+        for (int run = 0; run < s.runs; run++) {
+            day += s.lengths[run];
+            if (offset < day) {
+                return s.values[run];
+            }
+        }
+        return s.last();
+    }
+
+    private void startChunk(int chunk, int day) {
+        long[] carried = new long[series.length];
+        for (int i = 0; i < series.length; i++) {
+            carried[i] = series[i].last();
+        }
+        openChunk = chunk;
+        firstDay = day;
+        lastDay = day - 1;
+        // An empty run remembers the value carried over from the previous chunk; it isn't written
+        for (int i = 0; i < series.length; i++) {
+            series[i] = new Series();
+            series[i].append(carried[i], 0);
+        }
+    }
+
+    // Extends every symbol's last value up to and including toDay
+    private void carryForward(int toDay) {
+        if (toDay > lastDay) {
+            ensureSeries();
+            for (Series s : series) {
+                s.append(s.last(), toDay - lastDay);
+            }
+            lastDay = toDay;
+        }
+    }
+
+    private void ensureSeries() {
+        if (series.length < historySymbols.size()) {
+            int old = series.length;
+            series = Arrays.copyOf(series, historySymbols.size());
+            for (int i = old; i < series.length; i++) {
+                series[i] = new Series();
+                if (lastDay >= firstDay) {
+                    series[i].append(0, lastDay - firstDay + 1);
+                }
+            }
+        }
+    }
+
+    private void writeChunk() throws IOException {
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        int[] offsets = new int[series.length + 1];
+        for (int i = 0; i < series.length; i++) {
+            offsets[i] = data.size();
+            long previous = 0;
+            for (int run = 0; run < series[i].runs; run++) {
+                if (series[i].lengths[run] == 0) {
+                    continue;
+                }
+                writeVarLong(data, zigzagEncode(series[i].values[run] - previous));
+                writeVarLong(data, series[i].lengths[run]);
+                previous = series[i].values[run];
+            }
+        }
+        offsets[series.length] = data.size();
+
+        Path tmp = directory.resolve("chunk.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(openChunk);
+            out.writeInt(firstDay);
+            out.writeInt(lastDay);
+            out.writeInt(series.length);
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            data.writeTo(out);
+        }
+        Files.move(tmp, chunkFile(openChunk), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private ByteBuffer readChunk(int chunk) throws IOException {
+        Path file = chunkFile(chunk);
+        return Files.exists(file) ? ByteBuffer.wrap(Files.readAllBytes(file)) : null;
+    }
+
+    private void loadOpenChunk() throws IOException {
+        int newest = Integer.MIN_VALUE;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "chunk-*.bin")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                newest = Math.max(newest, Integer.parseInt(name.substring(6, name.length() - 4)));
+            }
+        }
+        if (newest == Integer.MIN_VALUE) {
+            return;
+        }
+        ByteBuffer bytes = readChunk(newest);
+        ChunkHeader header = new ChunkHeader(bytes);
+        openChunk = newest;
+        firstDay = header.firstDay;
+        lastDay = header.lastDay;
+        series = new Series[header.symbolCount];
+        for (int i = 0; i < series.length; i++) {
+            series[i] = new Series();
+            ByteBuffer data = bytes.duplicate();
+            data.limit(header.dataStart + bytes.getInt(20 + 4 * (i + 1)));
+            data.position(header.dataStart + bytes.getInt(20 + 4 * i));
+            long value = 0;
+            while (data.hasRemaining()) {
+                value += zigzagDecode(readVarLong(data));
+                series[i].append(value, (int) readVarLong(data));
+            }
+        }
+        ensureSeries();
+    }
+
+    // History keeps its own append-only symbol numbering so it survives changes to the universe file
+    private void loadSymbols() throws IOException {
+        if (Files.exists(symbolsFile)) {
+            for (String symbol : Files.readAllLines(symbolsFile, StandardCharsets.UTF_8)) {
+                if (!symbol.isEmpty()) {
+                    historyIndex.put(symbol, historySymbols.size());
+                    historySymbols.add(symbol);
+                }
+            }
+        }
+        StringBuilder added = new StringBuilder();
+        for (int id = 0; id < registry.size(); id++) {
+            String symbol = registry.getSymbol(id);
+            Integer index = historyIndex.get(symbol);
+            if (index == null) {
+                index = historySymbols.size();
+                historyIndex.put(symbol, index);
+                historySymbols.add(symbol);
+                added.append(symbol).append('\n');
+            }
+            historyIndexById[id] = index;
+        }
+        if (added.length() > 0) {
+            Files.write(symbolsFile, added.toString().getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+    }
+
+    private Path chunkFile(int chunk) {
+        return directory.resolve("chunk-" + chunk + ".bin");
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    private static long zigzagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
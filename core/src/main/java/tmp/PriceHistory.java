@@ -0,0 +1,112 @@
+package tmp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+
+// Daily closing prices, one row per symbol over a shared, sorted axis of days. A symbol with no
+// close on some day carries its previous close; 0 means it has no price yet. Immutable once built.
+public class PriceHistory {
+    private final int[] days;
+    private final long[][] closesCents;
+    private final int skipped;
+
+    PriceHistory(int[] days, long[][] closesCents, int skipped) {
+        this.days = days;
+        this.closesCents = closesCents;
+        this.skipped = skipped;
+        for (long[] closes : closesCents) {
+            for (int day = 1; day < closes.length; day++) {
+                if (closes[day] == 0) {
+                    closes[day] = closes[day - 1];
+                }
+            }
+        }
+    }
+
+    // Lines are "yyyy-MM-dd,symbol,close"; unknown symbols and unreadable lines are counted in getSkipped().
+    // A close that is not positive fails the load, as 0 would read as no price and returns take its log
+    public static PriceHistory load(Path file, SymbolRegistry registry) throws IOException {
+        int size = 0;
+        int skipped = 0;
+        int[] lineDays = new int[1024];
+        int[] lineIds = new int[1024];
+        long[] lineCents = new long[1024];
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                int first = line.indexOf(',');
+                int second = line.indexOf(',', first + 1);
+                int stockId = first < 0 || second < 0 ? -1 : registry.find(line.substring(first + 1, second));
+                if (stockId < 0) {
+                    skipped++;
+                    continue;
+                }
+                try {
+                    int day = (int) LocalDate.parse(line.substring(0, first).trim()).toEpochDay();
+                    long cents = Math.round(Double.parseDouble(line.substring(second + 1).trim()) * 100);
+                    if (cents <= 0) {
+                        throw new IOException(file + " line " + lineNumber + ": close must be positive, got "
+                                + line.substring(second + 1).trim());
+                    }
+                    if (size == lineDays.length) {
+                        lineDays = Arrays.copyOf(lineDays, size * 2);
+                        lineIds = Arrays.copyOf(lineIds, size * 2);
+                        lineCents = Arrays.copyOf(lineCents, size * 2);
+                    }
+                    lineDays[size] = day;
+                    lineIds[size] = stockId;
+                    lineCents[size++] = cents;
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    skipped++;
+                }
+            }
+        }
+        return build(registry.size(), lineDays, lineIds, lineCents, size, skipped);
+    }
+
+    // Lines may come in any order; a later line for the same symbol and day wins
+    static PriceHistory build(int symbolCount, int[] lineDays, int[] lineIds, long[] lineCents, int size, int skipped) {
+        int[] days = Arrays.copyOf(lineDays, size);
+        Arrays.sort(days);
+        int distinct = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinct == 0 || days[distinct - 1] != days[i]) {
+                days[distinct++] = days[i];
+            }
+        }
+        days = Arrays.copyOf(days, distinct);
+        long[][] closes = new long[symbolCount][distinct];
+        for (int i = 0; i < size; i++) {
+            closes[lineIds[i]][Arrays.binarySearch(days, lineDays[i])] = lineCents[i];
+        }
+        return new PriceHistory(days, closes, skipped);
+    }
+
+    public int getDayCount() {
+        return days.length;
+    }
+
+    public int getSymbolCount() {
+        return closesCents.length;
+    }
+
+    public LocalDate getDate(int dayIndex) {
+        return LocalDate.ofEpochDay(days[dayIndex]);
+    }
+
+    public long getCloseCents(int stockId, int dayIndex) {
+        return closesCents[stockId][dayIndex];
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+}
@@ -0,0 +1,119 @@
+package tmp;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Mark-to-market value of the portfolio. It keeps its own copy of every position next to the last
+// price, one padded cache line per symbol like PositionBook, and a running total of the value in
+// cents: a tick adds quantity * (new - old price) and a trade change * price, so each is O(1)
+// whatever the number of symbols, and reading the value is a sum of striped counters.
+//
+// Writers of one symbol take turns on a flag in its line, so its quantity, price and share of the
+// total move together; were they separate atomics, a tick and a trade racing on the same symbol
+// could each see the other's write and count the product of the two changes twice. Writers of
+// different symbols never meet and nothing takes a monitor.
+public class PricingEngine {
+    private static final int STRIDE = 8; // 8 longs = 64 bytes per symbol
+    private static final int QUANTITY = 0;
+    private static final int PRICE = 1;
+    private static final int BUSY = 2;
+
+    private final int symbolCount;
+    private final AtomicLongArray slots;
+    private final LongAdder valueCents = new LongAdder();
+
+    // Tick-to-value latency, from the feed handing the tick over to the new value being visible
+    private final LongAdder tickCount = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public PricingEngine(int symbolCount) {
+        this.symbolCount = symbolCount;
+        slots = new AtomicLongArray(symbolCount * STRIDE);
+    }
+
+    public void onTick(int stockId, long priceCents, long receivedNanos) {
+        int slot = acquire(stockId);
+        try {
+            long oldPrice = slots.get(slot + PRICE);
+            slots.set(slot + PRICE, priceCents);
+            valueCents.add(slots.get(slot + QUANTITY) * (priceCents - oldPrice));
+        } finally {
+            slots.set(slot + BUSY, 0);
+        }
+        long latency = System.nanoTime() - receivedNanos;
+        tickCount.increment();
+        totalLatencyNanos.add(latency);
+        if (latency > maxLatencyNanos.get()) {
+            maxLatencyNanos.accumulateAndGet(latency, Math::max);
+        }
+    }
+
+    public void onPositionChanged(int stockId, long change) {
+        int slot = acquire(stockId);
+        try {
+            slots.set(slot + QUANTITY, slots.get(slot + QUANTITY) + change);
+            valueCents.add(change * slots.get(slot + PRICE));
+        } finally {
+            slots.set(slot + BUSY, 0);
+        }
+    }
+
+    public void setPosition(int stockId, long quantity) {
+        int slot = acquire(stockId);
+        try {
+            long change = quantity - slots.get(slot + QUANTITY);
+            slots.set(slot + QUANTITY, quantity);
+            valueCents.add(change * slots.get(slot + PRICE));
+        } finally {
+            slots.set(slot + BUSY, 0);
+        }
+    }
+
+    // O(1); a tick or trade under way is either wholly in the total or not yet in it
+    public double getMarketValue() {
+        return valueCents.sum() / 100.0;
+    }
+
+    // The value summed from the positions and prices, O(symbols); equal to getMarketValue() when
+    // nothing is changing
+    double recomputeMarketValue() {
+        long cents = 0;
+        for (int id = 0; id < symbolCount; id++) {
+            cents += slots.get(id * STRIDE + QUANTITY) * slots.get(id * STRIDE + PRICE);
+        }
+        return cents / 100.0;
+    }
+
+    // Last traded price, or 0 before the first tick for that stock
+    public double getPrice(int stockId) {
+        return slots.get(stockId * STRIDE + PRICE) / 100.0;
+    }
+
+    public long getTickCount() {
+        return tickCount.sum();
+    }
+
+    public double getMeanLatencyNanos() {
+        long ticks = tickCount.sum();
+        return ticks == 0 ? 0 : (double) totalLatencyNanos.sum() / ticks;
+    }
+
+    public long getMaxLatencyNanos() {
+        return maxLatencyNanos.get();
+    }
+
+    // The symbol's slot, once this thread holds its flag; the holder only does a few loads and stores
+    private int acquire(int stockId) {
+        int slot = stockId * STRIDE;
+        for (int spins = 1; !slots.compareAndSet(slot + BUSY, 0, 1); spins++) {
+            if (spins % 64 == 0) {
+                Thread.yield(); // the holder may have been descheduled
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,153 @@
+package tmp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+// Volatility, covariance and correlation, historical VaR and drawdown of the held symbols, computed
+// from a PriceHistory on the common fork-join pool. Reports are cached per window for the current
+// positions and prices, so asking again before anything changes returns an already completed future.
+public class RiskAnalytics {
+    private static final int TRADING_DAYS_PER_YEAR = 252;
+
+    private final ManagePortfolio portfolio;
+    private volatile PriceHistory prices;
+    private final HashMap<Integer, CompletableFuture<RiskReport>> reports = new HashMap<>();
+    private long reportsVersion = -1;
+    private long[] reportsQuantities;
+    private PriceHistory reportsPrices;
+
+    public RiskAnalytics(ManagePortfolio portfolio) {
+        this.portfolio = portfolio;
+    }
+
+    public void setPriceHistory(PriceHistory prices) {
+        this.prices = prices;
+    }
+
+    // Null until a price history has been set
+    public PriceHistory getPriceHistory() {
+        return prices;
+    }
+
+    // window is the number of most recent daily returns to use
+    public synchronized CompletableFuture<RiskReport> analyze(int window) {
+        PortfolioSnapshot holdings = portfolio.snapshot();
+        long version = holdings.getVersion();
+        PriceHistory prices = this.prices;
+        if (prices != reportsPrices) {
+            reports.clear();
+            reportsPrices = prices;
+            reportsQuantities = holdings.getQuantities();
+        } else if (version != reportsVersion) {
+            // The version also moves on trades that were rejected or undone, so compare the positions
+            long[] quantities = holdings.getQuantities();
+            if (!Arrays.equals(quantities, reportsQuantities)) {
+                reports.clear();
+                reportsQuantities = quantities;
+            }
+        }
+        reportsVersion = version;
+        long[] quantities = reportsQuantities;
+        return reports.computeIfAbsent(window, w -> CompletableFuture.supplyAsync(() -> compute(portfolio.getRegistry(), prices, quantities, w)));
+    }
+
+    // Symbols that are held but have no price at the start of the window are left out
+    static RiskReport compute(SymbolRegistry registry, PriceHistory prices, long[] quantities, int window) {
+        long start = System.nanoTime();
+        int days = prices == null ? 0 : Math.min(window, prices.getDayCount() - 1);
+        if (days < 2) {
+            return new RiskReport(registry, 0, new int[0], new double[0], new double[0][0], new double[0][0], 0, 0, 0, 0, 0);
+        }
+        int firstDay = prices.getDayCount() - days - 1;
+        IntList held = new IntList();
+        for (int id = 0; id < quantities.length; id++) {
+            if (quantities[id] != 0 && prices.getCloseCents(id, firstDay) > 0) {
+                held.add(id);
+            }
+        }
+        int[] stockIds = held.toArray();
+        int count = stockIds.length;
+
+        // Daily log returns, centred on each symbol's mean
+        double[][] returns = new double[count][days];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            double[] r = returns[i];
+            double sum = 0;
+            for (int t = 0; t < days; t++) {
+                r[t] = Math.log((double) prices.getCloseCents(stockIds[i], firstDay + t + 1) / prices.getCloseCents(stockIds[i], firstDay + t));
+                sum += r[t];
+            }
+            double mean = sum / days;
+            for (int t = 0; t < days; t++) {
+                r[t] -= mean;
+            }
+        });
+
+        // Each task fills one row of the upper triangle and its mirror; no two tasks write the same cell
+        double[][] covariance = new double[count][count];
+        IntStream.range(0, count).parallel().forEach(i -> {
+            double[] ri = returns[i];
+            for (int j = i; j < count; j++) {
+                double[] rj = returns[j];
+                double sum = 0;
+                for (int t = 0; t < days; t++) {
+                    sum += ri[t] * rj[t];
+                }
+                covariance[i][j] = sum / (days - 1);
+                covariance[j][i] = covariance[i][j];
+            }
+        });
+        double[] volatilities = new double[count];
+        double[][] correlation = new double[count][count];
+        for (int i = 0; i < count; i++) {
+            volatilities[i] = Math.sqrt(covariance[i][i] * TRADING_DAYS_PER_YEAR);
+        }
+        IntStream.range(0, count).parallel().forEach(i -> {
+            for (int j = 0; j < count; j++) {
+                double scale = Math.sqrt(covariance[i][i] * covariance[j][j]);
+                correlation[i][j] = scale == 0 ? 0 : covariance[i][j] / scale;
+            }
+        });
+
+        // Portfolio value on each day of the window, in cents, and the day-to-day profit and loss
+        long[] values = new long[days + 1];
+        IntStream.rangeClosed(0, days).parallel().forEach(t -> {
+            long value = 0;
+            for (int id : stockIds) {
+                value += quantities[id] * prices.getCloseCents(id, firstDay + t);
+            }
+            values[t] = value;
+        });
+        double[] profits = new double[days];
+        double sum = 0;
+        for (int t = 0; t < days; t++) {
+            profits[t] = (values[t + 1] - values[t]) / 100.0;
+            sum += profits[t];
+        }
+        double mean = sum / days;
+        double squares = 0;
+        for (double profit : profits) {
+            squares += (profit - mean) * (profit - mean);
+        }
+        double dailyVolatility = Math.sqrt(squares / (days - 1));
+
+        double[] sorted = profits.clone();
+        Arrays.parallelSort(sorted);
+        double valueAtRisk95 = Math.max(0, -sorted[(int) (0.05 * days)]);
+        double valueAtRisk99 = Math.max(0, -sorted[(int) (0.01 * days)]);
+
+        long peak = values[0];
+        double maxDrawdown = 0;
+        for (long value : values) {
+            peak = Math.max(peak, value);
+            if (peak > 0) {
+                maxDrawdown = Math.max(maxDrawdown, (double) (peak - value) / peak);
+            }
+        }
+
+        return new RiskReport(registry, days, stockIds, volatilities, covariance, correlation, dailyVolatility,
+                valueAtRisk95, valueAtRisk99, maxDrawdown, (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,87 @@
+package tmp;
+
+// Risk figures for the held symbols over a window of daily closes. Money is in dollars; returns,
+// volatilities and drawdown are fractions. Symbol i of the report is getStockId(i) in the registry.
+public class RiskReport {
+    private final SymbolRegistry registry;
+    private final int window;
+    private final int[] stockIds;
+    private final double[] volatilities;
+    private final double[][] covariance;
+    private final double[][] correlation;
+    private final double dailyVolatility;
+    private final double valueAtRisk95;
+    private final double valueAtRisk99;
+    private final double maxDrawdown;
+    private final double computeMillis;
+
+    RiskReport(SymbolRegistry registry, int window, int[] stockIds, double[] volatilities, double[][] covariance,
+               double[][] correlation, double dailyVolatility, double valueAtRisk95, double valueAtRisk99,
+               double maxDrawdown, double computeMillis) {
+        this.registry = registry;
+        this.window = window;
+        this.stockIds = stockIds;
+        this.volatilities = volatilities;
+        this.covariance = covariance;
+        this.correlation = correlation;
+        this.dailyVolatility = dailyVolatility;
+        this.valueAtRisk95 = valueAtRisk95;
+        this.valueAtRisk99 = valueAtRisk99;
+        this.maxDrawdown = maxDrawdown;
+        this.computeMillis = computeMillis;
+    }
+
+    // Number of daily returns the figures were computed from; 0 when there was nothing to analyze
+    public int getWindow() {
+        return window;
+    }
+
+    public int size() {
+        return stockIds.length;
+    }
+
+    public int getStockId(int i) {
+        return stockIds[i];
+    }
+
+    public String getStockName(int i) {
+        return registry.getSymbol(stockIds[i]);
+    }
+
+    // Annualized volatility of the symbol's daily log returns
+    public double getVolatility(int i) {
+        return volatilities[i];
+    }
+
+    // Of daily log returns
+    public double getCovariance(int i, int j) {
+        return covariance[i][j];
+    }
+
+    public double getCorrelation(int i, int j) {
+        return correlation[i][j];
+    }
+
+    // Standard deviation of the portfolio's daily profit and loss
+    public double getDailyVolatility() {
+        return dailyVolatility;
+    }
+
+    // One-day historical value at risk: the loss exceeded on only 5% (or 1%) of the days in the window
+    public double getValueAtRisk95() {
+        return valueAtRisk95;
+    }
+
+    public double getValueAtRisk99() {
+        return valueAtRisk99;
+    }
+
+    // Largest peak-to-trough fall in the portfolio's value over the window, as a fraction of the peak
+    public double getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    public double getComputeMillis() {
+        return computeMillis;
+    }
+}
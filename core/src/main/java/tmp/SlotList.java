@@ -0,0 +1,71 @@
+package tmp;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+// The slots of the rows in one index bucket (a day, a company, a search token). Taking a row out
+// of every bucket it is in used to mean searching each list for its slot, so instead each entry
+// keeps the store version its slot had when it was added: once the row is edited or deleted the
+// version moves on and the entry is skipped. Dead entries are dropped on a later add, once they
+// make up half of the list.
+public class SlotList {
+    private final ExpenseStore store;
+    private long[] entries = new long[2]; // version << 32 | slot
+    private int length = 0;
+    private int dead = 0;
+
+    public SlotList(ExpenseStore store) {
+        this.store = store;
+    }
+
+    public void add(int slot) {
+        if (dead > 4 && dead * 2 > length) {
+            compact();
+        }
+        if (length == entries.length) {
+            entries = Arrays.copyOf(entries, length * 2);
+        }
+        entries[length++] = (long) store.getVersion(slot) << 32 | slot;
+    }
+
+    // Called when a row in the list is about to be edited or deleted. The newest row is simply
+    // dropped, so undoing an add costs nothing.
+    public void retire(int slot) {
+        if (length > 0 && entries[length - 1] == ((long) store.getVersion(slot) << 32 | slot)) {
+            length--;
+        } else {
+            dead++;
+        }
+    }
+
+    // Number of live rows
+    public int size() {
+        return length - dead;
+    }
+
+    public boolean isEmpty() {
+        return length == dead;
+    }
+
+    // The live slots, in the order they were added
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < length; i++) {
+            int slot = (int) entries[i];
+            if (store.getVersion(slot) == (int) (entries[i] >>> 32)) {
+                action.accept(slot);
+            }
+        }
+    }
+
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < length; i++) {
+            int slot = (int) entries[i];
+            if (store.getVersion(slot) == (int) (entries[i] >>> 32)) {
+                entries[kept++] = entries[i];
+            }
+        }
+        length = kept;
+        dead = 0;
+    }
+}
@@ -0,0 +1,53 @@
+package tmp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+// Dictionary encoding: each distinct string is stored once and referred to by a dense int id.
+// Strings are never removed and live in fixed-size chunks, so a snapshot can keep reading the ids
+// it knows about through share() while new strings are added.
+public class StringPool {
+    private final HashMap<String, Integer> ids = new HashMap<>();
+    private String[][] chunks = new String[0][];
+    private int size = 0;
+
+    public int intern(String value) {
+        Integer id = ids.get(value);
+        if (id == null) {
+            id = size;
+            int c = size >>> ChunkedIntArray.SHIFT;
+            if (c == chunks.length) {
+                chunks = Arrays.copyOf(chunks, Math.max(1, c * 2));
+            }
+            if (chunks[c] == null) {
+                chunks[c] = new String[ChunkedIntArray.CHUNK];
+            }
+            chunks[c][size & ChunkedIntArray.MASK] = value;
+            ids.put(value, id);
+            size++;
+        }
+        return id;
+    }
+
+    // Returns -1 when the string has never been interned
+    public int idOf(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    public String get(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("Index " + id + " out of bounds for length " + size);
+        }
+        return chunks[id >>> ChunkedIntArray.SHIFT][id & ChunkedIntArray.MASK];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // The strings as chunks of ChunkedIntArray.CHUNK; the entries for ids below size() never change
+    public String[][] share() {
+        return chunks;
+    }
+}
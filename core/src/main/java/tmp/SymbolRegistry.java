@@ -0,0 +1,106 @@
+package tmp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+// The tradable universe. Each symbol is interned once to a dense int id (its position in the file),
+// which is what the portfolio uses internally; a case-insensitive sorted index serves prefix search.
+public class SymbolRegistry {
+    private static final String[] DEFAULT_SYMBOLS = {
+            "Apple", "Google", "Microsoft", "Amazon", "Meta", "Nvidia", "Tesla", "IBM",
+            "Intel", "Oracle", "Salesforce", "Adobe", "Netflix", "Uber", "Paypal", "Snowflake"
+    };
+
+    private final String[] symbols;
+    private final HashMap<String, Integer> ids;
+    private final int[] sortedIds;
+    private final List<String> symbolList;
+
+    public SymbolRegistry(Collection<String> symbols) {
+        LinkedHashSet<String> unique = new LinkedHashSet<>(symbols);
+        this.symbols = unique.toArray(new String[0]);
+        ids = new HashMap<>(this.symbols.length * 2);
+        for (int id = 0; id < this.symbols.length; id++) {
+            ids.put(this.symbols[id], id);
+        }
+        Integer[] order = new Integer[this.symbols.length];
+        for (int id = 0; id < order.length; id++) {
+            order[id] = id;
+        }
+        Arrays.sort(order, (a, b) -> String.CASE_INSENSITIVE_ORDER.compare(this.symbols[a], this.symbols[b]));
+        sortedIds = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedIds[i] = order[i];
+        }
+        symbolList = Collections.unmodifiableList(Arrays.asList(this.symbols));
+    }
+
+    public static SymbolRegistry defaultRegistry() {
+        return new SymbolRegistry(Arrays.asList(DEFAULT_SYMBOLS));
+    }
+
+    // One symbol per line; blank lines and lines starting with # are ignored
+    public static SymbolRegistry load(Path file) throws IOException {
+        List<String> symbols = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    symbols.add(line);
+                }
+            }
+        }
+        return new SymbolRegistry(symbols);
+    }
+
+    public int size() {
+        return symbols.length;
+    }
+
+    public String getSymbol(int id) {
+        return symbols[id];
+    }
+
+    // All symbols in id order; the same list is returned every time
+    public List<String> getSymbols() {
+        return symbolList;
+    }
+
+    public int idOf(String symbol) {
+        int id = find(symbol);
+        if (id < 0) {
+            throw new IllegalArgumentException("Unknown stock: " + symbol);
+        }
+        return id;
+    }
+
+    // Returns -1 for a symbol outside the universe
+    public int find(String symbol) {
+        Integer id = ids.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    // Ids of every symbol starting with prefix (ignoring case), in alphabetical order
+    public int[] findByPrefix(String prefix) {
+        int low = 0;
+        int high = sortedIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (String.CASE_INSENSITIVE_ORDER.compare(symbols[sortedIds[mid]], prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        int end = low;
+        while (end < sortedIds.length && symbols[sortedIds[end]].regionMatches(true, 0, prefix, 0, prefix.length())) {
+            end++;
+        }
+        return Arrays.copyOfRange(sortedIds, low, end);
+    }
+}
@@ -0,0 +1,108 @@
+package tmp;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+// A recorded price feed, replayed into a PricingEngine. Lines are "timestampMillis,symbol,price";
+// the file is parsed once into primitive arrays so replay itself does no parsing or allocation.
+public class TickFeed {
+    private long[] timesMillis;
+    private int[] stockIds;
+    private long[] pricesCents;
+    private int size = 0;
+    private int skipped = 0;
+
+    TickFeed(int capacity) {
+        timesMillis = new long[capacity];
+        stockIds = new int[capacity];
+        pricesCents = new long[capacity];
+    }
+
+    // Lines with unknown symbols or unreadable numbers are counted in getSkipped() and left out
+    public static TickFeed load(Path file, SymbolRegistry registry) throws IOException {
+        TickFeed feed = new TickFeed(1024);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int first = line.indexOf(',');
+                int second = line.indexOf(',', first + 1);
+                int stockId = first < 0 || second < 0 ? -1 : registry.find(line.substring(first + 1, second));
+                if (stockId < 0) {
+                    feed.skipped++;
+                    continue;
+                }
+                try {
+                    long time = Long.parseLong(line.substring(0, first).trim());
+                    long cents = Math.round(Double.parseDouble(line.substring(second + 1).trim()) * 100);
+                    feed.add(time, stockId, cents);
+                } catch (NumberFormatException e) {
+                    feed.skipped++;
+                }
+            }
+        }
+        return feed;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getSkipped() {
+        return skipped;
+    }
+
+    // speed 1 replays in recorded time, 10 ten times faster, 0 as fast as possible
+    public void replay(PricingEngine engine, double speed) {
+        if (size == 0) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        long firstMillis = timesMillis[0];
+        for (int i = 0; i < size && !Thread.currentThread().isInterrupted(); i++) {
+            if (speed > 0) {
+                long dueNanos = startNanos + (long) ((timesMillis[i] - firstMillis) * 1_000_000 / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(waitNanos);
+                }
+            }
+            engine.onTick(stockIds[i], pricesCents[i], System.nanoTime());
+        }
+    }
+
+    public Thread start(PricingEngine engine, double speed) {
+        Thread thread = new Thread(() -> replay(engine, speed), "tick-feed");
+        thread.setDaemon(true);
+        thread.start();
+        return thread;
+    }
+
+    // The last price of each symbol on each local calendar day of the recording
+    public PriceHistory toDailyCloses(int symbolCount) {
+        int[] days = new int[size];
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 0; i < size; i++) {
+            days[i] = (int) Instant.ofEpochMilli(timesMillis[i]).atZone(zone).toLocalDate().toEpochDay();
+        }
+        return PriceHistory.build(symbolCount, days, stockIds, pricesCents, size, 0);
+    }
+
+    void add(long timeMillis, int stockId, long cents) {
+        if (size == timesMillis.length) {
+            timesMillis = Arrays.copyOf(timesMillis, size * 2);
+            stockIds = Arrays.copyOf(stockIds, size * 2);
+            pricesCents = Arrays.copyOf(pricesCents, size * 2);
+        }
+        timesMillis[size] = timeMillis;
+        stockIds[size] = stockId;
+        pricesCents[size] = cents;
+        size++;
+    }
+}
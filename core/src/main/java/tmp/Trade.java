@@ -0,0 +1,47 @@
+package tmp;
+
+// One leg of an order: a positive quantity of shares to buy or sell, by symbol id or by name
+public class Trade {
+    private final int stockId;
+    private final String stockName;
+    private final int change;
+
+    private Trade(int stockId, String stockName, int change) {
+        this.stockId = stockId;
+        this.stockName = stockName;
+        this.change = change;
+    }
+
+    public static Trade buy(int stockId, int quantity) {
+        return new Trade(stockId, null, checkQuantity(quantity));
+    }
+
+    public static Trade sell(int stockId, int quantity) {
+        return new Trade(stockId, null, -checkQuantity(quantity));
+    }
+
+    public static Trade buy(String stockName, int quantity) {
+        return new Trade(-1, stockName, checkQuantity(quantity));
+    }
+
+    public static Trade sell(String stockName, int quantity) {
+        return new Trade(-1, stockName, -checkQuantity(quantity));
+    }
+
+    // Resolves the stock against the registry when the trade was made by name
+    public int getStockId(SymbolRegistry registry) {
+        return stockId >= 0 ? stockId : registry.idOf(stockName);
+    }
+
+    // Signed number of shares: positive for a buy, negative for a sell
+    public int getChange() {
+        return change;
+    }
+
+    static int checkQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive: " + quantity);
+        }
+        return quantity;
+    }
+}
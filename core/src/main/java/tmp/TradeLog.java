@@ -0,0 +1,11 @@
+package tmp;
+
+// Write-ahead hook for ManagePortfolio. logTrades() is called once a trade has been made but before
+// anyone is told of it, and queues its record; one it throws from is undone, so the portfolio never
+// holds a trade the log did not take. commitTrades() is then called with the number logTrades()
+// returned, after the listeners, and returns once the record is on disk.
+public interface TradeLog {
+    long logTrades(TradeResult result);
+
+    void commitTrades(long seq);
+}
@@ -0,0 +1,77 @@
+package tmp;
+
+import java.util.Objects;
+
+// Outcome of a trade or batch: either the net change per stock that was applied,
+// or the stock that did not have enough shares, in which case nothing was applied
+public class TradeResult {
+    private final SymbolRegistry registry;
+    // A single-stock trade keeps its stock and change in the fields below instead of in arrays
+    private final int[] stockIds;
+    private final int[] changes;
+    private final int stockId;
+    private final int change;
+    private final int rejectedStockId;
+
+    private TradeResult(SymbolRegistry registry, int[] stockIds, int[] changes, int stockId, int change, int rejectedStockId) {
+        this.registry = registry;
+        this.stockIds = stockIds;
+        this.changes = changes;
+        this.stockId = stockId;
+        this.change = change;
+        this.rejectedStockId = rejectedStockId;
+    }
+
+    public static TradeResult accepted(SymbolRegistry registry, int[] stockIds, int[] changes) {
+        return new TradeResult(registry, stockIds, changes, -1, 0, -1);
+    }
+
+    public static TradeResult accepted(SymbolRegistry registry, int stockId, int change) {
+        return new TradeResult(registry, null, null, stockId, change, -1);
+    }
+
+    public static TradeResult rejected(SymbolRegistry registry, int stockId) {
+        return new TradeResult(registry, null, null, -1, 0, stockId);
+    }
+
+    public boolean isAccepted() {
+        return rejectedStockId < 0;
+    }
+
+    public String getRejectedStock() {
+        return isAccepted() ? null : registry.getSymbol(rejectedStockId);
+    }
+
+    // Number of stocks whose holdings changed
+    public int size() {
+        return stockIds != null ? stockIds.length : stockId >= 0 ? 1 : 0;
+    }
+
+    public int getStockId(int i) {
+        if (stockIds != null) {
+            return stockIds[i];
+        }
+        Objects.checkIndex(i, size());
+        return stockId;
+    }
+
+    public String getStockName(int i) {
+        return registry.getSymbol(getStockId(i));
+    }
+
+    public int getChange(int i) {
+        if (changes != null) {
+            return changes[i];
+        }
+        Objects.checkIndex(i, size());
+        return change;
+    }
+
+    public long getSharesMoved() {
+        long shares = 0;
+        for (int i = 0; i < size(); i++) {
+            shares += Math.abs((long) getChange(i));
+        }
+        return shares;
+    }
+}
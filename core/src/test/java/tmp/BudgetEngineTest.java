@@ -0,0 +1,133 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetEngineTest {
+    private final ExpenseTracker tracker = new ExpenseTracker();
+    private final List<BudgetAlert> alerts = new ArrayList<>();
+
+    BudgetEngineTest() {
+        tracker.addBudgetListener(alerts::add);
+    }
+
+    private static int day(String date) {
+        return (int) LocalDate.parse(date).toEpochDay();
+    }
+
+    @Test
+    void goingOverTheLimitAlertsOnce() {
+        Budget budget = Budget.monthly("Acme", "Acme", 100);
+        tracker.addBudget(budget);
+        tracker.addExpense(new Expense("Acme", "Paper", 60, "2024-03-01"));
+        tracker.addExpense(new Expense("Globex", "Taxi", 500, "2024-03-02"));
+        assertTrue(alerts.isEmpty());
+
+        tracker.addExpense(new Expense("Acme", "Ink", 50, "2024-03-05"));
+        assertEquals(1, alerts.size());
+        BudgetAlert alert = alerts.get(0);
+        assertSame(budget, alert.getBudget());
+        assertTrue(alert.isExceeded());
+        assertEquals(11_000, alert.getSpentCents());
+        assertEquals("2024-03", budget.describePeriod(alert.getPeriod()));
+
+        // Already over: more spending, or spending in another month, sends nothing
+        tracker.addExpense(new Expense("Acme", "Pens", 10, "2024-03-06"));
+        tracker.addExpense(new Expense("Acme", "Paper", 60, "2024-04-01"));
+        assertEquals(1, alerts.size());
+        assertEquals(120, tracker.getBudgetSpent(budget, LocalDate.of(2024, 3, 31)), 1e-9);
+        assertEquals(60, tracker.getBudgetSpent(budget, LocalDate.of(2024, 4, 1)), 1e-9);
+    }
+
+    @Test
+    void comingBackWithinTheLimitAlerts() {
+        Budget budget = Budget.monthly("Everything", null, 100);
+        tracker.addBudget(budget);
+        tracker.addExpense(new Expense("Acme", "Paper", 70, "2024-03-01"));
+        tracker.addExpense(new Expense("Globex", "Taxi", 50, "2024-03-02"));
+        assertEquals(1, alerts.size());
+        assertTrue(alerts.get(0).isExceeded());
+
+        // An edit that stays over the limit sends nothing; one that brings the month under does
+        tracker.editExpense(1, new Expense("Globex", "Taxi", 40, "2024-03-02"));
+        assertEquals(1, alerts.size());
+        tracker.editExpense(1, new Expense("Globex", "Taxi", 40, "2024-04-02"));
+        assertEquals(2, alerts.size());
+        assertFalse(alerts.get(1).isExceeded());
+        assertEquals(7_000, alerts.get(1).getSpentCents());
+
+        tracker.addExpense(new Expense("Acme", "Ink", 40, "2024-03-03"));
+        assertEquals(3, alerts.size());
+        tracker.deleteExpense(0);
+        assertEquals(4, alerts.size());
+        assertFalse(alerts.get(3).isExceeded());
+        assertEquals(4_000, alerts.get(3).getSpentCents());
+    }
+
+    @Test
+    void bulkImportSendsOneAlertPerBudgetAndPeriod() {
+        Budget monthly = Budget.monthly("Acme monthly", "Acme", 100);
+        Budget yearly = Budget.yearly("Yearly", null, 1_000);
+        tracker.addBudget(monthly);
+        tracker.addBudget(yearly);
+        ExpenseBatch batch = new ExpenseBatch();
+        for (int i = 0; i < 300; i++) {
+            batch.add("Acme", "Paper", 500, day("2024-03-01") + i % 28);
+            batch.add("Acme", "Paper", 500, day("2024-05-01") + i % 28);
+            batch.add("Globex", "Taxi", 500, day("2024-06-01"));
+        }
+        tracker.addExpenses(batch);
+
+        // March and May over for the Acme budget, 2024 over for the yearly one; June has no Acme rows
+        assertEquals(3, alerts.size());
+        List<String> crossed = new ArrayList<>();
+        for (BudgetAlert alert : alerts) {
+            assertTrue(alert.isExceeded());
+            crossed.add(alert.getBudget() + " " + alert.getBudget().describePeriod(alert.getPeriod()));
+        }
+        assertTrue(crossed.contains("Acme monthly 2024-03"));
+        assertTrue(crossed.contains("Acme monthly 2024-05"));
+        assertTrue(crossed.contains("Yearly 2024"));
+        assertEquals(1_500, tracker.getBudgetSpent(monthly, LocalDate.of(2024, 3, 1)), 1e-9);
+        assertEquals(4_500, tracker.getBudgetSpent(yearly, LocalDate.of(2024, 1, 1)), 1e-9);
+    }
+
+    // A budget added to a ledger that already has spending starts from it, without alerts
+    @Test
+    void budgetsStartFromTheSpendingAlreadyInTheLedger() {
+        for (int month = 1; month <= 12; month++) {
+            tracker.addExpense(new Expense("Acme", "Rent", 100 * month, "2023-" + String.format("%02d", month) + "-01"));
+        }
+        Budget budget = Budget.monthly("Acme", "Acme", 1_000);
+        tracker.addBudget(budget);
+        assertTrue(alerts.isEmpty());
+        for (int month = 1; month <= 12; month++) {
+            assertEquals(100 * month, tracker.getBudgetSpent(budget, LocalDate.of(2023, month, 15)), 1e-9);
+        }
+        tracker.addExpense(new Expense("Acme", "Rent", 1, "2023-10-02"));
+        assertEquals(1, alerts.size());
+        assertEquals("2023-10", budget.describePeriod(alerts.get(0).getPeriod()));
+    }
+
+    // Spending centuries apart only costs the two periods it falls in
+    @Test
+    void periodsFarApartAreTrackedSeparately() {
+        Budget monthly = Budget.monthly("Monthly", null, 100);
+        Budget allTime = Budget.allTime("All time", null, 150);
+        tracker.addBudget(monthly);
+        tracker.addBudget(allTime);
+        tracker.addExpense(new Expense("Acme", "Old", 80, "1900-01-15"));
+        tracker.addExpense(new Expense("Acme", "New", 80, "2100-12-15"));
+        assertEquals(80, tracker.getBudgetSpent(monthly, LocalDate.of(1900, 1, 1)), 1e-9);
+        assertEquals(80, tracker.getBudgetSpent(monthly, LocalDate.of(2100, 12, 1)), 1e-9);
+        assertEquals(0, tracker.getBudgetSpent(monthly, LocalDate.of(2000, 6, 1)), 1e-9);
+        assertEquals(160, tracker.getBudgetSpent(allTime, LocalDate.of(2000, 6, 1)), 1e-9);
+        assertEquals(1, alerts.size());
+        assertSame(allTime, alerts.get(0).getBudget());
+    }
+}
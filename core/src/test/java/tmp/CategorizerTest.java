@@ -0,0 +1,136 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorizerTest {
+    @TempDir
+    Path directory;
+
+    private Path writeRules(String name, String... lines) throws IOException {
+        Path file = directory.resolve(name);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    void trackerTagsRowsAsTheyAreAddedAndEdited() throws IOException {
+        ExpenseTracker tracker = new ExpenseTracker();
+        tracker.setCategorizer(new Categorizer(writeRules("rules.txt",
+                "Food | merchant | grocer",
+                "Travel | keyword | flight",
+                "Big | amount | 1000..")));
+        tracker.addExpense(new Expense("Corner Grocer", "Milk", 3.5, "2024-03-01"));
+        tracker.addExpense(new Expense("Airline", "Flight home", 250, "2024-03-02"));
+        tracker.addExpense(new Expense("Hardware", "Nails", 4, "2024-03-03"));
+        assertEquals("Food", tracker.getCategory(0));
+        assertEquals("Travel", tracker.getCategory(1));
+        assertNull(tracker.getCategory(2));
+
+        tracker.editExpense(2, new Expense("Hardware", "Roof", 5000, "2024-03-03"));
+        assertEquals("Big", tracker.getCategory(2));
+
+        ExpenseBatch batch = new ExpenseBatch();
+        batch.add("Big Grocer", "Weekly shop", 8000, 19800);
+        batch.add("Hardware", "Screws", 200, 19800);
+        tracker.addExpenses(batch);
+        assertEquals("Food", tracker.getCategory(3));
+        assertNull(tracker.getCategory(4));
+    }
+
+    @Test
+    void importerTagsRowsWithTheRulesItStartedWith() throws IOException {
+        Categorizer categorizer = new Categorizer(writeRules("rules.txt", "Food | text | grocer"));
+        Path csv = directory.resolve("expenses.csv");
+        Files.write(csv, List.of("Company,Description,$ Amount,Date", "Grocer,Bread,2,2024-03-01", "Bank,Fee,1,2024-03-01"),
+                StandardCharsets.UTF_8);
+        ExpenseBatch batch = new ExpenseCsvImporter(ForkJoinPool.commonPool(), categorizer).read(csv).getBatch();
+        assertTrue(batch.isCategorized());
+        assertEquals("Food", batch.getCategory(0));
+        assertNull(batch.getCategory(1));
+
+        // The tracker keeps the importer's tags rather than running its own rules over the rows
+        ExpenseTracker tracker = new ExpenseTracker();
+        tracker.setCategorizer(new Categorizer(writeRules("fees.txt", "Fees | keyword | fee")));
+        tracker.addExpenses(batch);
+        assertEquals("Food", tracker.getCategory(0));
+        assertNull(tracker.getCategory(1));
+
+        assertFalse(new ExpenseCsvImporter().read(csv).getBatch().isCategorized());
+    }
+
+    @Test
+    void watchedReloadsRetagTheTrackerAndBadFilesAreReported() throws Exception {
+        Path rules = writeRules("rules.txt", "Food | merchant | grocer");
+        Categorizer categorizer = new Categorizer(rules);
+        ExpenseTracker tracker = new ExpenseTracker();
+        tracker.setCategorizer(categorizer);
+        tracker.addExpense(new Expense("Grocer", "Milk", 3, "2024-03-01"));
+        tracker.addExpense(new Expense("Bank", "Fee", 1, "2024-03-01"));
+        int[] categoryEvents = new int[1];
+        tracker.addListener(new ExpenseTrackerListener() {
+            @Override
+            public void expensesAdded(int firstIndex, int lastIndex) {
+            }
+
+            @Override
+            public void expenseUpdated(int index) {
+            }
+
+            @Override
+            public void expenseDeleted(int index) {
+            }
+
+            @Override
+            public void categoriesChanged() {
+                categoryEvents[0]++;
+            }
+        });
+
+        LinkedBlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        categorizer.addListener(new CategorizerListener() {
+            @Override
+            public void rulesReloaded(CategoryRules rules) {
+                events.add(rules);
+            }
+
+            @Override
+            public void rulesRejected(Exception e) {
+                events.add(e);
+            }
+        });
+        long failed = Metrics.RULE_RELOADS_FAILED.sum();
+        categorizer.watch(10);
+        try {
+            Files.write(rules, List.of("Fees | keyword | fee"), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(rules, FileTime.fromMillis(System.currentTimeMillis() + 60_000));
+            assertInstanceOf(CategoryRules.class, events.poll(10, TimeUnit.SECONDS));
+            assertEquals(2, tracker.recategorize());
+            assertNull(tracker.getCategory(0));
+            assertEquals("Fees", tracker.getCategory(1));
+            assertEquals(1, categoryEvents[0]);
+            assertEquals(0, tracker.recategorize());
+            assertEquals(1, categoryEvents[0]);
+
+            Files.write(rules, List.of("Fees | nonsense | fee"), StandardCharsets.UTF_8);
+            Files.setLastModifiedTime(rules, FileTime.fromMillis(System.currentTimeMillis() + 120_000));
+            assertInstanceOf(IOException.class, events.poll(10, TimeUnit.SECONDS));
+            assertEquals(failed + 1, Metrics.RULE_RELOADS_FAILED.sum());
+            assertEquals("Fees", categorizer.categorize("Bank", "Fee", 100));
+        } finally {
+            categorizer.stopWatching();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChangeCheckpointTest {
+    private static final List<String> SYMBOLS = Arrays.asList("A", "B", "C", "D", "E", "F", "G", "H");
+
+    // Several checkpoints, each reset by two threads at once while trades keep arriving: adding up
+    // every report a checkpoint gave, plus a last one once trading stops, gives exactly the net
+    // change in every position, so no change was lost or reported twice
+    @Test
+    void concurrentResetsReportEveryChangeOnce() throws InterruptedException {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(SYMBOLS));
+        List<String> names = portfolio.getCheckpointNames();
+        AtomicLongArray[] reported = new AtomicLongArray[names.size()];
+        for (int c = 0; c < reported.length; c++) {
+            reported[c] = new AtomicLongArray(SYMBOLS.size());
+        }
+
+        AtomicBoolean stop = new AtomicBoolean();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 3; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                while (!stop.get()) {
+                    int id = random.nextInt(SYMBOLS.size());
+                    if (random.nextInt(3) == 0) {
+                        portfolio.sellStock(id, 1 + random.nextInt(5)); // rejected when not enough is held
+                    } else {
+                        portfolio.buyStock(id, 1 + random.nextInt(5));
+                    }
+                }
+            }));
+        }
+        for (int c = 0; c < names.size(); c++) {
+            for (int r = 0; r < 2; r++) {
+                String name = names.get(c);
+                AtomicLongArray totals = reported[c];
+                threads.add(new Thread(() -> {
+                    while (!stop.get()) {
+                        addUp(portfolio.resetCheckpoint(name), totals);
+                    }
+                }));
+            }
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        Thread.sleep(1_000);
+        stop.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] held = portfolio.getStockQuantities();
+        for (int c = 0; c < names.size(); c++) {
+            addUp(portfolio.resetCheckpoint(names.get(c)), reported[c]);
+            assertTrue(portfolio.getChangesSince(names.get(c)).isEmpty());
+            for (int id = 0; id < SYMBOLS.size(); id++) {
+                assertEquals(held[id], reported[c].get(id), names.get(c) + " " + SYMBOLS.get(id));
+            }
+        }
+    }
+
+    // A symbol that moves again after being drained is queued again, once
+    @Test
+    void drainedSymbolsAreQueuedAgainOnTheirNextChange() {
+        SymbolRegistry registry = new SymbolRegistry(SYMBOLS);
+        ChangeCheckpoint checkpoint = new ChangeCheckpoint("test", SYMBOLS.size());
+        checkpoint.record(2, 5);
+        checkpoint.record(2, -5);
+        checkpoint.record(3, 1);
+        assertEquals(Map.of("D", 1), checkpoint.getChanges(registry));
+        assertEquals(Map.of("D", 1), checkpoint.reset(registry));
+        assertTrue(checkpoint.reset(registry).isEmpty());
+
+        checkpoint.record(2, 4);
+        checkpoint.record(2, 3);
+        assertEquals(Map.of("C", 7), checkpoint.getChanges(registry));
+        assertEquals(Map.of("C", 7), checkpoint.reset(registry));
+        assertTrue(checkpoint.getChanges(registry).isEmpty());
+    }
+
+    private void addUp(Map<String, Integer> changes, AtomicLongArray totals) {
+        for (Map.Entry<String, Integer> change : changes.entrySet()) {
+            totals.addAndGet(SYMBOLS.indexOf(change.getKey()), change.getValue());
+        }
+    }
+}
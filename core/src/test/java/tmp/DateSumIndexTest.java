@@ -0,0 +1,51 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DateSumIndexTest {
+    @Test
+    void sumsMatchAScanOfEveryDay() {
+        Random random = new Random(3);
+        int first = (int) LocalDate.of(1990, 1, 1).toEpochDay();
+        long[] daily = new long[3000];
+        DateSumIndex index = new DateSumIndex();
+        for (int i = 0; i < 5000; i++) {
+            int day = random.nextInt(daily.length);
+            long cents = random.nextInt(20_000) - 5_000;
+            daily[day] += cents;
+            index.add(first + day, cents);
+        }
+        for (int i = 0; i < 2000; i++) {
+            int from = random.nextInt(daily.length + 200) - 100;
+            int to = from + random.nextInt(800);
+            long expected = 0;
+            for (int day = Math.max(from, 0); day <= Math.min(to, daily.length - 1); day++) {
+                expected += daily[day];
+            }
+            assertEquals(expected, index.sumBetween(first + from, first + to));
+        }
+    }
+
+    // Days as far apart as an int allows used to size one array over the whole span
+    @Test
+    void farApartDaysOnlyCostTheirOwnBlocks() {
+        DateSumIndex index = new DateSumIndex();
+        index.add(Integer.MIN_VALUE, 1);
+        index.add(-1, 10);
+        index.add(0, 100);
+        index.add(Integer.MAX_VALUE, 1000);
+        assertEquals(1111, index.sumAll());
+        assertEquals(1111, index.sumBetween(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertEquals(11, index.sumBetween(Integer.MIN_VALUE, -1));
+        assertEquals(110, index.sumBetween(-1, 0));
+        assertEquals(1000, index.sumBetween(1, Integer.MAX_VALUE));
+        assertEquals(0, index.sumBetween(5, 4));
+        index.add(0, -100);
+        assertEquals(10, index.sumBetween(-64, 64));
+    }
+}
@@ -0,0 +1,71 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseCsvImporterTest {
+    @TempDir
+    Path directory;
+
+    private ExpenseCsvImporter.ImportResult importLines(String... lines) throws IOException {
+        Path file = directory.resolve("expenses.csv");
+        Files.write(file, String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+        return new ExpenseCsvImporter().read(file);
+    }
+
+    @Test
+    void readsPlainAndQuotedRows() throws IOException {
+        ExpenseCsvImporter.ImportResult result = importLines(
+                "Company,Description,$ Amount,Date",
+                "Acme,Paper,12.5,2024-03-01",
+                "\"Smith, Jones\",\"Said \"\"hi\"\"\",-3,2024-03-02");
+        ExpenseBatch batch = result.getBatch();
+        assertEquals(0, result.getErrorCount());
+        assertEquals(2, batch.size());
+        assertEquals("Acme", batch.getCompany(0));
+        assertEquals(1250, batch.getAmountCents(0));
+        assertEquals(LocalDate.of(2024, 3, 1).toEpochDay(), batch.getEpochDay(0));
+        assertEquals("Smith, Jones", batch.getCompany(1));
+        assertEquals("Said \"hi\"", batch.getDescription(1));
+        assertEquals(-300, batch.getAmountCents(1));
+    }
+
+    @Test
+    void countsMalformedRowsAndKeepsTheRest() throws IOException {
+        ExpenseCsvImporter.ImportResult result = importLines(
+                "Company,Description,$ Amount,Date",
+                "Acme,Paper,1.00,2024-03-01",
+                "Acme,Paper,lots,2024-03-01",
+                "Acme,Paper,1.00,2024-02-30",
+                "Acme,Paper,1.00",
+                "Acme,Pens,2.00,2024-03-03");
+        assertEquals(2, result.getBatch().size());
+        assertEquals(3, result.getErrorCount());
+        assertEquals("Pens", result.getBatch().getDescription(1));
+    }
+
+    @Test
+    void refusesAmountsThatAreNotFiniteOrTooLarge() throws IOException {
+        ExpenseCsvImporter.ImportResult result = importLines(
+                "Company,Description,$ Amount,Date",
+                "Acme,Paper,NaN,2024-03-01",
+                "Acme,Paper,Infinity,2024-03-01",
+                "Acme,Paper,-Infinity,2024-03-01",
+                "Acme,Paper,1e300,2024-03-01",
+                "Acme,Paper,99999999999999999,2024-03-01",
+                "Acme,Paper,1.5e3,2024-03-01",
+                "Acme,Paper,9999999999999999.99,2024-03-01");
+        assertEquals(5, result.getErrorCount());
+        assertEquals(2, result.getBatch().size());
+        assertEquals(150_000, result.getBatch().getAmountCents(0));
+        assertEquals(999_999_999_999_999_999L, result.getBatch().getAmountCents(1));
+    }
+}
@@ -0,0 +1,76 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseRollupsTest {
+    private static final String[] COMPANIES = {"Acme", "Globex", "Initech", "Umbrella"};
+
+    // Kept in step by adds, edits and deletes whose dates reach further into the past and the
+    // future as they go, the live rollups always match a rebuild from the rows
+    @Test
+    void incrementalChangesMatchARebuild() {
+        ExpenseTracker tracker = new ExpenseTracker();
+        Random random = new Random(7);
+        LocalDate start = LocalDate.of(2024, 6, 15);
+        for (int step = 0; step < 2_000; step++) {
+            int reach = 1 + step * 20; // days either side of the start, growing both ways
+            LocalDate date = start.plusDays(random.nextInt(2 * reach + 1) - reach);
+            Expense expense = new Expense(COMPANIES[random.nextInt(COMPANIES.length)], "item",
+                    1 + random.nextInt(50_000) / 100.0, date.toString());
+            int op = random.nextInt(10);
+            if (op < 6 || tracker.getExpenseCount() == 0) {
+                tracker.addExpense(expense);
+            } else if (op < 8) {
+                tracker.editExpense(random.nextInt(tracker.getExpenseCount()), expense);
+            } else {
+                tracker.deleteExpense(random.nextInt(tracker.getExpenseCount()));
+            }
+            if (step % 50 == 0) {
+                assertTrue(ExpenseRollups.build(tracker.snapshot()).sameAs(tracker.getRollups()), "step " + step);
+            }
+        }
+        assertTrue(ExpenseRollups.build(tracker.snapshot()).sameAs(tracker.getRollups()));
+        assertTrue(tracker.verifyRollups());
+    }
+
+    // Rows centuries apart only cost the years they fall in
+    @Test
+    void outlyingDatesOnlyAddTheirOwnYears() {
+        ExpenseTracker tracker = new ExpenseTracker();
+        tracker.addExpense(new Expense("Acme", "Paper", 10, "2024-03-01"));
+        tracker.addExpense(new Expense("Acme", "Typo", 20, "0202-03-01"));
+        long far = tracker.addExpense(new Expense("Globex", "Lease", 30, "9999-12-31"));
+        ExpenseRollups rollups = tracker.getRollups();
+        assertEquals(3, rollups.getYearsInUse());
+        assertEquals(202, rollups.getYearInUse(0));
+        assertEquals(9999, rollups.getYearInUse(2));
+        assertEquals(202 * 12, rollups.getFirstMonth());
+        assertEquals(9999 * 12 + 11, rollups.getLastMonth());
+
+        int acme = tracker.getCompanyId("Acme");
+        assertEquals(2_000, rollups.getCompanyMonthCents(acme, 202 * 12 + 2));
+        assertEquals(1, rollups.getMonthCount(2024 * 12 + 2));
+        assertEquals(0, rollups.getMonthCents(1500 * 12));
+        assertEquals(3_000, rollups.getYearCents(9999));
+        assertEquals(3, rollups.getCount());
+
+        // Emptied years keep their blocks, holding zeros, and still match a rebuild without them
+        tracker.deleteExpenseById(far);
+        assertEquals(0, rollups.getYearCents(9999));
+        assertTrue(ExpenseRollups.build(tracker.snapshot()).sameAs(rollups));
+        assertFalse(new ExpenseRollups().sameAs(rollups));
+
+        // Same totals, different months
+        ExpenseRollups march = new ExpenseRollups();
+        ExpenseRollups century = new ExpenseRollups();
+        march.add(0, (int) LocalDate.of(2024, 3, 1).toEpochDay(), 100);
+        century.add(0, (int) LocalDate.of(1924, 3, 1).toEpochDay(), 100);
+        assertFalse(march.sameAs(century));
+        assertFalse(century.sameAs(march));
+    }
+}
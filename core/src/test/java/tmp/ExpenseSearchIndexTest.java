@@ -0,0 +1,90 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseSearchIndexTest {
+    private static final String[] WORDS = {"coffee", "lunch", "taxi", "train", "office", "supplies", "software",
+            "license", "fuel", "parking"};
+
+    // Every prefix of the queries, as typed, against a plain scan of the rows
+    @Test
+    void searchAgreesWithAScan() {
+        Random random = new Random(42);
+        ExpenseTracker tracker = new ExpenseTracker();
+        ExpenseBatch batch = new ExpenseBatch();
+        for (int i = 0; i < 5000; i++) {
+            batch.add("Company" + random.nextInt(200), WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " #" + random.nextInt(500), random.nextInt(10_000), 19_000 + random.nextInt(700));
+        }
+        tracker.addExpenses(batch);
+        for (int i = 0; i < 500; i++) {
+            tracker.deleteExpense(random.nextInt(tracker.getExpenseCount()));
+        }
+
+        for (String query : new String[]{"company12 taxi", "supplies", "42", "offi supp", "e", "zz"}) {
+            for (int length = 1; length <= query.length(); length++) {
+                assertAgreesWithAScan(tracker, query.substring(0, length));
+            }
+        }
+    }
+
+    // Rows deleted at the end of the table, then new rows after the ones deleted in the middle
+    @Test
+    void searchAgreesWithAScanAfterTrailingDeletes() {
+        Random random = new Random(7);
+        ExpenseTracker tracker = new ExpenseTracker();
+        for (int round = 0; round < 3; round++) {
+            ExpenseBatch batch = new ExpenseBatch();
+            for (int i = 0; i < 1000; i++) {
+                batch.add("Company" + random.nextInt(50), WORDS[random.nextInt(WORDS.length)], random.nextInt(10_000), 19_000);
+            }
+            tracker.addExpenses(batch);
+            for (int i = 0; i < 100; i++) {
+                tracker.deleteExpense(random.nextInt(tracker.getExpenseCount()));
+            }
+            for (int i = 0; i < 100; i++) {
+                tracker.deleteExpense(tracker.getExpenseCount() - 1);
+            }
+            for (String query : new String[]{"o", "fu", "company1", "lunch"}) {
+                assertAgreesWithAScan(tracker, query);
+            }
+        }
+    }
+
+    private static void assertAgreesWithAScan(ExpenseTracker tracker, String typed) {
+        BitSet found = tracker.search(typed);
+        if (found == null) {
+            return; // no terms, every row
+        }
+        String[] terms = ExpenseSearchIndex.split(typed);
+        for (int row = 0; row < tracker.getExpenseCount(); row++) {
+            String[] rowWords = ExpenseSearchIndex.split(tracker.getCompany(row) + " " + tracker.getDescription(row));
+            boolean matches = true;
+            for (String term : terms) {
+                boolean any = false;
+                for (String word : rowWords) {
+                    any |= word.contains(term);
+                }
+                matches &= any;
+            }
+            assertEquals(matches, found.get(row), "row " + row + " for \"" + typed + "\"");
+        }
+        assertEquals(-1, found.nextSetBit(tracker.getExpenseCount()));
+    }
+
+    @Test
+    void editedRowsAreFoundByTheirNewText() {
+        ExpenseTracker tracker = new ExpenseTracker();
+        tracker.addExpense(new Expense("Acme", "Coffee beans", 4.5, "2024-01-02"));
+        tracker.addExpense(new Expense("Globex", "Taxi", 12, "2024-01-03"));
+        tracker.editExpense(0, new Expense("Acme", "Printer ink", 30, "2024-01-02"));
+        assertTrue(tracker.search("coffee").isEmpty());
+        assertEquals(BitSet.valueOf(new long[]{1}), tracker.search("ink"));
+        assertEquals(BitSet.valueOf(new long[]{2}), tracker.search("tax"));
+    }
+}
@@ -0,0 +1,38 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseStoreTest {
+    // Positions agree with a plain list through adds, deletes anywhere, compactions and the order
+    // growing past its chunks, tombstones or not
+    @Test
+    void positionsFollowAPlainList() {
+        ExpenseStore store = new ExpenseStore();
+        List<Integer> rows = new ArrayList<>(); // slots in table order
+        Random random = new Random(11);
+        for (int step = 0; step < 30_000; step++) {
+            int op = random.nextInt(100);
+            if (op < 60 || rows.isEmpty()) {
+                rows.add(store.add("Acme", "item", step, 19_000, null));
+            } else if (op < 97) {
+                int position = random.nextInt(rows.size());
+                store.remove(rows.remove(position));
+            } else {
+                store.compact();
+            }
+            if (step % 1_000 == 0 || step > 29_900) {
+                assertEquals(rows.size(), store.size());
+                for (int position = 0; position < rows.size(); position++) {
+                    assertEquals(rows.get(position), store.slotAt(position), "step " + step);
+                    assertEquals(position, store.positionOf(rows.get(position)), "step " + step);
+                }
+            }
+        }
+    }
+}
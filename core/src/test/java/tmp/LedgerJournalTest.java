@@ -0,0 +1,226 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerJournalTest {
+    @TempDir
+    Path directory;
+
+    private ExpenseTracker tracker;
+    private ManagePortfolio portfolio;
+
+    private LedgerJournal open() throws IOException {
+        tracker = new ExpenseTracker();
+        portfolio = new ManagePortfolio();
+        return LedgerJournal.open(directory, tracker, portfolio);
+    }
+
+    // Reopens without the close-time snapshot, as after a crash, so everything comes from the journal
+    private LedgerJournal crashAndReopen(LedgerJournal journal) throws IOException {
+        journal.sync();
+        return open();
+    }
+
+    @Test
+    void replaysEditsAndDeletesByIdAfterACrash() throws IOException {
+        LedgerJournal journal = open();
+        long first = tracker.addExpense(new Expense("Acme", "Paper", 10, "2024-01-01"));
+        long second = tracker.addExpense(new Expense("Globex", "Taxi", 20, "2024-01-02"));
+        long third = tracker.addExpense(new Expense("Initech", "Lunch", 30, "2024-01-03"));
+        tracker.deleteExpenseById(first);
+        tracker.editExpenseById(third, new Expense("Initech", "Dinner", 35, "2024-01-03"));
+        tracker.deleteExpenseById(third);
+        portfolio.buyStock(0, 5);
+
+        journal = crashAndReopen(journal);
+        assertEquals(1, tracker.getExpenseCount());
+        assertEquals(second, tracker.getExpenseId(0));
+        assertEquals("Taxi", tracker.getExpenseById(second).getDescription());
+        assertNull(tracker.getExpenseById(third));
+        assertEquals(5, portfolio.getStockQuantity(0));
+
+        // The deleted ids, the last one included, are not handed out again
+        long fourth = tracker.addExpense(new Expense("Acme", "Pens", 3, "2024-01-04"));
+        assertTrue(fourth > third);
+        journal.close();
+    }
+
+    // A refused buy leaves nothing in the journal, so the holding comes back as it was, not wrapped
+    @Test
+    void holdingsAtTheLimitSurviveReplayAndSnapshot() throws IOException {
+        LedgerJournal journal = open();
+        portfolio.buyStock(0, Integer.MAX_VALUE);
+        assertFalse(portfolio.buyStock(0, Integer.MAX_VALUE).isAccepted());
+        assertEquals(Integer.MAX_VALUE, portfolio.getStockQuantity(0));
+
+        journal = crashAndReopen(journal);
+        assertEquals(Integer.MAX_VALUE, portfolio.getStockQuantity(0));
+        assertFalse(portfolio.buyStock(0, 5).isAccepted());
+        journal.close();
+
+        journal = open();
+        assertEquals(Integer.MAX_VALUE, portfolio.getStockQuantity(0));
+        journal.close();
+    }
+
+    @Test
+    void restoresFromTheSnapshotWrittenOnClose() throws IOException {
+        LedgerJournal journal = open();
+        ExpenseBatch batch = new ExpenseBatch();
+        for (int i = 0; i < 1000; i++) {
+            batch.add("Company" + i % 7, "Item " + i, i, 19_000 + i % 30);
+        }
+        tracker.addExpenses(batch);
+        tracker.deleteExpense(10);
+        long sum = Math.round(tracker.getSumOfExpenses() * 100);
+        long id = tracker.getExpenseId(500);
+        journal.close();
+
+        journal = open();
+        assertEquals(999, tracker.getExpenseCount());
+        assertEquals(sum, Math.round(tracker.getSumOfExpenses() * 100));
+        assertEquals(500, tracker.indexOfId(id));
+        journal.close();
+    }
+
+    @Test
+    void refusesTextTheJournalCannotHoldWithoutChangingTheTracker() throws IOException {
+        LedgerJournal journal = open();
+        tracker.addExpense(new Expense("Acme", "Paper", 10, "2024-01-01"));
+        String huge = "x".repeat(70_000);
+        assertThrows(IllegalArgumentException.class, () -> tracker.addExpense(new Expense("Acme", huge, 1, "2024-01-02")));
+        ExpenseBatch batch = new ExpenseBatch();
+        batch.add("Acme", "Fine", 100, 19_000);
+        batch.add("Acme", huge, 100, 19_000);
+        assertThrows(IllegalArgumentException.class, () -> tracker.addExpenses(batch));
+        assertThrows(IllegalArgumentException.class, () -> tracker.editExpense(0, new Expense(huge, "Paper", 10, "2024-01-01")));
+        assertEquals(1, tracker.getExpenseCount());
+        assertEquals("Paper", tracker.getDescription(0));
+        long second = tracker.addExpense(new Expense("Globex", "Taxi", 20, "2024-01-02"));
+
+        journal = crashAndReopen(journal);
+        assertEquals(2, tracker.getExpenseCount());
+        assertEquals("Taxi", tracker.getExpenseById(second).getDescription());
+        assertEquals(1000 + 2000, Math.round(tracker.getSumOfExpenses() * 100));
+        journal.close();
+    }
+
+    @Test
+    void replaysSetAsideJournalsWhenTheSnapshotWasNotWritten() throws IOException {
+        LedgerJournal journal = open();
+        ExpenseBatch first = new ExpenseBatch();
+        for (int i = 0; i < 500; i++) {
+            first.add("Acme", "Before " + i, i, 19_000);
+        }
+        tracker.addExpenses(first);
+        tracker.deleteExpense(3);
+        journal.sync();
+        Path generationZero = directory.resolve("saved.log");
+        Files.copy(directory.resolve("journal.log"), generationZero);
+
+        // A cut-over sets generation 0 aside; the crash comes before its snapshot is written
+        journal.snapshot();
+        ExpenseBatch second = new ExpenseBatch();
+        for (int i = 0; i < 500; i++) {
+            second.add("Globex", "After " + i, i, 19_001);
+        }
+        tracker.addExpenses(second);
+        tracker.deleteExpense(0);
+        long last = tracker.getExpenseId(tracker.getExpenseCount() - 1);
+        journal.sync();
+        Files.delete(directory.resolve("snapshot.bin"));
+        Files.move(generationZero, directory.resolve("journal-0.log"), StandardCopyOption.REPLACE_EXISTING);
+
+        journal = open();
+        assertEquals(998, tracker.getExpenseCount());
+        assertEquals("Before 1", tracker.getDescription(0));
+        assertEquals(tracker.getExpenseCount() - 1, tracker.indexOfId(last));
+        assertTrue(journal.getRestoreWarnings().isEmpty());
+        assertFalse(Files.exists(directory.resolve("journal-0.log")), "folded into a new snapshot");
+        journal.close();
+    }
+
+    @Test
+    void cutsOverOnItsOwnAfterManyRecords() throws IOException, InterruptedException {
+        LedgerJournal journal = open();
+        ExpenseBatch batch = new ExpenseBatch();
+        for (int i = 0; i < 120_000; i++) {
+            batch.add("Company" + i % 13, "Item " + i, i % 1000, 19_000 + i % 400);
+        }
+        tracker.addExpenses(batch);
+        tracker.deleteExpense(7);
+        portfolio.buyStock(1, 3);
+        long sum = Math.round(tracker.getSumOfExpenses() * 100);
+        // The snapshot is written in the background; the set-aside journal goes once it is done
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (Files.exists(directory.resolve("journal-0.log")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(Files.exists(directory.resolve("journal-0.log")));
+
+        journal = crashAndReopen(journal);
+        assertEquals(119_999, tracker.getExpenseCount());
+        assertEquals(sum, Math.round(tracker.getSumOfExpenses() * 100));
+        assertEquals(3, portfolio.getStockQuantity(1));
+        assertNull(journal.getSnapshotFailure());
+        journal.close();
+    }
+
+    // The tracker waits for the disk with its lock released, so other callers get on meanwhile
+    @Test
+    void changesWaitForTheDiskOutsideTheTrackerLock() {
+        ExpenseTracker tracker = new ExpenseTracker();
+        List<Long> awaited = new ArrayList<>();
+        tracker.setChangeLog(new ExpenseChangeLog() {
+            private long seq = 0;
+
+            @Override
+            public void logAdd(long id, String company, String description, long cents, int epochDay) {
+            }
+
+            @Override
+            public void logEdit(long id, String company, String description, long cents, int epochDay) {
+            }
+
+            @Override
+            public void logDelete(long id) {
+            }
+
+            @Override
+            public void publish() {
+                seq++;
+            }
+
+            @Override
+            public long commit() {
+                return seq;
+            }
+
+            @Override
+            public void awaitDurable(long seq) {
+                int count = CompletableFuture.supplyAsync(tracker::getExpenseCount).orTimeout(10, TimeUnit.SECONDS).join();
+                assertTrue(count >= 0);
+                awaited.add(seq);
+            }
+        });
+        long id = tracker.addExpense(new Expense("Acme", "Paper", 10, "2024-01-01"));
+        tracker.editExpenseById(id, new Expense("Acme", "Ink", 12, "2024-01-01"));
+        ExpenseBatch batch = new ExpenseBatch();
+        batch.add("Globex", "Taxi", 2_000, 19_725);
+        tracker.addExpenses(batch);
+        tracker.deleteExpense(0);
+        assertEquals(List.of(1L, 2L, 3L, 4L), awaited);
+    }
+}
@@ -0,0 +1,172 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ManagePortfolioTest {
+    // Batches that move shares between two stocks keep their sum; a snapshot that caught one half
+    // of a batch would not
+    @Test
+    void snapshotsNeverSeeHalfABatch() throws InterruptedException {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(Arrays.asList("A", "B", "C")));
+        portfolio.buyStock(0, 1000);
+        portfolio.buyStock(1, 1000);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread[] traders = new Thread[4];
+        for (int t = 0; t < traders.length; t++) {
+            int seed = t;
+            traders[t] = new Thread(() -> {
+                for (int i = 0; !stop.get(); i++) {
+                    boolean toA = (i + seed) % 2 == 0;
+                    portfolio.applyTrades(List.of(Trade.buy(toA ? 0 : 1, 1), Trade.sell(toA ? 1 : 0, 1)));
+                    portfolio.buyStock(2, 1); // single-stock trades keep going alongside
+                }
+            });
+            traders[t].start();
+        }
+        try {
+            long lastVersion = -1;
+            for (int i = 0; i < 200_000; i++) {
+                PortfolioSnapshot snapshot = portfolio.snapshot();
+                assertEquals(2000, snapshot.getQuantity(0) + snapshot.getQuantity(1));
+                assertTrue(snapshot.getVersion() >= lastVersion);
+                lastVersion = snapshot.getVersion();
+            }
+        } finally {
+            stop.set(true);
+            for (Thread trader : traders) {
+                trader.join();
+            }
+        }
+        PortfolioSnapshot last = portfolio.snapshot();
+        assertEquals(2000, last.getQuantity(0) + last.getQuantity(1));
+        assertEquals(portfolio.getStockQuantity(2), last.getQuantity(2));
+        assertSame(last, portfolio.snapshot(), "unchanged holdings reuse the last snapshot");
+    }
+
+    @Test
+    void rejectedBatchesChangeNothing() {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(Arrays.asList("A", "B")));
+        portfolio.buyStock(0, 5);
+        PortfolioSnapshot before = portfolio.snapshot();
+        TradeResult result = portfolio.applyTrades(List.of(Trade.sell(0, 3), Trade.sell(1, 1)));
+        assertFalse(result.isAccepted());
+        assertEquals("B", result.getRejectedStock());
+        assertArrayEquals(before.getQuantities(), portfolio.getStockQuantities());
+    }
+
+    // The version moves on every trade, rejected ones included; the risk reports only go stale
+    // when the positions themselves differ
+    @Test
+    void riskReportsSurviveTradesThatChangeNothing() {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(Arrays.asList("A", "B")));
+        portfolio.getRiskAnalytics().setPriceHistory(PriceHistory.build(2,
+                new int[]{1, 2, 3, 4, 1, 2, 3, 4}, new int[]{0, 0, 0, 0, 1, 1, 1, 1},
+                new long[]{100, 110, 105, 120, 50, 49, 53, 52}, 8, 0));
+        portfolio.buyStock(0, 10);
+        CompletableFuture<RiskReport> report = portfolio.getRiskAnalytics().analyze(3);
+        long version = portfolio.getVersion();
+        assertFalse(portfolio.sellStock(1, 1).isAccepted());
+        portfolio.applyTrades(List.of(Trade.buy(1, 2), Trade.sell(1, 2)));
+        assertNotEquals(version, portfolio.getVersion());
+        assertSame(report, portfolio.getRiskAnalytics().analyze(3));
+        portfolio.buyStock(1, 1);
+        assertNotSame(report, portfolio.getRiskAnalytics().analyze(3));
+    }
+
+    @Test
+    void batchesWhoseNetChangeOverflowsAreRefused() {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(Arrays.asList("A", "B")));
+        portfolio.buyStock(1, 7);
+        List<Trade> trades = List.of(Trade.buy(0, Integer.MAX_VALUE), Trade.buy(0, 1), Trade.sell(1, 7));
+        assertThrows(IllegalArgumentException.class, () -> portfolio.applyTrades(trades));
+        assertArrayEquals(new long[]{0, 7}, portfolio.getStockQuantities());
+    }
+
+    @Test
+    void singleStockTradesReportTheirOneChange() {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(Arrays.asList("A", "B")));
+        TradeResult bought = portfolio.buyStock(1, 4);
+        assertTrue(bought.isAccepted());
+        assertEquals(1, bought.size());
+        assertEquals("B", bought.getStockName(0));
+        assertEquals(4, bought.getChange(0));
+        TradeResult sold = portfolio.sellStock(1, 3);
+        assertEquals(-3, sold.getChange(0));
+        assertEquals(3, sold.getSharesMoved());
+        assertThrows(IndexOutOfBoundsException.class, () -> sold.getStockId(1));
+        assertEquals(0, portfolio.sellStock(0, 1).size());
+    }
+
+    // Holdings are reported as ints, so a buy that would wrap one round is refused instead
+    @Test
+    void buysThatWouldOverflowAHoldingAreRejected() {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(Arrays.asList("A", "B")));
+        assertTrue(portfolio.buyStock(0, Integer.MAX_VALUE).isAccepted());
+        TradeResult result = portfolio.buyStock(0, Integer.MAX_VALUE);
+        assertFalse(result.isAccepted());
+        assertEquals("A", result.getRejectedStock());
+        assertFalse(portfolio.buyStock(0, 1).isAccepted());
+        assertEquals(Integer.MAX_VALUE, portfolio.getStockQuantity(0));
+
+        // A batch is refused whole, its sells and its other buys undone
+        portfolio.buyStock(1, 10);
+        result = portfolio.applyTrades(List.of(Trade.sell(1, 4), Trade.buy(1, 2), Trade.buy(0, 1)));
+        assertFalse(result.isAccepted());
+        assertEquals("A", result.getRejectedStock());
+        assertEquals(10, portfolio.getStockQuantity(1));
+        assertEquals(Integer.MAX_VALUE, portfolio.getStockQuantity(0));
+
+        assertTrue(portfolio.sellStock(0, 1).isAccepted());
+        assertTrue(portfolio.applyTrades(List.of(Trade.buy(0, 1), Trade.buy(1, 5))).isAccepted());
+        assertEquals(Integer.MAX_VALUE, portfolio.getStockQuantity(0));
+        assertEquals(15, portfolio.getStockQuantity(1));
+    }
+
+    // A trade the log refuses is undone before a listener hears of it; one it takes is told to the
+    // listeners before the log is asked to make it durable
+    @Test
+    void tradesAreLoggedBeforeAnyoneHearsOfThem() {
+        ManagePortfolio portfolio = new ManagePortfolio(new SymbolRegistry(Arrays.asList("A", "B")));
+        portfolio.buyStock(1, 3);
+        List<String> events = new ArrayList<>();
+        AtomicBoolean refuse = new AtomicBoolean(true);
+        portfolio.addListener(result -> events.add("told " + result.getChange(0)));
+        portfolio.setTradeLog(new TradeLog() {
+            @Override
+            public long logTrades(TradeResult result) {
+                if (refuse.get()) {
+                    throw new IllegalStateException("log is full");
+                }
+                events.add("logged " + result.getChange(0));
+                return events.size();
+            }
+
+            @Override
+            public void commitTrades(long seq) {
+                events.add("committed " + seq);
+            }
+        });
+
+        PortfolioSnapshot before = portfolio.snapshot();
+        assertThrows(IllegalStateException.class, () -> portfolio.buyStock(0, 5));
+        assertThrows(IllegalStateException.class, () -> portfolio.sellStock(1, 2));
+        assertThrows(IllegalStateException.class, () -> portfolio.applyTrades(List.of(Trade.buy(0, 1), Trade.sell(1, 3))));
+        assertTrue(events.isEmpty());
+        assertArrayEquals(new long[]{0, 3}, portfolio.getStockQuantities());
+        assertArrayEquals(before.getQuantities(), portfolio.snapshot().getQuantities());
+        assertNotEquals(before.getVersion(), portfolio.snapshot().getVersion(), "undoing a trade moves the version on");
+
+        refuse.set(false);
+        portfolio.buyStock(0, 5);
+        assertEquals(List.of("logged 5", "told 5", "committed 1"), events);
+        assertEquals(5, portfolio.getStockQuantity(0));
+    }
+}
@@ -0,0 +1,85 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedLedgerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void keepsRowsAndTheSumAcrossAReopen() throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(directory)) {
+            assertEquals(1, ledger.addExpense(new Expense("Acme", "Paper", 12.5, "2024-03-01")));
+            assertEquals(2, ledger.addExpense(new Expense("Bank", "Fee", 3, "2024-03-02")));
+            assertEquals(3, ledger.addExpense(new Expense("Acme", "Ink", 40, "2024-03-03")));
+            assertTrue(ledger.editExpenseById(1, new Expense("Acme", "Card", 10, "2024-03-04")));
+            assertTrue(ledger.deleteExpenseById(2));
+            assertFalse(ledger.deleteExpenseById(2));
+            assertFalse(ledger.editExpenseById(9, new Expense("Acme", "Card", 1, "2024-03-04")));
+        }
+        try (MappedLedger ledger = MappedLedger.open(directory)) {
+            assertEquals(2, ledger.size());
+            assertEquals(5000, ledger.getSumCents());
+            assertEquals(ledger.getSumCents(), ledger.recomputeSumCents());
+            Expense edited = ledger.getExpenseById(1);
+            assertEquals("Card", edited.getDescription());
+            assertEquals(10, edited.getAmount());
+            assertEquals("2024-03-04", edited.getDate());
+            assertNull(ledger.getExpenseById(2));
+            assertEquals(4, ledger.getNextId());
+        }
+    }
+
+    // A ledger that was never closed has a stale header; opening it again rebuilds it from the records
+    @Test
+    void recoversTheHeaderOfALedgerThatWasNotClosed() throws IOException {
+        MappedLedger crashed = MappedLedger.open(directory);
+        ExpenseBatch batch = new ExpenseBatch();
+        batch.add("Acme", "Paper", 1250, 19800);
+        batch.add(10, "Bank", "Fee", 300, 19801);
+        crashed.addExpenses(batch);
+        crashed.deleteExpenseById(1);
+        crashed.flush();
+
+        try (MappedLedger ledger = MappedLedger.open(directory)) {
+            assertEquals(1, ledger.size());
+            assertEquals(300, ledger.getSumCents());
+            assertEquals(11, ledger.getNextId());
+        }
+    }
+
+    @Test
+    void readsLiveRowsAPageAtATimeIntoATracker() throws IOException {
+        try (MappedLedger ledger = MappedLedger.open(directory)) {
+            ExpenseBatch batch = new ExpenseBatch();
+            for (int i = 0; i < 25; i++) {
+                batch.add("Company " + i % 3, "Item " + i, 100 + i, 19800 + i);
+            }
+            ledger.addExpenses(batch);
+            for (long id = 2; id <= 25; id += 5) {
+                ledger.deleteExpenseById(id);
+            }
+
+            ExpenseTracker tracker = new ExpenseTracker();
+            long next = 1;
+            int pages = 0;
+            for (ExpenseBatch page = ledger.readBatch(next, 8); page.size() > 0; page = ledger.readBatch(next, 8)) {
+                assertTrue(page.size() <= 8);
+                tracker.addExpenses(page);
+                next = page.getId(page.size() - 1) + 1;
+                pages++;
+            }
+            assertEquals(3, pages);
+            assertEquals(ledger.size(), tracker.getExpenseCount());
+            assertEquals(ledger.getSumOfExpenses(), tracker.getSumOfExpenses(), 1e-9);
+            assertEquals(-1, tracker.indexOfId(2));
+            assertEquals("Item 2", tracker.getExpenseById(3).getDescription());
+        }
+    }
+}
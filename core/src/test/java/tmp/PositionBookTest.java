@@ -0,0 +1,67 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionBookTest {
+    private static final int SLOTS = 16;
+    private static final int OPERATIONS = 200_000;
+
+    // Every thread trades random slots and counts the trades that went through; at the end the book
+    // must equal the sum of those counts, with no position below zero
+    @Test
+    void concurrentTradesLeaveTheBookEqualToTheirNet() throws InterruptedException {
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        PositionBook book = new PositionBook(SLOTS);
+        long[][] netByThread = new long[threads][SLOTS];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            long[] net = netByThread[t];
+            workers[t] = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS; i++) {
+                    int slot = random.nextInt(SLOTS);
+                    if (random.nextBoolean()) {
+                        book.add(slot, 1);
+                        net[slot]++;
+                    } else if (book.tryRemove(slot, 1)) {
+                        net[slot]--;
+                    }
+                }
+            });
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long expectedTotal = 0;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            long expected = 0;
+            for (long[] net : netByThread) {
+                expected += net[slot];
+            }
+            assertEquals(expected, book.get(slot), "slot " + slot);
+            assertTrue(book.get(slot) >= 0, "slot " + slot);
+            expectedTotal += expected;
+        }
+        assertEquals(expectedTotal, book.total());
+        assertArrayEquals(IntStream.range(0, SLOTS).mapToLong(book::get).toArray(), book.copyQuantities());
+    }
+
+    @Test
+    void tryRemoveRefusesMoreThanIsHeld() {
+        PositionBook book = new PositionBook(2);
+        book.add(1, 5);
+        assertFalse(book.tryRemove(1, 6));
+        assertTrue(book.tryRemove(1, 5));
+        assertFalse(book.tryRemove(0, 1));
+        assertEquals(0, book.total());
+    }
+}
@@ -0,0 +1,124 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionHistoryStoreTest {
+    private static final int CHUNK_DAYS = 128;
+    private static final SymbolRegistry REGISTRY = new SymbolRegistry(Arrays.asList("A", "B", "C"));
+
+    @TempDir
+    Path directory;
+
+    // What was recorded, by day; a day's holdings are those of the last recording on or before it
+    private final TreeMap<Integer, long[]> recorded = new TreeMap<>();
+
+    private void record(PositionHistoryStore store, int day, long... quantities) throws IOException {
+        store.recordDay(day, quantities);
+        recorded.put(day, quantities.clone());
+    }
+
+    private long expected(int id, int day) {
+        Map.Entry<Integer, long[]> entry = recorded.floorEntry(day);
+        return entry == null || id >= entry.getValue().length ? 0 : entry.getValue()[id];
+    }
+
+    // Every symbol's history over the range, read as one range and day by day
+    private void assertMatches(PositionHistoryStore store, SymbolRegistry registry, int from, int to) throws IOException {
+        for (int id = 0; id < registry.size(); id++) {
+            long[] history = store.getSymbolHistory(registry.getSymbol(id), from, to);
+            assertEquals(to - from + 1, history.length);
+            for (int day = from; day <= to; day++) {
+                assertEquals(expected(id, day), history[day - from], registry.getSymbol(id) + " on day " + day);
+            }
+        }
+        for (int day = from; day <= to; day++) {
+            long[] holdings = store.getHoldingsOn(day);
+            for (int id = 0; id < registry.size(); id++) {
+                assertEquals(expected(id, day), holdings[id], registry.getSymbol(id) + " held on day " + day);
+            }
+        }
+    }
+
+    // Recordings every few days, with a gap that skips a whole chunk, read back across every chunk boundary
+    @Test
+    void rollsOverIntoNewChunks() throws IOException {
+        PositionHistoryStore store = PositionHistoryStore.open(directory, REGISTRY);
+        Random random = new Random(3);
+        int first = 150 * CHUNK_DAYS + 100; // near the end of a chunk, so the first one is short
+        int day = first;
+        long a = 10;
+        for (int i = 0; i < 60; i++) {
+            a += random.nextInt(21) - 10;
+            record(store, day, a, i % 7 == 0 ? 0 : 5, 1_000_000_000_000L + i / 10);
+            day += i == 30 ? 2 * CHUNK_DAYS + 3 : 1 + random.nextInt(9);
+        }
+        int last = recorded.lastKey();
+        assertTrue(Math.floorDiv(last, CHUNK_DAYS) - Math.floorDiv(first, CHUNK_DAYS) >= 4);
+        assertMatches(store, REGISTRY, first - 10, last + CHUNK_DAYS + 10);
+
+        // One range across several chunks agrees with reading them a chunk at a time
+        long[] all = store.getSymbolHistory("A", first, last);
+        for (int chunkStart = Math.floorDiv(first, CHUNK_DAYS) * CHUNK_DAYS; chunkStart <= last; chunkStart += CHUNK_DAYS) {
+            int from = Math.max(first, chunkStart);
+            int to = Math.min(last, chunkStart + CHUNK_DAYS - 1);
+            long[] part = store.getSymbolHistory("A", from, to);
+            assertArrayEquals(Arrays.copyOfRange(all, from - first, to - first + 1), part);
+        }
+        assertArrayEquals(new long[0], store.getSymbolHistory("A", last, last - 1));
+        assertArrayEquals(new long[3], store.getSymbolHistory("Unknown", first, first + 2));
+    }
+
+    @Test
+    void recordingTheSameDayAgainOverwritesIt() throws IOException {
+        PositionHistoryStore store = PositionHistoryStore.open(directory, REGISTRY);
+        int day = 200 * CHUNK_DAYS - 2;
+        record(store, day, 1, 2, 3);
+        record(store, day + 1, 1, 2, 3); // extends the runs
+        record(store, day + 1, 4, 2, 0); // splits them again
+        record(store, day + 2, 4, 2, 0); // first day of the next chunk
+        record(store, day + 2, 1, 2, 3); // and back to what the previous chunk ended with
+        assertArrayEquals(new long[]{1, 2, 3}, store.getHoldingsOn(day));
+        assertArrayEquals(new long[]{4, 2, 0}, store.getHoldingsOn(day + 1));
+        assertArrayEquals(new long[]{1, 2, 3}, store.getHoldingsOn(day + 2));
+        assertMatches(store, REGISTRY, day - 1, day + 5);
+
+        assertThrows(IllegalArgumentException.class, () -> store.recordDay(day + 1, new long[]{9, 9, 9}));
+        assertArrayEquals(new long[]{4, 2, 0}, store.getHoldingsOn(day + 1));
+    }
+
+    // A reopened store reads its newest chunk back as the open one and carries on writing it
+    @Test
+    void reopensAndCarriesOnFromTheNewestChunk() throws IOException {
+        PositionHistoryStore store = PositionHistoryStore.open(directory, REGISTRY);
+        int first = 300 * CHUNK_DAYS + 50;
+        for (int i = 0; i < 20; i++) {
+            record(store, first + i * 20, i, 100 - i, i % 2);
+        }
+        int last = recorded.lastKey();
+
+        store = PositionHistoryStore.open(directory, REGISTRY);
+        assertMatches(store, REGISTRY, first - 3, last + 3);
+        record(store, last, 7, 7, 7); // same day as before the reopen
+        record(store, last + 5, 8, 8, 8);
+        record(store, last + CHUNK_DAYS, 9, 9, 9);
+
+        // A symbol added to the universe since starts with no holdings
+        SymbolRegistry grown = new SymbolRegistry(List.of("A", "B", "C", "D"));
+        store = PositionHistoryStore.open(directory, grown);
+        assertMatches(store, grown, first - 3, recorded.lastKey() + 3);
+        record(store, recorded.lastKey() + 1, 1, 2, 3, 4);
+        store = PositionHistoryStore.open(directory, grown);
+        assertMatches(store, grown, first, recorded.lastKey() + 1);
+    }
+}
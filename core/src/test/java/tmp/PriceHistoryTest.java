@@ -0,0 +1,59 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryTest {
+    private static final SymbolRegistry REGISTRY = new SymbolRegistry(Arrays.asList("A", "B"));
+
+    @TempDir
+    Path directory;
+
+    private Path write(String... lines) throws IOException {
+        Path file = directory.resolve("prices.csv");
+        Files.write(file, Arrays.asList(lines));
+        return file;
+    }
+
+    // Unknown symbols and unreadable lines are skipped; a missing day carries the previous close
+    @Test
+    void loadsClosesAndSkipsUnreadableLines() throws IOException {
+        PriceHistory history = PriceHistory.load(write(
+                "2024-03-01,A,10.50",
+                "2024-03-01,B,3",
+                "2024-03-02,A,11",
+                "2024-03-02,Z,5",
+                "not a date,A,1",
+                "2024-03-03,B,abc"), REGISTRY);
+        assertEquals(3, history.getSkipped());
+        assertEquals(2, history.getDayCount());
+        assertEquals(LocalDate.of(2024, 3, 2), history.getDate(1));
+        assertEquals(1_050, history.getCloseCents(0, 0));
+        assertEquals(1_100, history.getCloseCents(0, 1));
+        assertEquals(300, history.getCloseCents(1, 1));
+    }
+
+    @Test
+    void rejectsNonPositiveCloses() throws IOException {
+        Path zero = write("2024-03-01,A,10", "2024-03-02,A,0");
+        IOException e = assertThrows(IOException.class, () -> PriceHistory.load(zero, REGISTRY));
+        assertTrue(e.getMessage().contains("line 2"), e.getMessage());
+
+        Path negative = write("2024-03-01,A,10", "2024-03-02,B,4", "2024-03-03,A,-1.25");
+        e = assertThrows(IOException.class, () -> PriceHistory.load(negative, REGISTRY));
+        assertTrue(e.getMessage().contains("line 3"), e.getMessage());
+
+        // Rounds to no cents at all
+        Path tiny = write("2024-03-01,B,0.001");
+        e = assertThrows(IOException.class, () -> PriceHistory.load(tiny, REGISTRY));
+        assertTrue(e.getMessage().contains("line 1"), e.getMessage());
+    }
+}
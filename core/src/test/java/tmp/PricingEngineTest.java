@@ -0,0 +1,78 @@
+package tmp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+    @Test
+    void valuesPositionsAtTheLastPrices() {
+        PricingEngine engine = new PricingEngine(3);
+        engine.onPositionChanged(0, 10);
+        engine.onTick(0, 150, System.nanoTime());
+        engine.onTick(1, 2000, System.nanoTime());
+        assertEquals(15.00, engine.getMarketValue());
+        engine.setPosition(1, 2);
+        engine.onPositionChanged(0, -4);
+        engine.onTick(0, 100, System.nanoTime());
+        assertEquals(6.00 + 40.00, engine.getMarketValue());
+        assertEquals(20.00, engine.getPrice(1));
+        assertEquals(3, engine.getTickCount());
+    }
+
+    // Trades from many threads at once, with no lock between them, must all be counted
+    @Test
+    void concurrentTradesAreAllCounted() throws InterruptedException {
+        PricingEngine engine = new PricingEngine(4);
+        for (int id = 0; id < 4; id++) {
+            engine.onTick(id, 100 * (id + 1), System.nanoTime());
+        }
+        Thread[] workers = new Thread[8];
+        for (int t = 0; t < workers.length; t++) {
+            int stockId = t % 4;
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    engine.onPositionChanged(stockId, 1);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(200_000 * (1 + 2 + 3 + 4), engine.getMarketValue());
+    }
+
+    // Ticks and trades racing on the same symbols leave the running total equal to a full recompute
+    @Test
+    void runningTotalMatchesARecompute() throws InterruptedException {
+        PricingEngine engine = new PricingEngine(8);
+        Thread[] workers = new Thread[6];
+        for (int t = 0; t < workers.length; t++) {
+            boolean ticks = t % 2 == 0;
+            Random random = new Random(t);
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    int id = random.nextInt(8);
+                    if (ticks) {
+                        engine.onTick(id, 1 + random.nextInt(100_000), System.nanoTime());
+                    } else if (i % 1000 == 0) {
+                        engine.setPosition(id, random.nextInt(1000));
+                    } else {
+                        engine.onPositionChanged(id, random.nextInt(21) - 10);
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(engine.recomputeMarketValue(), engine.getMarketValue());
+        engine.setPosition(3, 0);
+        engine.onTick(5, 12_345, System.nanoTime());
+        assertEquals(engine.recomputeMarketValue(), engine.getMarketValue());
+    }
+}
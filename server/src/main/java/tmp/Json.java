@@ -0,0 +1,178 @@
+package tmp;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Just enough JSON for the HTTP API: writing strings and amounts, and reading the flat request
+// objects it accepts ({"name": "text" or number or true/false/null, ...}; no nesting)
+public class Json {
+    private Json() {
+    }
+
+    public static StringBuilder string(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        return out.append('"');
+    }
+
+    // Exact two-decimal form of a cent amount, e.g. -12.05
+    public static StringBuilder cents(StringBuilder out, long cents) {
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        long fraction = cents % 100;
+        out.append(cents / 100).append('.');
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+
+    // Values come back as their text (numbers and literals unparsed); null for JSON null
+    public static Map<String, String> parseObject(String text) {
+        Parser parser = new Parser(text);
+        Map<String, String> fields = new HashMap<>();
+        parser.expect('{');
+        if (!parser.consume('}')) {
+            do {
+                String name = parser.readString();
+                parser.expect(':');
+                fields.put(name, parser.readValue());
+            } while (parser.consume(','));
+            parser.expect('}');
+        }
+        parser.skipSpace();
+        if (parser.position < text.length()) {
+            throw parser.error("Unexpected text after the object");
+        }
+        return fields;
+    }
+
+    private static class Parser {
+        private final String text;
+        private int position;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        void skipSpace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        boolean consume(char c) {
+            skipSpace();
+            if (position < text.length() && text.charAt(position) == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!consume(c)) {
+                throw error("Expected '" + c + "'");
+            }
+        }
+
+        String readValue() {
+            skipSpace();
+            if (position < text.length() && text.charAt(position) == '"') {
+                return readString();
+            }
+            int start = position;
+            while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) {
+                position++;
+            }
+            String literal = text.substring(start, position);
+            if (literal.isEmpty() || literal.equals("{") || literal.startsWith("[")) {
+                throw error("Expected a string, number or literal");
+            }
+            return literal.equals("null") ? null : literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (position >= text.length()) {
+                    throw error("Unterminated string");
+                }
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    throw error("Unterminated string");
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        value.append('\b');
+                        break;
+                    case 'f':
+                        value.append('\f');
+                        break;
+                    case 'n':
+                        value.append('\n');
+                        break;
+                    case 'r':
+                        value.append('\r');
+                        break;
+                    case 't':
+                        value.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw error("Bad \\u escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Bad \\u escape");
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        value.append(escaped);
+                }
+            }
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at offset " + position + " of the JSON body");
+        }
+    }
+}
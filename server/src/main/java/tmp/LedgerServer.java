@@ -0,0 +1,476 @@
+package tmp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+// Headless JSON API over the same ExpenseTracker and ManagePortfolio the Swing app uses, on the JDK's
+// built-in HTTP server with one virtual thread per request (a plain pool before Java 21).
+//
+//   GET    /expenses?offset=0&limit=1000       rows in table order
+//   POST   /expenses                           {"company", "description", "amount", "date"}
+//   GET    /expenses/{id}
+//   PUT    /expenses/{id}                      same body as POST
+//   DELETE /expenses/{id}
+//   GET    /expenses/sum[?company][&from&to | &month=yyyy-MM | &year]
+//   GET    /expenses/search?q=...&limit=1000
+//   GET    /portfolio                          shares, market value and the non-zero holdings
+//   POST   /portfolio/trades                   {"side": "buy" | "sell", "stock", "quantity"}
+//   GET    /portfolio/changes?since=last visit changes since a checkpoint
+//
+// A change is only answered once its journal record is on disk. Rows are addressed by their id,
+// which never changes; the index each row also reports is its current table position, which shifts
+// when an earlier row is deleted.
+public class LedgerServer {
+    private static final int DEFAULT_LIMIT = 1000;
+    private static final Logger LOG = Logger.getLogger(LedgerServer.class.getName());
+
+    private final ExpenseTracker expenseTracker;
+    private final ManagePortfolio managePortfolio;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // Changes are saved when a LedgerJournal has been opened on the tracker and portfolio
+    public LedgerServer(ExpenseTracker expenseTracker, ManagePortfolio managePortfolio) {
+        this.expenseTracker = expenseTracker;
+        this.managePortfolio = managePortfolio;
+    }
+
+    public void start(InetSocketAddress address) throws IOException {
+        // Without TCP_NODELAY each small response waits out the client's delayed ACK, capping a
+        // keep-alive connection at a few dozen requests a second; must be set before the first server
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        server = HttpServer.create(address, 1024);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/expenses", exchange -> handle(exchange, this::expenses));
+        server.createContext("/portfolio", exchange -> handle(exchange, this::portfolio));
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Virtual threads are looked up reflectively so the build still targets Java 17; on 17 the
+    // requests run on a pool big enough for handlers that block on the journal's fsync
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(16, Runtime.getRuntime().availableProcessors() * 8), r -> {
+                Thread thread = new Thread(r, "ledger-server");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private interface Route {
+        Response handle(String method, String[] path, Map<String, String> query, String body) throws IOException;
+    }
+
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, CharSequence body) {
+            this.status = status;
+            this.body = body.toString();
+        }
+    }
+
+    private static class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handle(HttpExchange exchange, Route route) {
+        try {
+            Response response;
+            try {
+                String body;
+                try (InputStream in = exchange.getRequestBody()) {
+                    body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+                response = route.handle(exchange.getRequestMethod(), path, parseQuery(exchange.getRequestURI().getRawQuery()), body);
+            } catch (ApiException e) {
+                response = error(e.status, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                response = error(400, e.getMessage());
+            } catch (IOException | UncheckedIOException e) {
+                LOG.log(Level.SEVERE, "Could not save the change from " + describe(exchange), e);
+                response = error(500, "Could not save the change: " + e.getMessage());
+            } catch (RuntimeException e) {
+                LOG.log(Level.SEVERE, "Failed to handle " + describe(exchange), e);
+                response = error(500, "Internal error");
+            }
+            byte[] bytes = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (IOException e) {
+            // the client went away
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static String describe(HttpExchange exchange) {
+        return exchange.getRequestMethod() + " " + exchange.getRequestURI();
+    }
+
+    private Response expenses(String method, String[] path, Map<String, String> query, String body) throws IOException {
+        if (path.length == 1) {
+            switch (method) {
+                case "GET":
+                    return listExpenses(query);
+                case "POST":
+                    long id = expenseTracker.addExpense(parseExpense(body));
+                    return new Response(201, new StringBuilder("{\"id\":").append(id).append('}'));
+                default:
+                    throw notAllowed();
+            }
+        }
+        if (path.length != 2) {
+            throw notFound();
+        }
+        if (path[1].equals("sum")) {
+            requireGet(method);
+            return new Response(200, Json.cents(new StringBuilder("{\"sum\":"), sumCents(query)).append('}'));
+        }
+        if (path[1].equals("search")) {
+            requireGet(method);
+            return searchExpenses(query);
+        }
+        long id = parseId(path[1]);
+        switch (method) {
+            case "GET":
+                Lock lock = expenseTracker.readLock();
+                lock.lock();
+                try {
+                    int index = expenseTracker.indexOfId(id);
+                    if (index < 0) {
+                        throw noSuchExpense();
+                    }
+                    return new Response(200, expense(new StringBuilder(), index));
+                } finally {
+                    lock.unlock();
+                }
+            case "PUT":
+                if (!expenseTracker.editExpenseById(id, parseExpense(body))) {
+                    throw noSuchExpense();
+                }
+                return new Response(200, new StringBuilder("{\"id\":").append(id).append('}'));
+            case "DELETE":
+                if (!expenseTracker.deleteExpenseById(id)) {
+                    throw noSuchExpense();
+                }
+                return new Response(200, new StringBuilder("{\"id\":").append(id).append('}'));
+            default:
+                throw notAllowed();
+        }
+    }
+
+    private Response listExpenses(Map<String, String> query) {
+        int offset = intParam(query, "offset", 0);
+        int limit = intParam(query, "limit", DEFAULT_LIMIT);
+        StringBuilder out = new StringBuilder();
+        Lock lock = expenseTracker.readLock();
+        lock.lock();
+        try {
+            int count = expenseTracker.getExpenseCount();
+            int end = (int) Math.min(count, (long) offset + limit);
+            out.append("{\"count\":").append(count).append(",\"expenses\":[");
+            for (int i = offset; i < end; i++) {
+                if (i > offset) {
+                    out.append(',');
+                }
+                expense(out, i);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Response(200, out.append("]}"));
+    }
+
+    private Response searchExpenses(Map<String, String> query) {
+        int limit = intParam(query, "limit", DEFAULT_LIMIT);
+        StringBuilder out = new StringBuilder();
+        Lock lock = expenseTracker.readLock();
+        lock.lock();
+        try {
+            BitSet rows = expenseTracker.search(query.getOrDefault("q", ""));
+            int matches = rows == null ? expenseTracker.getExpenseCount() : rows.cardinality();
+            out.append("{\"count\":").append(matches).append(",\"expenses\":[");
+            int written = 0;
+            int row = rows == null ? 0 : rows.nextSetBit(0);
+            while (row >= 0 && row < expenseTracker.getExpenseCount() && written < limit) {
+                if (written++ > 0) {
+                    out.append(',');
+                }
+                expense(out, row);
+                row = rows == null ? row + 1 : rows.nextSetBit(row + 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return new Response(200, out.append("]}"));
+    }
+
+    private long sumCents(Map<String, String> query) {
+        String company = query.get("company");
+        double sum;
+        if (query.containsKey("from") || query.containsKey("to")) {
+            LocalDate from = LocalDate.parse(required(query, "from"));
+            LocalDate to = LocalDate.parse(required(query, "to"));
+            sum = company == null ? expenseTracker.getSumBetween(from, to) : expenseTracker.getSumForCompany(company, from, to);
+        } else if (query.containsKey("month")) {
+            YearMonth month = YearMonth.parse(query.get("month"));
+            sum = company == null ? expenseTracker.getSumForMonth(month) : expenseTracker.getSumForCompany(company, month);
+        } else if (query.containsKey("year")) {
+            if (company != null) {
+                throw new IllegalArgumentException("year cannot be combined with company");
+            }
+            sum = expenseTracker.getSumForYear(Integer.parseInt(query.get("year")));
+        } else {
+            sum = company == null ? expenseTracker.getSumOfExpenses() : expenseTracker.getSumForCompany(company);
+        }
+        return Math.round(sum * 100);
+    }
+
+    private Response portfolio(String method, String[] path, Map<String, String> query, String body) throws IOException {
+        if (path.length == 1) {
+            requireGet(method);
+            PortfolioSnapshot snapshot = managePortfolio.snapshot();
+            SymbolRegistry registry = snapshot.getRegistry();
+            StringBuilder holdings = new StringBuilder("{");
+            for (int id = 0; id < snapshot.size(); id++) {
+                if (snapshot.getQuantity(id) != 0) {
+                    if (holdings.length() > 1) {
+                        holdings.append(',');
+                    }
+                    Json.string(holdings, registry.getSymbol(id)).append(':').append(snapshot.getQuantity(id));
+                }
+            }
+            StringBuilder out = new StringBuilder("{\"version\":").append(snapshot.getVersion())
+                    .append(",\"shares\":").append(snapshot.getTotalShares()).append(",\"marketValue\":");
+            Json.cents(out, Math.round(managePortfolio.getMarketValue() * 100));
+            return new Response(200, out.append(",\"holdings\":").append(holdings).append("}}"));
+        }
+        if (path.length != 2) {
+            throw notFound();
+        }
+        switch (path[1]) {
+            case "trades":
+                if (!method.equals("POST")) {
+                    throw notAllowed();
+                }
+                return trade(Json.parseObject(body));
+            case "changes":
+                requireGet(method);
+                return new Response(200, changes(managePortfolio.getChangesSince(query.getOrDefault("since", ManagePortfolio.LAST_VISIT))));
+            default:
+                throw notFound();
+        }
+    }
+
+    private Response trade(Map<String, String> fields) throws IOException {
+        String stock = required(fields, "stock");
+        int quantity = fields.containsKey("quantity") ? Integer.parseInt(fields.get("quantity")) : 1;
+        TradeResult result;
+        switch (required(fields, "side")) {
+            case "buy":
+                result = managePortfolio.buyStock(stock, quantity);
+                break;
+            case "sell":
+                result = managePortfolio.sellStock(stock, quantity);
+                break;
+            default:
+                throw new IllegalArgumentException("side must be buy or sell");
+        }
+        if (!result.isAccepted()) {
+            StringBuilder out = new StringBuilder("{\"accepted\":false,\"rejected\":");
+            return new Response(409, Json.string(out, result.getRejectedStock()).append('}'));
+        }
+        Map<String, Integer> changes = new HashMap<>();
+        for (int i = 0; i < result.size(); i++) {
+            changes.put(result.getStockName(i), result.getChange(i));
+        }
+        return new Response(200, new StringBuilder("{\"accepted\":true,\"changes\":").append(changes(changes)).append('}'));
+    }
+
+    private static StringBuilder changes(Map<String, Integer> changes) {
+        StringBuilder out = new StringBuilder("{");
+        for (Map.Entry<String, Integer> change : changes.entrySet()) {
+            if (out.length() > 1) {
+                out.append(',');
+            }
+            Json.string(out, change.getKey()).append(':').append(change.getValue());
+        }
+        return out.append('}');
+    }
+
+    // Caller holds the tracker's read lock
+    private StringBuilder expense(StringBuilder out, int index) {
+        out.append("{\"id\":").append(expenseTracker.getExpenseId(index)).append(",\"index\":").append(index).append(",\"company\":");
+        Json.string(out, expenseTracker.getCompany(index)).append(",\"description\":");
+        Json.string(out, expenseTracker.getDescription(index)).append(",\"amount\":");
+        Json.cents(out, expenseTracker.getAmountCents(index)).append(",\"date\":\"");
+        return out.append(expenseTracker.getDate(index)).append("\"}");
+    }
+
+    private static Expense parseExpense(String body) {
+        Map<String, String> fields = Json.parseObject(body);
+        String date = required(fields, "date");
+        LocalDate.parse(date);
+        return new Expense(required(fields, "company"), required(fields, "description"),
+                Double.parseDouble(required(fields, "amount")), date);
+    }
+
+    private static String required(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing " + name);
+        }
+        return value;
+    }
+
+    private static int intParam(Map<String, String> query, String name, int defaultValue) {
+        String value = query.get(name);
+        int parsed = value == null ? defaultValue : Integer.parseInt(value);
+        if (parsed < 0) {
+            throw new IllegalArgumentException(name + " must not be negative");
+        }
+        return parsed;
+    }
+
+    private static long parseId(String text) {
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw notFound();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static void requireGet(String method) {
+        if (!method.equals("GET")) {
+            throw notAllowed();
+        }
+    }
+
+    private static ApiException notFound() {
+        return new ApiException(404, "Not found");
+    }
+
+    private static ApiException noSuchExpense() {
+        return new ApiException(404, "No such expense");
+    }
+
+    private static ApiException notAllowed() {
+        return new ApiException(405, "Method not allowed");
+    }
+
+    private static Response error(int status, String message) {
+        StringBuilder out = new StringBuilder("{\"error\":");
+        return new Response(status, Json.string(out, message == null ? "" : message).append('}'));
+    }
+
+    private static SymbolRegistry loadSymbols(Path file) {
+        if (Files.exists(file)) {
+            try {
+                return SymbolRegistry.load(file);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Could not load " + file + ", using the default symbols", e);
+            }
+        }
+        return SymbolRegistry.defaultRegistry();
+    }
+
+    // Usage: LedgerServer [port] [ledgerDirectory]; listens on localhost only
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        Path ledger = Paths.get(args.length > 1 ? args[1] : "ledger");
+        Metrics.register();
+        Metrics.startLoggingFromProperty();
+
+        ExpenseTracker expenseTracker = new ExpenseTracker();
+        ManagePortfolio managePortfolio = new ManagePortfolio(loadSymbols(Paths.get("symbols.txt")));
+        LedgerJournal journal = LedgerJournal.open(ledger, expenseTracker, managePortfolio);
+        for (String warning : journal.getRestoreWarnings()) {
+            LOG.warning("Restoring " + ledger + ": " + warning);
+        }
+
+        LedgerServer server = new LedgerServer(expenseTracker, managePortfolio);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            try {
+                journal.close();
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Could not close the ledger journal; recent changes may not be saved", e);
+            }
+        }));
+        System.out.println("Ledger API listening on http://localhost:" + server.getPort() + "/ ("
+                + expenseTracker.getExpenseCount() + " expenses)");
+    }
+}
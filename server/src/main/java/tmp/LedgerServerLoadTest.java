@@ -0,0 +1,161 @@
+package tmp;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Starts a LedgerServer over a seeded, journaled ledger in a temporary directory and drives it from
+// keep-alive connections for a fixed time, then prints requests per second.
+//   LedgerServerLoadTest [connections] [seconds] [writePercent] [rows]
+// Reads are a mix of sums, single rows, pages, searches and the portfolio; writes are expense adds and
+// buys, each of which waits for its journal record to reach the disk.
+public class LedgerServerLoadTest {
+    private static final String[] COMPANIES = {"Grocer", "Cafe", "Transit", "Utility", "Bookshop", "Pharmacy"};
+
+    public static void main(String[] args) throws Exception {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int writePercent = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 100_000;
+
+        Path directory = Files.createTempDirectory("ledger-load");
+        ExpenseTracker expenseTracker = new ExpenseTracker();
+        ManagePortfolio managePortfolio = new ManagePortfolio();
+        Random random = new Random(42);
+        ExpenseBatch batch = new ExpenseBatch(rows);
+        for (int i = 0; i < rows; i++) {
+            batch.add(COMPANIES[random.nextInt(COMPANIES.length)], "item " + random.nextInt(1000),
+                    100 + random.nextInt(10_000), 19_000 + random.nextInt(365));
+        }
+        expenseTracker.addExpenses(batch);
+        LedgerJournal journal = LedgerJournal.open(directory, expenseTracker, managePortfolio);
+        LedgerServer server = new LedgerServer(expenseTracker, managePortfolio);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        String stock = managePortfolio.getRegistry().getSymbol(0);
+
+        LongAdder reads = new LongAdder();
+        LongAdder writes = new LongAdder();
+        AtomicLong failures = new AtomicLong();
+        long warmupEnd = System.nanoTime() + 2_000_000_000L;
+        long end = warmupEnd + seconds * 1_000_000_000L;
+        Thread[] clients = new Thread[connections];
+        for (int c = 0; c < connections; c++) {
+            int seed = c;
+            clients[c] = new Thread(() -> {
+                Random choice = new Random(seed);
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+                    socket.setTcpNoDelay(true);
+                    OutputStream out = socket.getOutputStream();
+                    InputStream in = new BufferedInputStream(socket.getInputStream());
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        boolean write = choice.nextInt(100) < writePercent;
+                        int status = write ? write(out, in, choice, stock) : read(out, in, choice, rows);
+                        if (status >= 400) {
+                            failures.incrementAndGet();
+                        }
+                        if (now >= warmupEnd) {
+                            (write ? writes : reads).increment();
+                        }
+                    }
+                } catch (IOException e) {
+                    failures.incrementAndGet();
+                }
+            });
+            clients[c].start();
+        }
+        for (Thread client : clients) {
+            client.join();
+        }
+        server.stop();
+        journal.close();
+
+        long total = reads.sum() + writes.sum();
+        System.out.printf("%d connections, %d%% writes, %d rows: %.0f requests/s (%.0f reads/s, %.0f writes/s), %d failures%n",
+                connections, writePercent, rows, total / (double) seconds, reads.sum() / (double) seconds,
+                writes.sum() / (double) seconds, failures.get());
+    }
+
+    private static int read(OutputStream out, InputStream in, Random choice, int rows) throws IOException {
+        switch (choice.nextInt(8)) {
+            case 0:
+            case 1:
+                return request(out, in, "GET", "/expenses/sum?month=2022-03", null);
+            case 2:
+            case 3:
+                return request(out, in, "GET", "/expenses/" + (1 + choice.nextInt(rows)), null);
+            case 4:
+                return request(out, in, "GET", "/expenses?offset=" + choice.nextInt(rows) + "&limit=20", null);
+            case 5:
+                return request(out, in, "GET", "/portfolio", null);
+            case 6:
+                return request(out, in, "GET", "/portfolio/changes", null);
+            default:
+                return request(out, in, "GET", "/expenses/search?q=caf&limit=20", null);
+        }
+    }
+
+    private static int write(OutputStream out, InputStream in, Random choice, String stock) throws IOException {
+        if (choice.nextBoolean()) {
+            return request(out, in, "POST", "/portfolio/trades", "{\"side\":\"buy\",\"stock\":\"" + stock + "\",\"quantity\":1}");
+        }
+        return request(out, in, "POST", "/expenses",
+                "{\"company\":\"Cafe\",\"description\":\"load test\",\"amount\":4.5,\"date\":\"2022-03-01\"}");
+    }
+
+    // One HTTP/1.1 exchange on a kept-alive connection; returns the status
+    private static int request(OutputStream out, InputStream in, String method, String path, String body) throws IOException {
+        byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+        String head = method + " " + path + " HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + content.length + "\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(content);
+        out.flush();
+
+        StringBuilder line = new StringBuilder();
+        int status = -1;
+        int length = 0;
+        while (true) {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("Connection closed");
+            }
+            if (c != '\n') {
+                if (c != '\r') {
+                    line.append((char) c);
+                }
+                continue;
+            }
+            if (line.length() == 0) {
+                break;
+            }
+            String header = line.toString();
+            if (status < 0) {
+                status = Integer.parseInt(header.substring(9, 12));
+            } else if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(header.substring(15).trim());
+            }
+            line.setLength(0);
+        }
+        while (length > 0) {
+            long skipped = in.skip(length);
+            if (skipped <= 0) {
+                if (in.read() < 0) {
+                    throw new IOException("Connection closed");
+                }
+                skipped = 1;
+            }
+            length -= skipped;
+        }
+        return status;
+    }
+}